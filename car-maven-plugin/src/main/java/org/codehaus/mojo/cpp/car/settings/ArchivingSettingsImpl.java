@@ -1,29 +1,29 @@
-/* 
- *  Copyright 2011 Ericsson AB
- *
- *  Licensed under the Apache License, Version 2.0 (the "License");
- *  you may not use this file except in compliance with the License.
- *  You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- */
-
-package org.codehaus.mojo.cpp.car.settings;
-
-import java.io.File;
-
-import org.apache.maven.project.MavenProject;
-import org.codehaus.mojo.cpp.tools.settings.PluginSettingsImpl;
-
-
-public class ArchivingSettingsImpl extends PluginSettingsImpl implements ArchivingSettings {
-	public ArchivingSettingsImpl(final MavenProject project, final File outputDirectory, final File testOutputDirectory) {
-		super(project, outputDirectory, testOutputDirectory);
-	}
-}
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.car.settings;
+
+import java.io.File;
+
+import org.apache.maven.project.MavenProject;
+import org.codehaus.mojo.cpp.tools.settings.PluginSettingsImpl;
+
+
+public class ArchivingSettingsImpl extends PluginSettingsImpl implements ArchivingSettings {
+	public ArchivingSettingsImpl(final MavenProject project, final File outputDirectory, final File testOutputDirectory) {
+		super(project, outputDirectory, testOutputDirectory);
+	}
+}
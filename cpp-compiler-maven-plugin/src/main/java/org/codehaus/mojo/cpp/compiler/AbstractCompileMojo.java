@@ -22,6 +22,12 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.maven.artifact.factory.ArtifactFactory;
 import org.apache.maven.artifact.repository.ArtifactRepository;
@@ -34,17 +40,26 @@ import org.codehaus.mojo.cpp.compiler.artifacts.ArtifactFilter;
 import org.codehaus.mojo.cpp.compiler.artifacts.ArtifactManager;
 import org.codehaus.mojo.cpp.compiler.artifacts.executables.ExecutablesMap;
 import org.codehaus.mojo.cpp.compiler.bundle.BundleProviderManager;
+import org.codehaus.mojo.cpp.compiler.compilation.CompilationEngine;
 import org.codehaus.mojo.cpp.compiler.dependencies.DependencyExtractor;
 import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.mojo.cpp.compiler.jobs.ContainerResources;
+import org.codehaus.mojo.cpp.compiler.jobs.JobBudget;
+import org.codehaus.mojo.cpp.compiler.jobs.Jobserver;
+import org.codehaus.mojo.cpp.compiler.jobs.PeakMemoryMonitor;
+import org.codehaus.mojo.cpp.compiler.jobs.ResourceGovernor;
+import org.codehaus.mojo.cpp.compiler.jobs.SemaphoreJobBudget;
 import org.codehaus.mojo.cpp.compiler.settings.CompilerPluginSettings;
 import org.codehaus.mojo.cpp.tools.bundle.BundleLoader;
 import org.codehaus.mojo.cpp.tools.environment.Environment;
 import org.codehaus.mojo.cpp.tools.environment.EnvironmentManager;
-import org.codehaus.mojo.cpp.tools.settings.PluginSettingsImpl;
+import org.codehaus.mojo.cpp.tools.DirectorySnapshot;
 
 
 public abstract class AbstractCompileMojo extends AbstractMojo
 {
+	private static final String SOURCE_TREE_SNAPSHOT_FILE_NAME = "source-tree.snapshot";
+
 	/**
 	 * The OS name
 	 *
@@ -226,6 +241,200 @@ public abstract class AbstractCompileMojo extends AbstractMojo
 	 */
 	private Map<String, String> sources;
 
+	/**
+	 * The number of compiler threads to run, similarly to make's -j option.<br />
+	 * If 0 or left undefined one compiler thread per logical core is created.<br />
+	 * Can be set via the compiler.threads system property.
+	 *
+	 * @parameter expression="${compiler.threads}" default-value="0"
+	 * @since 1.0.0
+	 */
+	private int compilerThreads;
+
+	/**
+	 * The engine distributing files to the compiler threads.<br />
+	 * "scheduler" wakes compiler threads as soon as files to compile are found.
+	 * "polling" is the previous engine, where compiler threads poll for files to compile.<br />
+	 * Can be set via the compilation.engine system property.
+	 *
+	 * @parameter expression="${compilation.engine}" default-value="scheduler"
+	 * @since 1.0.0
+	 */
+	private String compilationEngine;
+
+	/**
+	 * If true, all target environments are compiled and linked at the same time.<br />
+	 * The targets then share the compiler threads given by compilerThreads and the
+	 * linkers given by linkerThreads, so that no more than that run at once.
+	 * Implies explicitObjectPlacement, since the targets would otherwise have the
+	 * compiler write their object files to the same source directories.<br />
+	 * Can be set via the parallel.targets system property.
+	 *
+	 * @parameter expression="${parallel.targets}" default-value="false"
+	 * @since 1.0.0
+	 */
+	private boolean parallelTargets;
+
+	/**
+	 * If true, compiled files are added to an existing static library while compiling,
+	 * rather than all at once afterwards. Executables are still linked once the static
+	 * library is complete, since they all link it.<br />
+	 * Can be set via the incremental.archiving system property.
+	 *
+	 * @parameter expression="${incremental.archiving}" default-value="false"
+	 * @since 1.0.0
+	 */
+	private boolean incrementalArchiving;
+
+	/**
+	 * The number of executables to link at the same time.<br />
+	 * Linkers use a lot of memory, so this is kept apart from compilerThreads.
+	 * If 0 or left undefined, one linker per two logical cores is run.<br />
+	 * Can be set via the linker.threads system property.
+	 *
+	 * @parameter expression="${linker.threads}" default-value="0"
+	 * @since 1.0.0
+	 */
+	private int linkerThreads;
+
+	/**
+	 * If true, a file whose timestamps have changed is only recompiled if the content of
+	 * the file or any file it includes has changed as well. This avoids full rebuilds
+	 * when e.g. checking out another branch and back touches all files.<br />
+	 * Can be set via the content.based.recompilation system property.
+	 *
+	 * @parameter expression="${content.based.recompilation}" default-value="false"
+	 * @since 1.0.0
+	 */
+	private boolean contentBasedRecompilation;
+
+	/**
+	 * If true, the compiler is run once per file and told where to write the object and depend files,
+	 * instead of once per source directory with the files moved into the obj directory afterwards.
+	 * Batches of files to compile are then no longer split up by source directory.<br />
+	 * Can be set via the explicit.object.placement system property.
+	 *
+	 * @parameter expression="${explicit.object.placement}" default-value="false"
+	 * @since 1.0.0
+	 */
+	private boolean explicitObjectPlacement;
+
+	/**
+	 * If true, the files of a batch which failed to compile are split up and compiled again until the
+	 * files failing to compile are found, so that all other files of the batch are compiled before the
+	 * build fails.<br />
+	 * Can be set via the isolate.compilation.failures system property.
+	 *
+	 * @parameter expression="${isolate.compilation.failures}" default-value="false"
+	 * @since 1.0.0
+	 */
+	private boolean isolateCompilationFailures;
+
+	/**
+	 * If true, object files are kept in a cache shared by all builds of the current user, and
+	 * restored from it instead of being compiled again when the source, included files, compiler
+	 * and arguments are the same. Paths below the project base directory don't affect the cache,
+	 * so several checkouts of the same tree share objects.<br />
+	 * Can be set via the object.cache system property.
+	 *
+	 * @parameter expression="${object.cache}" default-value="false"
+	 * @since 1.0.0
+	 */
+	private boolean objectCache;
+
+	/**
+	 * The directory of the object cache.<br />
+	 * Can be set via the object.cache.directory system property.
+	 *
+	 * @parameter expression="${object.cache.directory}" default-value="${user.home}/.cpp-maven-plugins/object-cache"
+	 * @since 1.0.0
+	 */
+	private File objectCacheDirectory;
+
+	/**
+	 * The size of the object cache in megabytes. When it grows larger the least recently used objects are evicted.<br />
+	 * Can be set via the object.cache.size system property.
+	 *
+	 * @parameter expression="${object.cache.size}" default-value="5120"
+	 * @since 1.0.0
+	 */
+	private int objectCacheSize;
+
+	/**
+	 * An object cache shared with other machines, on top of the local object cache. Either an
+	 * http or https URL of a server accepting GET and PUT, or a directory, e.g. on a network file system.
+	 * Only used if the object cache is enabled.<br />
+	 * Can be set via the object.cache.remote system property.
+	 *
+	 * @parameter expression="${object.cache.remote}"
+	 * @since 1.0.0
+	 */
+	private String remoteObjectCache;
+
+	/**
+	 * If true, objects are only fetched from the remote object cache, never stored in it.
+	 * Useful for developers, leaving it to continuous integration to fill the cache.<br />
+	 * Can be set via the object.cache.remote.readonly system property.
+	 *
+	 * @parameter expression="${object.cache.remote.readonly}" default-value="false"
+	 * @since 1.0.0
+	 */
+	private boolean remoteObjectCacheReadOnly;
+
+	/**
+	 * If true, dependencies are extracted once per machine into a store next to the local repository,
+	 * keyed by groupId, artifactId, version and checksum, and linked into each project with symbolic links.
+	 * Requires a host with the ln command.<br />
+	 * Can be set via the shared.extraction system property.
+	 *
+	 * @parameter expression="${shared.extraction}" default-value="false"
+	 * @since 1.0.0
+	 */
+	private boolean sharedExtraction;
+
+	/**
+	 * The number of days after which an extraction in the shared store that no build has used is deleted.<br />
+	 * Can be set via the shared.extraction.maximum.age system property.
+	 *
+	 * @parameter expression="${shared.extraction.maximum.age}" default-value="30"
+	 * @since 1.0.0
+	 */
+	private int sharedExtractionMaximumAge;
+
+	/**
+	 * If true, the listings of the source directories are kept in the build directory between builds,
+	 * and only directories whose modification time has changed are listed again.<br />
+	 * Can be set via the source.tree.snapshot system property.
+	 *
+	 * @parameter expression="${source.tree.snapshot}" default-value="true"
+	 * @since 1.0.0
+	 */
+	private boolean sourceTreeSnapshot;
+
+	/**
+	 * If true, compiler and linker jobs are only started while the memory they are expected to need fits
+	 * within the memory limit of the container, or the physical memory. Modules built at the same time
+	 * share that memory. The peak memory of compiling each file is learned from previous builds. The number of compiler threads defaults to the CPU quota of
+	 * the container rather than the number of logical cores.<br />
+	 * Can be set via the resource.governor system property.
+	 *
+	 * @parameter expression="${resource.governor}" default-value="false"
+	 * @since 1.0.0
+	 */
+	private boolean resourceGovernor;
+
+	/**
+	 * If true, this build serves a GNU make jobserver to all modules of the Maven session, and passes it
+	 * on to compilers and linkers through MAKEFLAGS, so that they, nested make invocations and
+	 * gcc -flto=jobserver share one number of jobs, the number of compiler threads of the first module.
+	 * A jobserver inherited from a calling make through MAKEFLAGS is always joined.<br />
+	 * Can be set via the jobserver system property.
+	 *
+	 * @parameter expression="${jobserver}" default-value="false"
+	 * @since 1.0.0
+	 */
+	private boolean jobserver;
+
 	protected EnvironmentManager environmentManager;
 	protected BundleProviderManager bundles;
 
@@ -258,33 +467,175 @@ public abstract class AbstractCompileMojo extends AbstractMojo
 	}
 
 	protected void run(final boolean testCompilation, final Environment... targetEnvironments) throws MojoExecutionException, MojoFailureException {
+		if( compilerThreads < 0 )
+			throw new MojoExecutionException("Invalid number of compiler threads " + compilerThreads + ". Must be a positive number, or 0 for one compiler thread per logical core.");
+		if( linkerThreads < 0 )
+			throw new MojoExecutionException("Invalid number of linker threads " + linkerThreads + ". Must be a positive number, or 0 for one linker per two logical cores.");
+
 		final CompilerPluginSettings settings = new CompilerPluginSettings(project, sources, outputDirectory, testOutputDirectory, linkerArguments, compilerArguments, testCompilation);
+		settings.setNumberOfCompilerThreads(compilerThreads);
+		settings.setCompilationEngine(CompilationEngine.fromName(compilationEngine));
+		settings.setContentBasedRecompilation(contentBasedRecompilation);
+		settings.setExplicitObjectPlacement(explicitObjectPlacement || buildsTargetsConcurrently(targetEnvironments));
+		if( !explicitObjectPlacement && buildsTargetsConcurrently(targetEnvironments) )
+			getLog().info("Placing object files explicitly, since " + targetEnvironments.length + " target environments are compiled from the same source directories at the same time.");
+		settings.setIsolateCompilationFailures(isolateCompilationFailures);
+		if( objectCache ) {
+			settings.setObjectCache(objectCacheDirectory, objectCacheSize * 1024L * 1024L);
+			settings.setRemoteObjectCache(remoteObjectCache, remoteObjectCacheReadOnly);
+		}
+		if( sharedExtraction )
+			settings.setExtractionStore(new File(localRepository.getBasedir(), ".cpp-extractions"), sharedExtractionMaximumAge * 24L * 60 * 60 * 1000);
+		if( sourceTreeSnapshot ) {
+			settings.setSourceTreeSnapshot(new DirectorySnapshot(getLog(), new File(project.getBuild().getDirectory(), SOURCE_TREE_SNAPSHOT_FILE_NAME)));
+			settings.getSourceTreeSnapshot().load();
+		}
 		final ArtifactManager artifactManager = new ArtifactManager(getLog(), project, artifactFactory, artifactResolver, localRepository, remoteRepositories);
-		final TargetCurrencyVerifier targetCurrencyVerifier = new TargetCurrencyVerifier(artifactManager, project, getLog());
+		final TargetCurrencyVerifier targetCurrencyVerifier = new TargetCurrencyVerifier(artifactManager, settings, project, getLog());
 
 		targetCurrencyVerifier.ensureCurrency();
 
-		for(TargetManager targetManager : createTargetManagers(settings, targetEnvironments, new DependencyExtractor(getLog(), settings, artifactManager), bundles)) {
-			getLog().info(targetManager.getTargetEnvironment() + ": Starting.");
+		final ResourceGovernor governor = resourceGovernor ? ResourceGovernor.getSessionGovernor(getLog()) : null;
+		if( governor != null ) {
+			final PeakMemoryMonitor peakMemoryMonitor = new PeakMemoryMonitor(getLog());
+			if( peakMemoryMonitor.start() )
+				settings.setPeakMemoryMonitor(peakMemoryMonitor);
+		}
+
+		final JobBudget jobBudget = createJobBudget(settings, governor);
+		settings.setJobserver(Jobserver.getInheritedJobserver(getLog()));
+		if( settings.getJobserver() == null && jobserver )
+			settings.setJobserver(Jobserver.getSessionJobserver(getLog(), jobBudget.getNumberOfJobs()));
+
+		try {
+			final List<TargetManager> targetManagers = createTargetManagers(settings, targetEnvironments, new DependencyExtractor(getLog(), settings, artifactManager), bundles, shareThroughJobserver(settings, jobBudget), shareThroughJobserver(settings, createLinkerBudget(governor)));
+			if( buildsTargetsConcurrently(targetEnvironments) ) {
+				buildConcurrently(targetManagers, settings);
+				return;
+			}
+
+			for(TargetManager targetManager : targetManagers)
+				build(targetManager, settings);
+		}
+		finally {
+			if( settings.getSourceTreeSnapshot() != null )
+				settings.getSourceTreeSnapshot().save();
+			if( settings.getPeakMemoryMonitor() != null )
+				settings.getPeakMemoryMonitor().stop();
+		}
+	}
+
+	/**
+	 * @param governor	The governor sharing memory between compiler and linker jobs, or null to only limit the number of jobs
+	 */
+	private JobBudget createJobBudget(final CompilerPluginSettings settings, final ResourceGovernor governor) {
+		final int numberOfCores = governor != null ? ContainerResources.getNumberOfProcessors() : Runtime.getRuntime().availableProcessors();
+		final int configuredNumberOfCompilerThreads = settings.getNumberOfCompilerThreads();
 
+		if( configuredNumberOfCompilerThreads > 0 ) {
+			getLog().info("Creating " + configuredNumberOfCompilerThreads + " compiler threads as configured.");
+			return createJobBudget(governor, configuredNumberOfCompilerThreads);
+		}
+
+		getLog().info("Found " + numberOfCores + " " + (governor != null ? "available processors" : "logical cores") + ". Creating " + numberOfCores + " compiler threads.");
+		return createJobBudget(governor, numberOfCores);
+	}
+
+	private JobBudget createLinkerBudget(final ResourceGovernor governor) {
+		if( linkerThreads > 0 ) {
+			getLog().debug("Running up to " + linkerThreads + " linkers as configured.");
+			return createJobBudget(governor, linkerThreads);
+		}
+
+		final int numberOfCores = governor != null ? ContainerResources.getNumberOfProcessors() : Runtime.getRuntime().availableProcessors();
+		final int numberOfLinkers = Math.max(1, numberOfCores / 2);
+		getLog().debug("Running up to " + numberOfLinkers + " linkers.");
+		return createJobBudget(governor, numberOfLinkers);
+	}
+
+	private JobBudget shareThroughJobserver(final CompilerPluginSettings settings, final JobBudget jobBudget) {
+		if( settings.getJobserver() == null )
+			return jobBudget;
+
+		return settings.getJobserver().createJobBudget(jobBudget);
+	}
+
+	private JobBudget createJobBudget(final ResourceGovernor governor, final int numberOfJobs) {
+		if( governor != null )
+			return governor.createJobBudget(numberOfJobs);
+
+		return new SemaphoreJobBudget(numberOfJobs);
+	}
+
+	private boolean buildsTargetsConcurrently(final Environment[] targetEnvironments) {
+		return parallelTargets && targetEnvironments.length > 1;
+	}
+
+	private void buildConcurrently(final List<TargetManager> targetManagers, final CompilerPluginSettings settings) throws MojoExecutionException, MojoFailureException {
+		final ExecutorService executor = Executors.newFixedThreadPool(targetManagers.size());
+		final CompletionService<Void> completionService = new ExecutorCompletionService<Void>(executor);
+
+		try {
+			for(final TargetManager targetManager : targetManagers) {
+				completionService.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws MojoExecutionException, MojoFailureException {
+						build(targetManager, settings);
+						return null;
+					}
+				});
+			}
+
+			for(int i = 0; i < targetManagers.size(); i++)
+				completionService.take().get();
+		}
+		catch (ExecutionException e) {
+			if( e.getCause() instanceof MojoFailureException )
+				throw (MojoFailureException)e.getCause();
+			if( e.getCause() instanceof MojoExecutionException )
+				throw (MojoExecutionException)e.getCause();
+
+			throw new MojoExecutionException("Building target environment failed.", e.getCause());
+		}
+		catch (InterruptedException e) {
+			throw new MojoExecutionException("Interrupted while waiting for target environments to be built.", e);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void build(final TargetManager targetManager, final CompilerPluginSettings settings) throws MojoExecutionException, MojoFailureException {
+		getLog().info(targetManager.getTargetEnvironment() + ": Starting.");
+
+		if( incrementalArchiving ) {
 			final long startTime = Calendar.getInstance().getTimeInMillis();
-			targetManager.compile();
-			final long compilationDoneTime = Calendar.getInstance().getTimeInMillis();
-			targetManager.buildArtifacts(createExecutablesMap(targetManager.getAllClasses(), targetManager.getTargetEnvironment(), settings), new ArtifactFilter(getLog(), "car").filter(project.getArtifacts()));
-			final long linkingDoneTime = Calendar.getInstance().getTimeInMillis();
+			targetManager.compileArchivingIncrementally(createExecutablesMap(targetManager.getAllClasses(), targetManager.getTargetEnvironment(), settings), new ArtifactFilter(getLog(), "car").filter(project.getArtifacts()));
+			final long doneTime = Calendar.getInstance().getTimeInMillis();
 
 			getLog().info(targetManager.getTargetEnvironment() + ": Done.");
 			getLog().debug(targetManager.getTargetEnvironment() + ": Time spent in:" + lineSeparator +
-					"    Compilation:        " + (compilationDoneTime - startTime) + " ms" + lineSeparator +
-					"    Building artifacts: " + (linkingDoneTime - compilationDoneTime) + " ms");
+					"    Compilation and building artifacts: " + (doneTime - startTime) + " ms");
+			return;
 		}
+
+		final long startTime = Calendar.getInstance().getTimeInMillis();
+		targetManager.compile();
+		final long compilationDoneTime = Calendar.getInstance().getTimeInMillis();
+		targetManager.buildArtifacts(createExecutablesMap(targetManager.getAllClasses(), targetManager.getTargetEnvironment(), settings), new ArtifactFilter(getLog(), "car").filter(project.getArtifacts()));
+		final long linkingDoneTime = Calendar.getInstance().getTimeInMillis();
+
+		getLog().info(targetManager.getTargetEnvironment() + ": Done.");
+		getLog().debug(targetManager.getTargetEnvironment() + ": Time spent in:" + lineSeparator +
+				"    Compilation:        " + (compilationDoneTime - startTime) + " ms" + lineSeparator +
+				"    Building artifacts: " + (linkingDoneTime - compilationDoneTime) + " ms");
 	}
 
-	protected List<TargetManager> createTargetManagers(final CompilerPluginSettings settings, final Environment[] targetEnvironments, final DependencyExtractor dependencyExtractor, final BundleProviderManager bundles) {
+	protected List<TargetManager> createTargetManagers(final CompilerPluginSettings settings, final Environment[] targetEnvironments, final DependencyExtractor dependencyExtractor, final BundleProviderManager bundles, final JobBudget jobBudget, final JobBudget linkerBudget) {
 		List<TargetManager> list = new ArrayList<TargetManager>();
 
 		for(Environment targetEnvironment : targetEnvironments)
-			list.add(new TargetManager(getLog(), settings, hostEnvironment, targetEnvironment, dependencyExtractor, bundles));
+			list.add(new TargetManager(getLog(), settings, hostEnvironment, targetEnvironment, dependencyExtractor, bundles, jobBudget, linkerBudget));
 
 		return list;
 	}
@@ -308,5 +659,5 @@ public abstract class AbstractCompileMojo extends AbstractMojo
 		return null;
 	}
 
-	protected abstract ExecutablesMap createExecutablesMap(final Collection<NativeCodeFile> compiledClasses, final Environment targetEnvironment, final PluginSettingsImpl settings) throws MojoFailureException;
+	protected abstract ExecutablesMap createExecutablesMap(final Collection<NativeCodeFile> compiledClasses, final Environment targetEnvironment, final CompilerPluginSettings settings) throws MojoFailureException;
 }
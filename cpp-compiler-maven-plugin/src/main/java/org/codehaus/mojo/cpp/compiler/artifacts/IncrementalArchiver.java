@@ -0,0 +1,133 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.artifacts;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.compilation.CompilationListener;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+
+/**
+ * Adds compiled files to the static library of a target environment while it is being compiled,
+ * each batch as soon as it is done, so that little is left to archive when compilation ends.
+ */
+public class IncrementalArchiver implements CompilationListener {
+	private final Log log;
+	private final StaticLibraryBuilder staticLibraryBuilder;
+	private final ExecutorService archiver = Executors.newSingleThreadExecutor();
+	private final List<Future<Void>> pendingArchivings = new ArrayList<Future<Void>>();
+	private final AtomicInteger numberOfArchivedFiles = new AtomicInteger();
+	private boolean archiveIncrementally;
+
+	public IncrementalArchiver(final Log log, final StaticLibraryBuilder staticLibraryBuilder) {
+		this.log = log;
+		this.staticLibraryBuilder = staticLibraryBuilder;
+	}
+
+	/**
+	 * Must be called before compilation starts.<br/>
+	 * A missing static library is created from all object files once compilation is done,
+	 * so only an existing one is updated while compiling. One which may hold objects of removed classes is recreated.
+	 */
+	public void start(final Collection<NativeCodeFile> allClasses) throws MojoExecutionException {
+		staticLibraryBuilder.prepare();
+		staticLibraryBuilder.removeStaleLibrary(allClasses);
+		archiveIncrementally = staticLibraryBuilder.libraryExists();
+	}
+
+	@Override
+	public synchronized void filesCompiled(final Collection<NativeCodeFile> compiledFiles) {
+		if( !archiveIncrementally )
+			return;
+
+		final Collection<NativeCodeFile> filesToArchive = new ArrayList<NativeCodeFile>(compiledFiles);
+		pendingArchivings.add(archiver.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws MojoExecutionException, MojoFailureException {
+				staticLibraryBuilder.archive(filesToArchive);
+				numberOfArchivedFiles.addAndGet(filesToArchive.size());
+				return null;
+			}
+		}));
+	}
+
+	/**
+	 * Completes and publishes the static library. Must be called once compilation is done.
+	 */
+	public void finishStaticLibrary(final Collection<NativeCodeFile> allClasses) throws MojoExecutionException, MojoFailureException {
+		try {
+			completeStaticLibrary(allClasses);
+			staticLibraryBuilder.recordMembers(allClasses);
+			staticLibraryBuilder.publish();
+		}
+		finally {
+			abort();
+		}
+	}
+
+	public void abort() {
+		archiver.shutdownNow();
+	}
+
+	private void completeStaticLibrary(final Collection<NativeCodeFile> allClasses) throws MojoExecutionException, MojoFailureException {
+		if( archiveIncrementally ) {
+			for(Future<Void> archiving : getPendingArchivings())
+				await(archiving);
+		}
+		else if( !allClasses.isEmpty() ) {
+			staticLibraryBuilder.archive(allClasses);
+			numberOfArchivedFiles.addAndGet(allClasses.size());
+		}
+
+		if( numberOfArchivedFiles.get() == 0 )
+			log.debug("No files to archive - static library will not be updated.");
+		else
+			log.info(staticLibraryBuilder.getTargetEnvironment() + ": " + numberOfArchivedFiles.get() + " files archived.");
+	}
+
+	private synchronized List<Future<Void>> getPendingArchivings() {
+		return new ArrayList<Future<Void>>(pendingArchivings);
+	}
+
+	private void await(final Future<Void> job) throws MojoExecutionException, MojoFailureException {
+		try {
+			job.get();
+		}
+		catch (ExecutionException e) {
+			if( e.getCause() instanceof MojoFailureException )
+				throw (MojoFailureException)e.getCause();
+			if( e.getCause() instanceof MojoExecutionException )
+				throw (MojoExecutionException)e.getCause();
+
+			throw new MojoExecutionException("Archiving " + staticLibraryBuilder.getTargetEnvironment() + " files failed.", e.getCause());
+		}
+		catch (InterruptedException e) {
+			throw new MojoExecutionException("Interrupted while archiving " + staticLibraryBuilder.getTargetEnvironment() + " files.", e);
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.artifacts;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.mojo.cpp.compiler.jobs.JobBudget;
+
+/**
+ * Runs independent artifact builders side by side, as many at a time as the linker budget allows.
+ */
+public class LinkingStage {
+	private final Log log;
+	private final JobBudget linkerBudget;
+
+	public LinkingStage(final Log log, final JobBudget linkerBudget) {
+		this.log = log;
+		this.linkerBudget = linkerBudget;
+	}
+
+	public void build(final Collection<AbstractArtifactBuilder> builders, final Collection<NativeCodeFile> allClasses, final Collection<NativeCodeFile> compiledClasses, final Collection<Artifact> dependencies) throws MojoExecutionException, MojoFailureException {
+		if( builders.isEmpty() )
+			return;
+
+		final int numberOfLinkerThreads = Math.min(linkerBudget.getNumberOfJobs(), builders.size());
+		log.debug("Building " + builders.size() + " artifacts using " + numberOfLinkerThreads + " linker threads.");
+
+		final ExecutorService linkers = Executors.newFixedThreadPool(numberOfLinkerThreads);
+		final CompletionService<Void> completionService = new ExecutorCompletionService<Void>(linkers);
+
+		try {
+			for(final AbstractArtifactBuilder builder : builders) {
+				completionService.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws MojoExecutionException, MojoFailureException, InterruptedException {
+						build(builder, allClasses, compiledClasses, dependencies);
+						return null;
+					}
+				});
+			}
+
+			for(int i = 0; i < builders.size(); i++)
+				completionService.take().get();
+		}
+		catch (ExecutionException e) {
+			if( e.getCause() instanceof MojoFailureException )
+				throw (MojoFailureException)e.getCause();
+			if( e.getCause() instanceof MojoExecutionException )
+				throw (MojoExecutionException)e.getCause();
+
+			throw new MojoExecutionException("Exception caught while building artifacts.", e.getCause());
+		}
+		catch (InterruptedException e) {
+			throw new MojoExecutionException("Interrupted while waiting for artifacts to be built.", e);
+		}
+		finally {
+			linkers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Builds a single artifact in the calling thread, once the linker budget allows it.
+	 */
+	public void build(final AbstractArtifactBuilder builder, final Collection<NativeCodeFile> allClasses, final Collection<NativeCodeFile> compiledClasses, final Collection<Artifact> dependencies) throws MojoExecutionException, MojoFailureException {
+		try {
+			linkerBudget.acquire();
+		}
+		catch (InterruptedException e) {
+			throw new MojoExecutionException("Interrupted while waiting for a free linker job.", e);
+		}
+
+		try {
+			builder.build(allClasses, compiledClasses, dependencies);
+		}
+		finally {
+			linkerBudget.release();
+		}
+	}
+}
@@ -1,118 +1,221 @@
-/* 
- *  Copyright 2011 Ericsson AB
- *
- *  Licensed under the Apache License, Version 2.0 (the "License");
- *  you may not use this file except in compliance with the License.
- *  You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- */
-
-package org.codehaus.mojo.cpp.compiler.artifacts;
-
-import java.io.File;
-import java.util.Arrays;
-import java.util.Collection;
-
-import org.apache.maven.artifact.Artifact;
-import org.apache.maven.plugin.MojoExecutionException;
-import org.apache.maven.plugin.MojoFailureException;
-import org.apache.maven.plugin.logging.Log;
-import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
-import org.codehaus.mojo.cpp.compiler.settings.CompilationSettings;
-import org.codehaus.mojo.cpp.tools.CliExecutor;
-import org.codehaus.mojo.cpp.tools.DirectoryHandler;
-import org.codehaus.mojo.cpp.tools.DirectoryHandler.OverwriteStyle;
-import org.codehaus.mojo.cpp.tools.environment.Environment;
-
-
-public class StaticLibraryBuilder extends AbstractArtifactBuilder {
-	private static final int ARCHIVING_BATCH_SIZE = 250;
-
-	public StaticLibraryBuilder(final Log log, final CompilationSettings settings, final Environment targetEnvironment) {
-		super(log, settings, targetEnvironment);
-	}
-
-	@Override
-	public void build(final Collection<NativeCodeFile> allClasses, final Collection<NativeCodeFile> compiledClasses, final Collection<Artifact> dependencies) throws MojoExecutionException, MojoFailureException {
-		new DirectoryHandler(log).create(settings.getLibDirectory(getTargetEnvironment(), settings.isTestCompilation()));
-
-		createStaticLibrary(allClasses, compiledClasses);
-		publishHeaderFiles(null);
-		publishHeaderFiles(getTargetEnvironment());
-		publishPreExistingLibs(getTargetEnvironment());
-	}
-
-	private void createStaticLibrary(final Collection<NativeCodeFile> allClasses, final Collection<NativeCodeFile> compiledClasses) throws MojoExecutionException, MojoFailureException {
-		final File libFile = new File(settings.getLibDirectory(getTargetEnvironment(), settings.isTestCompilation()), "lib" + settings.getProject().getArtifactId() + ".a");
-		final Collection<NativeCodeFile> classesToArchive = determineClassesToArchive(libFile.exists(), allClasses, compiledClasses);
-
-		if( classesToArchive.isEmpty() ) {
-			log.debug("No files to archive - static library will not be updated.");
-			return;
-		}
-		
-		for(NativeCodeFile[] batch : createClassBatches(classesToArchive)) 
-			archiveBatch(libFile, batch);
-
-		log.info(getTargetEnvironment() + ": " + classesToArchive.size() + " files archived.");
-	}
-
-	private NativeCodeFile[][] createClassBatches(final Collection<NativeCodeFile> classes) {
-		final NativeCodeFile[] allClasses = classes.toArray(new NativeCodeFile[classes.size()]);
-		final int numberOfBatches = (allClasses.length + ARCHIVING_BATCH_SIZE - 1) / ARCHIVING_BATCH_SIZE;
-		final NativeCodeFile[][] batches = new NativeCodeFile[numberOfBatches][];
-
-		for(int i = 0; i < numberOfBatches; i++) {
-			int start = i * ARCHIVING_BATCH_SIZE;
-			int stop = Math.min(start + ARCHIVING_BATCH_SIZE, allClasses.length);
-
-			batches[i] = Arrays.copyOfRange(allClasses, start, stop);
-		}
-
-		log.debug("Split classes to archive into " + batches.length + " batches of up to " + ARCHIVING_BATCH_SIZE + " each.");
-
-		return batches;
-	}
-
-	private void archiveBatch(final File libFile, final NativeCodeFile[] batch) throws MojoFailureException, MojoExecutionException {
-		CliExecutor executor = new CliExecutor(log);
-		executor.initialize(libFile.getParentFile(), "ar");
-		executor.getCommandline().createArg().setValue("rc");
-		executor.getCommandline().createArg().setValue(libFile.getName());
-
-		for(NativeCodeFile classToArchive : batch)
-			executor.getCommandline().createArg().setValue(classToArchive.getObjectFile().getPath());
-
-		executor.execute();
-
-		log.debug("Archived batch of " + batch.length + " files.");
-	}
-
-	private Collection<NativeCodeFile> determineClassesToArchive(boolean libFileExists, Collection<NativeCodeFile> allClasses, Collection<NativeCodeFile> compiledClasses) {
-		if( libFileExists )
-			return compiledClasses;
-		else
-			return allClasses;
-	}
-
-	private void publishPreExistingLibs(Environment environment) throws MojoFailureException, MojoExecutionException {
-		final File sourceDirectory = settings.getPreExistingLibDirectory(environment, settings.isTestCompilation());
-		final File destinationDirectory = settings.getLibDirectory(environment, settings.isTestCompilation());
-		log.debug("Copying " + sourceDirectory + " to " + destinationDirectory);
-		new DirectoryHandler(log).copyRecursively(sourceDirectory, destinationDirectory, OverwriteStyle.OVERWRITE_IF_NEWER);
-	}
-
-	private void publishHeaderFiles(final Environment environment) throws MojoFailureException, MojoExecutionException {
-		final File sourceDirectory = settings.getIncludeDirectory(environment, settings.isTestCompilation());
-		final File destinationDirectory = settings.getOutputHeaderDirectory(environment, settings.isTestCompilation());
-		log.debug("Copying " + sourceDirectory + " to " + destinationDirectory);
-		new DirectoryHandler(log).copyRecursively(sourceDirectory, destinationDirectory, OverwriteStyle.OVERWRITE_IF_NEWER);
-	}
-}
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.artifacts;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.mojo.cpp.compiler.settings.CompilationSettings;
+import org.codehaus.mojo.cpp.tools.CliExecutor;
+import org.codehaus.mojo.cpp.tools.DirectoryHandler;
+import org.codehaus.mojo.cpp.tools.DirectoryHandler.OverwriteStyle;
+import org.codehaus.mojo.cpp.tools.environment.Environment;
+import org.codehaus.plexus.util.FileUtils;
+
+
+public class StaticLibraryBuilder extends AbstractArtifactBuilder {
+	private static final int ARCHIVING_BATCH_SIZE = 250;
+	private static final String MEMBERS_SUFFIX = ".members";
+
+	public StaticLibraryBuilder(final Log log, final CompilationSettings settings, final Environment targetEnvironment) {
+		super(log, settings, targetEnvironment);
+	}
+
+	@Override
+	public void build(final Collection<NativeCodeFile> allClasses, final Collection<NativeCodeFile> compiledClasses, final Collection<Artifact> dependencies) throws MojoExecutionException, MojoFailureException {
+		prepare();
+		removeStaleLibrary(allClasses);
+		createStaticLibrary(allClasses, compiledClasses);
+		recordMembers(allClasses);
+		publish();
+	}
+
+	public void prepare() throws MojoExecutionException {
+		new DirectoryHandler(log).create(settings.getLibDirectory(getTargetEnvironment(), settings.isTestCompilation()));
+	}
+
+	public boolean libraryExists() {
+		return getLibraryFile().exists();
+	}
+
+	/**
+	 * Removes the static library if it may contain objects of classes which no longer exist, since archiving only
+	 * ever adds or replaces members. Libraries archived before their members were recorded are removed as well.
+	 */
+	public void removeStaleLibrary(final Collection<NativeCodeFile> allClasses) throws MojoExecutionException {
+		final File libraryFile = getLibraryFile();
+		if( !libraryFile.exists() )
+			return;
+
+		final Set<String> recordedMembers = readMembers();
+		if( recordedMembers != null && getMembers(allClasses).containsAll(recordedMembers) )
+			return;
+
+		log.debug(getTargetEnvironment() + ": Removing " + libraryFile + " since it may contain objects of removed classes.");
+		if( !libraryFile.delete() )
+			throw new MojoExecutionException("Failed to remove stale static library " + libraryFile);
+	}
+
+	/**
+	 * Records the objects of all classes as the members of the static library. Must be called once it is complete.
+	 */
+	public void recordMembers(final Collection<NativeCodeFile> allClasses) throws MojoExecutionException {
+		final File membersFile = getMembersFile();
+		final StringBuilder members = new StringBuilder();
+		for(String member : getMembers(allClasses))
+			members.append(member).append('\n');
+
+		try {
+			membersFile.getParentFile().mkdirs();
+			FileUtils.fileWrite(membersFile.getPath(), members.toString());
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to write static library members to " + membersFile, e);
+		}
+	}
+
+	/**
+	 * Adds object files to the static library, creating it if it doesn't exist.
+	 */
+	public void archive(final Collection<NativeCodeFile> classesToArchive) throws MojoExecutionException, MojoFailureException {
+		for(NativeCodeFile[] batch : createClassBatches(classesToArchive)) 
+			archiveBatch(getLibraryFile(), batch);
+	}
+
+	/**
+	 * Copies header files and pre-existing libraries to where depending projects expect them.
+	 */
+	public void publish() throws MojoExecutionException, MojoFailureException {
+		publishHeaderFiles(null);
+		publishHeaderFiles(getTargetEnvironment());
+		publishPreExistingLibs(getTargetEnvironment());
+	}
+
+	private File getLibraryFile() {
+		return new File(settings.getLibDirectory(getTargetEnvironment(), settings.isTestCompilation()), "lib" + settings.getProject().getArtifactId() + ".a");
+	}
+
+	/**
+	 * The list of members is kept with the objects rather than next to the library, which is packaged.
+	 */
+	private File getMembersFile() {
+		return new File(settings.getObjDirectory(getTargetEnvironment(), settings.isTestCompilation()), getLibraryFile().getName() + MEMBERS_SUFFIX);
+	}
+
+	/**
+	 * @return		The recorded members of the static library, or null if none were recorded
+	 */
+	private Set<String> readMembers() throws MojoExecutionException {
+		final File membersFile = getMembersFile();
+		if( !membersFile.exists() )
+			return null;
+
+		try {
+			final Set<String> members = new HashSet<String>();
+			for(String member : FileUtils.fileRead(membersFile).split("\n"))
+				if( member.length() > 0 )
+					members.add(member);
+
+			return members;
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to read static library members from " + membersFile, e);
+		}
+	}
+
+	private Set<String> getMembers(final Collection<NativeCodeFile> classes) {
+		final Set<String> members = new HashSet<String>();
+		for(NativeCodeFile nativeCodeFile : classes)
+			members.add(nativeCodeFile.getObjectFile().getPath());
+
+		return members;
+	}
+
+	private void createStaticLibrary(final Collection<NativeCodeFile> allClasses, final Collection<NativeCodeFile> compiledClasses) throws MojoExecutionException, MojoFailureException {
+		final Collection<NativeCodeFile> classesToArchive = determineClassesToArchive(libraryExists(), allClasses, compiledClasses);
+
+		if( classesToArchive.isEmpty() ) {
+			log.debug("No files to archive - static library will not be updated.");
+			return;
+		}
+		
+		archive(classesToArchive);
+
+		log.info(getTargetEnvironment() + ": " + classesToArchive.size() + " files archived.");
+	}
+
+	private NativeCodeFile[][] createClassBatches(final Collection<NativeCodeFile> classes) {
+		final NativeCodeFile[] allClasses = classes.toArray(new NativeCodeFile[classes.size()]);
+		final int numberOfBatches = (allClasses.length + ARCHIVING_BATCH_SIZE - 1) / ARCHIVING_BATCH_SIZE;
+		final NativeCodeFile[][] batches = new NativeCodeFile[numberOfBatches][];
+
+		for(int i = 0; i < numberOfBatches; i++) {
+			int start = i * ARCHIVING_BATCH_SIZE;
+			int stop = Math.min(start + ARCHIVING_BATCH_SIZE, allClasses.length);
+
+			batches[i] = Arrays.copyOfRange(allClasses, start, stop);
+		}
+
+		log.debug("Split classes to archive into " + batches.length + " batches of up to " + ARCHIVING_BATCH_SIZE + " each.");
+
+		return batches;
+	}
+
+	private void archiveBatch(final File libFile, final NativeCodeFile[] batch) throws MojoFailureException, MojoExecutionException {
+		CliExecutor executor = new CliExecutor(log);
+		executor.initialize(libFile.getParentFile(), "ar");
+		executor.getCommandline().createArg().setValue("rc");
+		executor.getCommandline().createArg().setValue(libFile.getName());
+
+		for(NativeCodeFile classToArchive : batch)
+			executor.getCommandline().createArg().setValue(classToArchive.getObjectFile().getPath());
+
+		executor.execute();
+
+		log.debug("Archived batch of " + batch.length + " files.");
+	}
+
+	private Collection<NativeCodeFile> determineClassesToArchive(boolean libFileExists, Collection<NativeCodeFile> allClasses, Collection<NativeCodeFile> compiledClasses) {
+		if( libFileExists )
+			return compiledClasses;
+		else
+			return allClasses;
+	}
+
+	private void publishPreExistingLibs(Environment environment) throws MojoFailureException, MojoExecutionException {
+		final File sourceDirectory = settings.getPreExistingLibDirectory(environment, settings.isTestCompilation());
+		final File destinationDirectory = settings.getLibDirectory(environment, settings.isTestCompilation());
+		log.debug("Copying " + sourceDirectory + " to " + destinationDirectory);
+		new DirectoryHandler(log).copyRecursively(sourceDirectory, destinationDirectory, OverwriteStyle.OVERWRITE_IF_NEWER);
+	}
+
+	private void publishHeaderFiles(final Environment environment) throws MojoFailureException, MojoExecutionException {
+		final File sourceDirectory = settings.getIncludeDirectory(environment, settings.isTestCompilation());
+		final File destinationDirectory = settings.getOutputHeaderDirectory(environment, settings.isTestCompilation());
+		log.debug("Copying " + sourceDirectory + " to " + destinationDirectory);
+		new DirectoryHandler(log).copyRecursively(sourceDirectory, destinationDirectory, OverwriteStyle.OVERWRITE_IF_NEWER);
+	}
+}
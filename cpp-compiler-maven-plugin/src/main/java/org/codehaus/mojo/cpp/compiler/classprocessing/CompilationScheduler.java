@@ -0,0 +1,347 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.classprocessing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.maven.plugin.AbstractMojoExecutionException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.compilation.AbstractCompiler;
+import org.codehaus.mojo.cpp.compiler.compilation.CompilationHistory;
+import org.codehaus.mojo.cpp.compiler.compilation.CompilationListener;
+import org.codehaus.mojo.cpp.compiler.compilation.MemoryHistory;
+import org.codehaus.mojo.cpp.compiler.compilation.PartialCompilationException;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.mojo.cpp.compiler.jobs.JobBudget;
+
+/**
+ * Feeds a fixed number of compiler threads from a blocking queue.<br/>
+ * Idle compiler threads are woken as soon as a file is queued, and completion is signalled
+ * through the returned futures rather than polled for. Batches are sized by the estimated
+ * compilation time of their files rather than by their number.
+ */
+public class CompilationScheduler {
+	/**
+	 * Queued after the last file to compile. Each compiler thread that sees it puts it back for the next one and stops.
+	 */
+	public static final NativeCodeFile END_OF_LISTING = new NativeCodeFile("", null, null);
+
+	private final Log log;
+	private final AbstractCompiler compiler;
+	private final CompilationHistory history;
+	private final MemoryHistory memoryHistory;
+	private final JobBudget jobBudget;
+	private final CompilationListener listener;
+	private final PrioritizedQueue classesToCompile;
+	private final ConcurrentLinkedQueue<NativeCodeFile> compiledClasses = new ConcurrentLinkedQueue<NativeCodeFile>();
+	private final int numberOfCompilerThreads;
+
+	private ExecutorService executor;
+	private CompletionService<Void> completionService;
+	private volatile boolean classListingIsComplete = false;
+	private volatile boolean abortCalled = false;
+
+	/**
+	 * @param memoryHistory		The peak memory of compiling each file, to start batches by, or null if not known
+	 */
+	public CompilationScheduler(final Log log, final AbstractCompiler compiler, final CompilationHistory history, final MemoryHistory memoryHistory, final JobBudget jobBudget, final CompilationListener listener, final PrioritizedQueue classesToCompile, final int numberOfCompilerThreads) {
+		this.log = log;
+		this.compiler = compiler;
+		this.history = history;
+		this.memoryHistory = memoryHistory;
+		this.jobBudget = jobBudget;
+		this.listener = listener;
+		this.classesToCompile = classesToCompile;
+		this.numberOfCompilerThreads = numberOfCompilerThreads;
+	}
+
+	/**
+	 * @return		A queue handing out files in the order given by the comparator, and {@link #END_OF_LISTING} after all of them
+	 */
+	public static PrioritizedQueue createPrioritizedQueue(final CompilationHistory history, final Comparator<NativeCodeFile> comparator) {
+		return new PrioritizedQueue(history, new Comparator<NativeCodeFile>() {
+			@Override
+			public int compare(final NativeCodeFile first, final NativeCodeFile second) {
+				if( first == END_OF_LISTING || second == END_OF_LISTING )
+					return first == second ? 0 : (first == END_OF_LISTING ? 1 : -1);
+
+				return comparator.compare(first, second);
+			}
+		});
+	}
+
+	public void start() {
+		executor = Executors.newFixedThreadPool(numberOfCompilerThreads, new CompilerThreadFactory());
+		completionService = new ExecutorCompletionService<Void>(executor);
+
+		for(int i = 0; i < numberOfCompilerThreads; i++)
+			completionService.submit(new CompilerTask("Compilation Processor " + i));
+	}
+
+	public void setClassListingIsComplete() {
+		classListingIsComplete = true;
+		classesToCompile.add(END_OF_LISTING);
+	}
+
+	/**
+	 * Blocks until every compiler thread has run out of work, or until the first one fails.
+	 *
+	 * @return		The files that were compiled
+	 * @throws MojoExecutionException	Thrown if any compiler thread fails or the wait is interrupted
+	 */
+	public Collection<NativeCodeFile> awaitCompletion() throws MojoExecutionException {
+		try {
+			for(int i = 0; i < numberOfCompilerThreads; i++) {
+				log.debug("Waiting for compilers to finish...");
+				completionService.take().get();
+			}
+		}
+		catch (ExecutionException e) {
+			abort();
+			throw new MojoExecutionException("Exception caught inside compilation processor.", e.getCause());
+		}
+		catch (InterruptedException e) {
+			abort();
+			throw new MojoExecutionException("Interrupted while waiting for compilers to finish.", e);
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		return compiledClasses;
+	}
+
+	/**
+	 * Stops handing out files and interrupts the compiler threads, which destroys any compiler processes they are running.
+	 */
+	public void abort() {
+		abortCalled = true;
+		classesToCompile.clear();
+		classesToCompile.add(END_OF_LISTING);
+		if( executor != null )
+			executor.shutdownNow();
+	}
+
+	private long calculateBatchCost() {
+		return (long)Math.ceil(classesToCompile.getEstimatedCompilationTime() / (numberOfCompilerThreads * 1.3));
+	}
+
+	private String getRemainingClassesRepresentation() {
+		if( !classListingIsComplete )
+			return "?";
+
+		return "" + classesToCompile.size();
+	}
+
+	private class CompilerTask implements Callable<Void> {
+		private final String name;
+
+		public CompilerTask(final String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Void call() throws AbstractMojoExecutionException, InterruptedException {
+			debug("Starting...");
+
+			while( !abortCalled ) {
+				final List<NativeCodeFile> batch = new ArrayList<NativeCodeFile>();
+				final boolean lastBatch = fillBatch(batch);
+				if( lastBatch )
+					classesToCompile.add(END_OF_LISTING);
+
+				if( !batch.isEmpty() && !abortCalled )
+					processBatch(batch);
+
+				if( lastBatch ) {
+					debug("Done!");
+					return null;
+				}
+			}
+
+			debug("Aborted!");
+			return null;
+		}
+
+		/**
+		 * Takes files off the queue until their estimated cost reaches this thread's share of what is left.
+		 *
+		 * @return		True if {@link #END_OF_LISTING} was reached
+		 */
+		private boolean fillBatch(final List<NativeCodeFile> batch) throws InterruptedException {
+			NativeCodeFile file = classesToCompile.take();
+			if( file == END_OF_LISTING )
+				return true;
+
+			batch.add(file);
+			final long batchCost = calculateBatchCost();
+			long cost = history.getEstimatedCompilationTime(file);
+
+			while( cost < batchCost && (file = classesToCompile.poll()) != null ) {
+				if( file == END_OF_LISTING )
+					return true;
+
+				batch.add(file);
+				cost += history.getEstimatedCompilationTime(file);
+			}
+
+			return false;
+		}
+
+		private void processBatch(final Collection<NativeCodeFile> batch) throws AbstractMojoExecutionException, InterruptedException {
+			final long expectedMemory = memoryHistory != null ? memoryHistory.getEstimatedMemory(batch) : 0;
+			jobBudget.acquire(expectedMemory);
+			try {
+				log.info("[" + name + "] Compiling " + batch.size() + " files. Remaining in pool: " + getRemainingClassesRepresentation());
+				final long startTime = System.currentTimeMillis();
+				compiler.compile(batch);
+				history.record(batch, System.currentTimeMillis() - startTime);
+				if( memoryHistory != null )
+					memoryHistory.record(batch);
+			}
+			catch (PartialCompilationException e) {
+				filesCompiled(e.getCompiledFiles());
+				throw e;
+			}
+			finally {
+				jobBudget.release(expectedMemory);
+			}
+			filesCompiled(batch);
+			debug("Compiled " + batch.size() + " files.");
+		}
+
+		/**
+		 * Files are recorded as compiled even when compiling the rest of their batch failed, so that they aren't compiled again by the next build.
+		 */
+		private void filesCompiled(final Collection<NativeCodeFile> files) throws AbstractMojoExecutionException {
+			if( files.isEmpty() )
+				return;
+
+			compiledClasses.addAll(files);
+			listener.filesCompiled(files);
+		}
+
+		private void debug(final String message) {
+			log.debug("[" + name + "] " + message);
+		}
+	}
+
+	/**
+	 * Keeps the sum of the estimated compilation times of the queued files as files are put and taken,
+	 * so that sizing a batch doesn't walk the whole queue.
+	 */
+	public static class PrioritizedQueue extends PriorityBlockingQueue<NativeCodeFile> {
+		private static final long serialVersionUID = 1L;
+
+		private final transient CompilationHistory history;
+		private final AtomicLong estimatedCompilationTime = new AtomicLong();
+
+		private PrioritizedQueue(final CompilationHistory history, final Comparator<NativeCodeFile> comparator) {
+			super(64, comparator);
+			this.history = history;
+		}
+
+		/**
+		 * put and add both end up here.
+		 */
+		@Override
+		public boolean offer(final NativeCodeFile file) {
+			final boolean added = super.offer(file);
+			if( added )
+				estimatedCompilationTime.addAndGet(getEstimatedCompilationTime(file));
+
+			return added;
+		}
+
+		@Override
+		public NativeCodeFile take() throws InterruptedException {
+			return taken(super.take());
+		}
+
+		@Override
+		public NativeCodeFile poll() {
+			return taken(super.poll());
+		}
+
+		@Override
+		public NativeCodeFile poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+			return taken(super.poll(timeout, unit));
+		}
+
+		@Override
+		public boolean remove(final Object file) {
+			final boolean removed = super.remove(file);
+			if( removed )
+				taken((NativeCodeFile)file);
+
+			return removed;
+		}
+
+		@Override
+		public void clear() {
+			super.clear();
+			estimatedCompilationTime.set(0);
+		}
+
+		/**
+		 * @return		The estimated time it takes to compile all queued files
+		 */
+		public long getEstimatedCompilationTime() {
+			return Math.max(0, estimatedCompilationTime.get());
+		}
+
+		private NativeCodeFile taken(final NativeCodeFile file) {
+			if( file != null )
+				estimatedCompilationTime.addAndGet(-getEstimatedCompilationTime(file));
+
+			return file;
+		}
+
+		/**
+		 * Estimates don't change while files are queued, so a file is taken off the total with the same time it was added with.
+		 */
+		private long getEstimatedCompilationTime(final NativeCodeFile file) {
+			return file == END_OF_LISTING ? 0 : history.getEstimatedCompilationTime(file);
+		}
+	}
+
+	private static class CompilerThreadFactory implements ThreadFactory {
+		private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			final Thread thread = defaultFactory.newThread(runnable);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
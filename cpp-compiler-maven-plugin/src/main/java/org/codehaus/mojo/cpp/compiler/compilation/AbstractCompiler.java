@@ -1,74 +1,134 @@
-/* 
- *  Copyright 2011 Ericsson AB
- *
- *  Licensed under the Apache License, Version 2.0 (the "License");
- *  you may not use this file except in compliance with the License.
- *  You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- */
-
-package org.codehaus.mojo.cpp.compiler.compilation;
-
-import java.io.File;
-import java.util.ArrayList;
-import java.util.Collection;
-
-import org.apache.maven.plugin.MojoExecutionException;
-import org.apache.maven.plugin.MojoFailureException;
-import org.apache.maven.plugin.logging.Log;
-import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
-import org.codehaus.mojo.cpp.compiler.settings.CompilationSettings;
-import org.codehaus.mojo.cpp.tools.CliExecutor;
-import org.codehaus.mojo.cpp.tools.LoggingCliExecutor;
-import org.codehaus.mojo.cpp.tools.environment.Environment;
-
-
-public abstract class AbstractCompiler {
-	protected final Log log;
-	private final Environment targetEnvironment;
-	protected final CompilationSettings settings;
-	private final RecompilationJudge recompilationJudge;
-
-	public AbstractCompiler(final Log log, final CompilationSettings settings, final Environment targetEnvironment, final RecompilationJudge recompilationJudge) {
-		this.log = log;
-		this.settings = settings;
-		this.targetEnvironment = targetEnvironment;
-		this.recompilationJudge = recompilationJudge;
-	}
-
-	public abstract void compile(final Collection<NativeCodeFile> classes) throws MojoFailureException, MojoExecutionException;
-	
-	public boolean fileNeedsToBeCompiled(final NativeCodeFile file) throws MojoExecutionException {
-		return recompilationJudge.fileNeedsToBeCompiled(file);
-	}
-
-	public Environment getTargetEnvironment() {
-		return targetEnvironment;
-	}
-
-	protected Collection<File> getExtractedDependencyIncludeDirectories(final String scope) {
-		final Collection<File> includeDirectories = new ArrayList<File>();
-		
-		for (final File archRoot : settings.getDependencyDirectories(scope, getTargetEnvironment(), true))
-		{
-			File includeDir = new File(archRoot, "include");
-			if (includeDir.exists())
-				includeDirectories.add(includeDir);
-		}
-		
-		return includeDirectories;
-	}
-	
-	protected CliExecutor getExecutor(final File directory, final String executable) {
-		final CliExecutor executor = new LoggingCliExecutor(log);
-		executor.initialize(directory, executable);
-		return executor;
-	}
-}
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.compilation;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.files.FingerprintStore;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.mojo.cpp.compiler.settings.CompilationSettings;
+import org.codehaus.mojo.cpp.tools.CliExecutor;
+import org.codehaus.mojo.cpp.tools.LoggingCliExecutor;
+import org.codehaus.mojo.cpp.tools.environment.Environment;
+
+
+public abstract class AbstractCompiler {
+	private static final String FINGERPRINTS_FILE_NAME = "command-fingerprints.properties";
+
+	protected final Log log;
+	private final Environment targetEnvironment;
+	protected final CompilationSettings settings;
+	private final RecompilationJudge recompilationJudge;
+	private FingerprintStore commandFingerprints;
+
+	public AbstractCompiler(final Log log, final CompilationSettings settings, final Environment targetEnvironment, final RecompilationJudge recompilationJudge) {
+		this.log = log;
+		this.settings = settings;
+		this.targetEnvironment = targetEnvironment;
+		this.recompilationJudge = recompilationJudge;
+	}
+
+	public abstract void compile(final Collection<NativeCodeFile> classes) throws MojoFailureException, MojoExecutionException;
+	
+	/**
+	 * A file is compiled if it was compiled with a different command than the current one, or if the recompilation judge says so.<br/>
+	 * Files compiled before command fingerprints were recorded are assumed to have been compiled with the current command.
+	 */
+	public boolean fileNeedsToBeCompiled(final NativeCodeFile file) throws MojoExecutionException {
+		final String fingerprint = getCommandFingerprint();
+		if( fingerprint == null )
+			return recompilationJudge.fileNeedsToBeCompiled(file);
+
+		final String recordedFingerprint = getCommandFingerprints().get(file.getSourceFile().getPath());
+		if( recordedFingerprint != null && !recordedFingerprint.equals(fingerprint) ) {
+			log.debug(file.getSourceFile().getName() + " was compiled with a different command. It needs to be compiled.");
+			return true;
+		}
+
+		final boolean fileNeedsToBeCompiled = recompilationJudge.fileNeedsToBeCompiled(file);
+		if( !fileNeedsToBeCompiled && recordedFingerprint == null )
+			getCommandFingerprints().put(file.getSourceFile().getPath(), fingerprint);
+
+		return fileNeedsToBeCompiled;
+	}
+
+	/**
+	 * Called for each file as it is queued for compilation, so that results can be fetched from elsewhere while other files are compiled.
+	 */
+	public void prefetch(final NativeCodeFile file) throws MojoExecutionException {
+	}
+
+	public void filesCompiled(final Collection<NativeCodeFile> compiledFiles) throws MojoExecutionException {
+		recompilationJudge.filesCompiled(compiledFiles);
+
+		final String fingerprint = getCommandFingerprint();
+		if( fingerprint != null )
+			for(NativeCodeFile file : compiledFiles)
+				getCommandFingerprints().put(file.getSourceFile().getPath(), fingerprint);
+	}
+
+	public void saveRecompilationState() throws MojoExecutionException {
+		recompilationJudge.save();
+
+		if( getCommandFingerprint() != null )
+			getCommandFingerprints().save();
+	}
+
+	/**
+	 * @return		A fingerprint of everything but the files in the command used to compile, or null if commands aren't fingerprinted
+	 */
+	protected String getCommandFingerprint() throws MojoExecutionException {
+		return null;
+	}
+
+	private synchronized FingerprintStore getCommandFingerprints() {
+		if( commandFingerprints == null )
+			commandFingerprints = new FingerprintStore(log, new File(settings.getObjDirectory(getTargetEnvironment(), settings.isTestCompilation()), FINGERPRINTS_FILE_NAME));
+
+		return commandFingerprints;
+	}
+
+	public Environment getTargetEnvironment() {
+		return targetEnvironment;
+	}
+
+	protected Collection<File> getExtractedDependencyIncludeDirectories(final String scope) {
+		final Collection<File> includeDirectories = new ArrayList<File>();
+		
+		for (final File archRoot : settings.getDependencyDirectories(scope, getTargetEnvironment(), true))
+		{
+			File includeDir = new File(archRoot, "include");
+			if (includeDir.exists())
+				includeDirectories.add(includeDir);
+		}
+		
+		return includeDirectories;
+	}
+	
+	protected CliExecutor getExecutor(final File directory, final String executable) {
+		final CliExecutor executor = new LoggingCliExecutor(log);
+		executor.initialize(directory, executable);
+		if( settings.getJobserver() != null )
+			settings.getJobserver().export(executor);
+		return executor;
+	}
+}
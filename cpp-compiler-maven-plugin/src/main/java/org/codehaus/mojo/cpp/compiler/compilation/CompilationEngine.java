@@ -0,0 +1,42 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.compilation;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+public enum CompilationEngine {
+	/**
+	 * Compiler threads block on the queue of files to compile and are woken as soon as work arrives.
+	 */
+	SCHEDULER,
+
+	/**
+	 * Compiler threads poll the queue of files to compile. Kept for compatibility.
+	 */
+	POLLING;
+
+	public static CompilationEngine fromName(final String name) throws MojoExecutionException {
+		if( name == null || name.trim().isEmpty() )
+			return SCHEDULER;
+
+		for(CompilationEngine engine : values())
+			if( engine.name().equalsIgnoreCase(name.trim()) )
+				return engine;
+
+		throw new MojoExecutionException("Unknown compilation engine \"" + name + "\". Must be one of \"scheduler\" or \"polling\".");
+	}
+}
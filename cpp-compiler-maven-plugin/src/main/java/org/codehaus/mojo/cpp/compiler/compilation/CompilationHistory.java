@@ -0,0 +1,175 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.compilation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+
+/**
+ * Remembers how long each source file took to compile in previous builds.<br/>
+ * The history is kept in a properties file, mapping source file paths to milliseconds.
+ * Estimates are based on what was loaded only, so they stay stable while files are queued.
+ */
+public class CompilationHistory {
+	private static final long DEFAULT_COMPILATION_TIME = 1000;
+
+	private final Log log;
+	private final File historyFile;
+	private final Map<String, Long> previousCompilationTimes = new ConcurrentHashMap<String, Long>();
+	private final Map<String, Long> compilationTimes = new ConcurrentHashMap<String, Long>();
+	private volatile long averageCompilationTime = DEFAULT_COMPILATION_TIME;
+
+	public CompilationHistory(final Log log, final File historyFile) {
+		this.log = log;
+		this.historyFile = historyFile;
+	}
+
+	public void load() {
+		if( !historyFile.exists() )
+			return;
+
+		final Properties properties = new Properties();
+		InputStream in = null;
+		try {
+			in = new FileInputStream(historyFile);
+			properties.load(in);
+
+			for(String path : properties.stringPropertyNames())
+				previousCompilationTimes.put(path, Long.valueOf(properties.getProperty(path)));
+		}
+		catch (IOException e) {
+			log.warn("Failed to read compilation history from " + historyFile + ". Files will be compiled in discovery order.");
+		}
+		catch (NumberFormatException e) {
+			log.warn("Compilation history in " + historyFile + " is corrupt and will be ignored.");
+			previousCompilationTimes.clear();
+		}
+		finally {
+			close(in);
+		}
+
+		compilationTimes.putAll(previousCompilationTimes);
+		averageCompilationTime = calculateAverageCompilationTime();
+		log.debug("Loaded compilation times of " + previousCompilationTimes.size() + " files from " + historyFile);
+	}
+
+	/**
+	 * Only the times of the given files are saved, so that source files deleted since are forgotten.
+	 *
+	 * @param codeFiles		All source files of the build, compiled or not
+	 */
+	public void save(final Collection<NativeCodeFile> codeFiles) {
+		final Properties properties = new Properties();
+		for(NativeCodeFile codeFile : codeFiles) {
+			final Long compilationTime = compilationTimes.get(getKey(codeFile));
+			if( compilationTime != null )
+				properties.setProperty(getKey(codeFile), compilationTime.toString());
+		}
+
+		OutputStream out = null;
+		try {
+			historyFile.getParentFile().mkdirs();
+			out = new FileOutputStream(historyFile);
+			properties.store(out, "Compilation times in milliseconds");
+		}
+		catch (IOException e) {
+			log.warn("Failed to write compilation history to " + historyFile + ".");
+		}
+		finally {
+			close(out);
+		}
+	}
+
+	/**
+	 * @return		The time it took to compile the file in the previous build, or if unknown the average of all known files
+	 */
+	public long getEstimatedCompilationTime(final NativeCodeFile file) {
+		final Long recordedTime = previousCompilationTimes.get(getKey(file));
+		if( recordedTime != null )
+			return recordedTime;
+
+		return averageCompilationTime;
+	}
+
+	/**
+	 * Records the time spent compiling a batch, dividing it among the files in proportion to their estimates.
+	 */
+	public void record(final Collection<NativeCodeFile> batch, final long elapsedTime) {
+		long estimatedBatchTime = 0;
+		for(NativeCodeFile file : batch)
+			estimatedBatchTime += getEstimatedCompilationTime(file);
+
+		for(NativeCodeFile file : batch) {
+			final double share = estimatedBatchTime > 0 ? (double)getEstimatedCompilationTime(file) / estimatedBatchTime : 1.0 / batch.size();
+			compilationTimes.put(getKey(file), Math.max(1, Math.round(elapsedTime * share)));
+		}
+	}
+
+	/**
+	 * @return		A comparator putting the files which took the longest time to compile first
+	 */
+	public Comparator<NativeCodeFile> createLongestFirstComparator() {
+		return new Comparator<NativeCodeFile>() {
+			@Override
+			public int compare(final NativeCodeFile first, final NativeCodeFile second) {
+				final long firstTime = getEstimatedCompilationTime(first);
+				final long secondTime = getEstimatedCompilationTime(second);
+				return firstTime > secondTime ? -1 : (firstTime == secondTime ? 0 : 1);
+			}
+		};
+	}
+
+	private long calculateAverageCompilationTime() {
+		if( previousCompilationTimes.isEmpty() )
+			return DEFAULT_COMPILATION_TIME;
+
+		long total = 0;
+		for(Long time : previousCompilationTimes.values())
+			total += time;
+
+		return total / previousCompilationTimes.size();
+	}
+
+	private String getKey(final NativeCodeFile file) {
+		return file.getSourceFile().getPath();
+	}
+
+	private void close(final Closeable stream) {
+		if( stream == null )
+			return;
+
+		try {
+			stream.close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close " + historyFile + ".");
+		}
+	}
+}
@@ -1,149 +1,270 @@
-/* 
- *  Copyright 2011 Ericsson AB
- *
- *  Licensed under the Apache License, Version 2.0 (the "License");
- *  you may not use this file except in compliance with the License.
- *  You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- */
-
-package org.codehaus.mojo.cpp.compiler.compilation;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-
-import org.apache.maven.plugin.AbstractMojoExecutionException;
-import org.apache.maven.plugin.MojoExecutionException;
-import org.apache.maven.plugin.logging.Log;
-import org.codehaus.mojo.cpp.compiler.classprocessing.CompilationProcessor;
-import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
-import org.codehaus.mojo.cpp.compiler.settings.CompilationSettings;
-import org.codehaus.mojo.cpp.tools.DirectoryHandler;
-
-
-public class CompilationOverseer {
-	private final List<CompilationProcessor> processors = new ArrayList<CompilationProcessor>();
-	private final Log log;
-	private final Collection<NativeCodeFile> allCodeFiles;
-	private final BlockingQueue<NativeCodeFile> classesToCompile;
-	private final ConcurrentLinkedQueue<NativeCodeFile> compiledClasses;
-	private final AbstractCompiler compiler;
-	private final CompilationSettings settings;
-	private final Object monitor = new Object();
-
-	public CompilationOverseer(final CompilationSettings settings, final Log log, final Collection<NativeCodeFile> allClasses, final AbstractCompiler compiler) {
-		this.settings = settings;
-		this.log = log;
-		this.allCodeFiles = allClasses;
-		this.compiler = compiler;
-		this.classesToCompile = new ArrayBlockingQueue<NativeCodeFile>(allClasses.size());
-		this.compiledClasses = new ConcurrentLinkedQueue<NativeCodeFile>();
-
-		final int numberOfCompilerThreads = getNumberOfCompilerThreads();
-		for(int i = 0; i < numberOfCompilerThreads; i++)
-			processors.add(new CompilationProcessor("Compilation Processor " + i, compiler, log, classesToCompile, compiledClasses, numberOfCompilerThreads, monitor));
-	}
-
-	private int getNumberOfCompilerThreads() {
-		final int numberOfCores = Runtime.getRuntime().availableProcessors();
-		final int numberOfCompilerThreads = numberOfCores;
-		log.info("Found " + numberOfCores + " logical cores. Creating " + numberOfCompilerThreads + " compiler threads.");
-		return numberOfCompilerThreads;
-	}
-
-	public Collection<NativeCodeFile> compile() throws MojoExecutionException {
-		new DirectoryHandler(log).create(settings.getObjDirectory(compiler.getTargetEnvironment(), settings.isTestCompilation()));
-
-		if( allCodeFiles.isEmpty()) {
-			log.info("List of source files is empty. Skipping compilation.");
-			return new ArrayList<NativeCodeFile>();
-		}
-		
-		for(CompilationProcessor processor : processors) {
-			final Thread thread = new Thread(processor);
-			thread.start();
-		}
-
-		populateClassesToCompile(classesToCompile);
-
-		monitorProcessorsUntilAllAreDone();
-		
-		log.debug(compiler.getTargetEnvironment() + ": " + compiledClasses.size() + " files compiled.");
-		return compiledClasses;
-	}
-
-	private void monitorProcessorsUntilAllAreDone() throws MojoExecutionException {
-		synchronized (monitor) {
-			while(processorsAreAlive()) {
-				abortIfThereAreProcessorExceptions();
-				
-				log.debug("Waiting for compilers to finish...");
-				try {
-					monitor.wait();
-				} 
-				catch (InterruptedException e) {
-					throw new MojoExecutionException("Interrupted while sleeping.", e);
-				}
-			}
-		}
-		abortIfThereAreProcessorExceptions();
-	}
-
-	private void abortIfThereAreProcessorExceptions() throws MojoExecutionException {
-		final AbstractMojoExecutionException caughtException = getAnyExceptionInProcessors();
-		if( caughtException != null ) {
-			abortAllProcessors();
-			throw new MojoExecutionException("Exception caught inside compilation processor.", caughtException);
-		}
-	}
-
-	private void abortAllProcessors() {
-		for(CompilationProcessor processor : processors)
-			processor.abort();
-	}
-
-	private AbstractMojoExecutionException getAnyExceptionInProcessors() {
-		for(CompilationProcessor processor : processors)
-			if( processor.getCaughtException() != null )
-				return processor.getCaughtException();
-
-		return null;
-	}
-
-	private boolean processorsAreAlive() {
-		for(CompilationProcessor processor : processors)
-			if( !processor.isDone() )
-				return true;
-
-		return false;
-	}
-
-	private void populateClassesToCompile(final BlockingQueue<NativeCodeFile> classesToCompile) throws MojoExecutionException {
-		for(NativeCodeFile codeFile : allCodeFiles) {
-			if( compiler.fileNeedsToBeCompiled(codeFile)) {
-				try {
-					classesToCompile.put(codeFile);
-				} 
-				catch (InterruptedException e) {
-					throw new MojoExecutionException("Failed to add " + codeFile.getSourceFile().toString() + " to list of classes to compile.", e);
-				}
-			}
-		}
-
-		for(CompilationProcessor processor : processors)
-			processor.setClassListingIsComplete(true);
-
-		log.debug("Done populating classes to compile.");
-	}
-}
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.compilation;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.maven.plugin.AbstractMojoExecutionException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.classprocessing.CompilationProcessor;
+import org.codehaus.mojo.cpp.compiler.classprocessing.CompilationScheduler;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.mojo.cpp.compiler.jobs.JobBudget;
+import org.codehaus.mojo.cpp.compiler.settings.CompilationSettings;
+import org.codehaus.mojo.cpp.tools.DirectoryHandler;
+
+
+public class CompilationOverseer {
+	private static final String HISTORY_FILE_NAME = "compilation-history.properties";
+	private static final String MEMORY_HISTORY_FILE_NAME = "compilation-memory.properties";
+
+	private final List<CompilationProcessor> processors = new ArrayList<CompilationProcessor>();
+	private final Log log;
+	private final Collection<NativeCodeFile> allCodeFiles;
+	private final ConcurrentLinkedQueue<NativeCodeFile> compiledClasses;
+	private final AbstractCompiler compiler;
+	private final CompilationSettings settings;
+	private final CompilationHistory history;
+	private final MemoryHistory memoryHistory;
+	private final JobBudget jobBudget;
+	private final CompilationListener listener;
+	private final Object monitor = new Object();
+	private final int numberOfCompilerThreads;
+
+	public CompilationOverseer(final CompilationSettings settings, final Log log, final Collection<NativeCodeFile> allClasses, final AbstractCompiler compiler, final JobBudget jobBudget, final CompilationListener listener) {
+		this.settings = settings;
+		this.log = log;
+		this.allCodeFiles = allClasses;
+		this.compiler = compiler;
+		this.jobBudget = jobBudget;
+		this.listener = createCompilerNotifyingListener(listener);
+		this.history = new CompilationHistory(log, new File(getObjDirectory(), HISTORY_FILE_NAME));
+		this.memoryHistory = settings.getPeakMemoryMonitor() != null ? new MemoryHistory(log, new File(getObjDirectory(), MEMORY_HISTORY_FILE_NAME), settings.getPeakMemoryMonitor()) : null;
+		this.compiledClasses = new ConcurrentLinkedQueue<NativeCodeFile>();
+		this.numberOfCompilerThreads = jobBudget.getNumberOfJobs();
+	}
+
+	/**
+	 * The compiler is told about compiled files before anyone else, so that its recompilation state is kept current.
+	 */
+	private CompilationListener createCompilerNotifyingListener(final CompilationListener listener) {
+		return new CompilationListener() {
+			@Override
+			public void filesCompiled(final Collection<NativeCodeFile> compiledFiles) throws MojoExecutionException, MojoFailureException {
+				compiler.filesCompiled(compiledFiles);
+				listener.filesCompiled(compiledFiles);
+			}
+		};
+	}
+
+	private File getObjDirectory() {
+		return settings.getObjDirectory(compiler.getTargetEnvironment(), settings.isTestCompilation());
+	}
+
+	public Collection<NativeCodeFile> compile() throws MojoExecutionException, MojoFailureException {
+		new DirectoryHandler(log).create(getObjDirectory());
+
+		if( allCodeFiles.isEmpty()) {
+			log.info("List of source files is empty. Skipping compilation.");
+			return new ArrayList<NativeCodeFile>();
+		}
+
+		final Collection<NativeCodeFile> compiledFiles;
+		try {
+			if( settings.getCompilationEngine() == CompilationEngine.POLLING )
+				compiledFiles = compileWithPollingProcessors();
+			else {
+				history.load();
+				if( memoryHistory != null )
+					memoryHistory.load();
+				try {
+					compiledFiles = compileWithScheduler();
+				}
+				finally {
+					history.save(allCodeFiles);
+					if( memoryHistory != null )
+						memoryHistory.save();
+				}
+			}
+		}
+		finally {
+			compiler.saveRecompilationState();
+		}
+
+		log.debug(compiler.getTargetEnvironment() + ": " + compiledFiles.size() + " files compiled.");
+		return compiledFiles;
+	}
+
+	private Collection<NativeCodeFile> compileWithScheduler() throws MojoExecutionException {
+		final CompilationScheduler.PrioritizedQueue classesToCompile = CompilationScheduler.createPrioritizedQueue(history, history.createLongestFirstComparator());
+		final CompilationScheduler scheduler = new CompilationScheduler(log, compiler, history, memoryHistory, jobBudget, listener, classesToCompile, numberOfCompilerThreads);
+		scheduler.start();
+
+		try {
+			populateClassesToCompile(classesToCompile);
+		}
+		catch (MojoExecutionException e) {
+			scheduler.abort();
+			throw e;
+		}
+		scheduler.setClassListingIsComplete();
+
+		return scheduler.awaitCompletion();
+	}
+
+	private Collection<NativeCodeFile> compileWithPollingProcessors() throws MojoExecutionException, MojoFailureException {
+		final BlockingQueue<NativeCodeFile> classesToCompile = new LinkedBlockingQueue<NativeCodeFile>();
+		for(int i = 0; i < numberOfCompilerThreads; i++)
+			processors.add(new CompilationProcessor("Compilation Processor " + i, compiler, jobBudget, log, classesToCompile, compiledClasses, numberOfCompilerThreads, monitor));
+
+		for(CompilationProcessor processor : processors) {
+			final Thread thread = new Thread(processor);
+			thread.start();
+		}
+
+		populateClassesToCompile(classesToCompile);
+		for(CompilationProcessor processor : processors)
+			processor.setClassListingIsComplete(true);
+
+		monitorProcessorsUntilAllAreDone();
+		listener.filesCompiled(compiledClasses);
+
+		return compiledClasses;
+	}
+
+	private void monitorProcessorsUntilAllAreDone() throws MojoExecutionException {
+		synchronized (monitor) {
+			while(processorsAreAlive()) {
+				abortIfThereAreProcessorExceptions();
+				
+				log.debug("Waiting for compilers to finish...");
+				try {
+					monitor.wait();
+				} 
+				catch (InterruptedException e) {
+					throw new MojoExecutionException("Interrupted while sleeping.", e);
+				}
+			}
+		}
+		abortIfThereAreProcessorExceptions();
+	}
+
+	private void abortIfThereAreProcessorExceptions() throws MojoExecutionException {
+		final AbstractMojoExecutionException caughtException = getAnyExceptionInProcessors();
+		if( caughtException != null ) {
+			abortAllProcessors();
+			throw new MojoExecutionException("Exception caught inside compilation processor.", caughtException);
+		}
+	}
+
+	private void abortAllProcessors() {
+		for(CompilationProcessor processor : processors)
+			processor.abort();
+	}
+
+	private AbstractMojoExecutionException getAnyExceptionInProcessors() {
+		for(CompilationProcessor processor : processors)
+			if( processor.getCaughtException() != null )
+				return processor.getCaughtException();
+
+		return null;
+	}
+
+	private boolean processorsAreAlive() {
+		for(CompilationProcessor processor : processors)
+			if( !processor.isDone() )
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Judges which files need to be compiled on several threads, queueing each one as soon as it is found.
+	 */
+	private void populateClassesToCompile(final BlockingQueue<NativeCodeFile> classesToCompile) throws MojoExecutionException {
+		final ExecutorService judges = Executors.newFixedThreadPool(numberOfCompilerThreads);
+		final List<Future<Void>> judgements = new ArrayList<Future<Void>>();
+
+		try {
+			for(final List<NativeCodeFile> partition : partitionCodeFiles())
+				judgements.add(judges.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws MojoExecutionException, InterruptedException {
+						for(NativeCodeFile codeFile : partition)
+							if( compiler.fileNeedsToBeCompiled(codeFile) ) {
+								compiler.prefetch(codeFile);
+								classesToCompile.put(codeFile);
+							}
+
+						return null;
+					}
+				}));
+
+			for(Future<Void> judgement : judgements)
+				judgement.get();
+		}
+		catch (ExecutionException e) {
+			if( e.getCause() instanceof MojoExecutionException )
+				throw (MojoExecutionException)e.getCause();
+
+			throw new MojoExecutionException("Failed to determine which files need to be compiled.", e.getCause());
+		}
+		catch (InterruptedException e) {
+			throw new MojoExecutionException("Interrupted while determining which files need to be compiled.", e);
+		}
+		finally {
+			judges.shutdownNow();
+		}
+
+		log.debug("Done populating classes to compile.");
+	}
+
+	/**
+	 * Partitions are kept small, so that the files found first are queued without waiting for the rest of their partition.
+	 */
+	private List<List<NativeCodeFile>> partitionCodeFiles() {
+		final int partitionSize = Math.max(1, allCodeFiles.size() / (numberOfCompilerThreads * 8));
+		final List<List<NativeCodeFile>> partitions = new ArrayList<List<NativeCodeFile>>();
+
+		List<NativeCodeFile> partition = new ArrayList<NativeCodeFile>(partitionSize);
+		for(NativeCodeFile codeFile : allCodeFiles) {
+			partition.add(codeFile);
+			if( partition.size() == partitionSize ) {
+				partitions.add(partition);
+				partition = new ArrayList<NativeCodeFile>(partitionSize);
+			}
+		}
+
+		if( !partition.isEmpty() )
+			partitions.add(partition);
+
+		return partitions;
+	}
+}
@@ -0,0 +1,275 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.compilation;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+
+/**
+ * Recompiles a file only if the content of it or any file it includes has changed.<br/>
+ * The size, timestamp and digest of each input is kept in a digest file next to the object file.
+ * Inputs whose size and timestamp are unchanged are not read at all. Files without a valid digest
+ * file, e.g. ones compiled with this judge disabled, are judged by timestamps instead.
+ */
+public class ContentDigestRecompilationJudge implements RecompilationJudge {
+	private static final String DIGEST_ALGORITHM = "MD5";
+
+	private final Log log;
+	private final IncludesAnalyzer includesAnalyzer;
+	private final RecompilationJudge timestampJudge;
+	private final Map<File, String> digests = new ConcurrentHashMap<File, String>();
+
+	public ContentDigestRecompilationJudge(final Log log, final IncludesAnalyzer includesAnalyzer, final RecompilationJudge timestampJudge) {
+		this.log = log;
+		this.includesAnalyzer = includesAnalyzer;
+		this.timestampJudge = timestampJudge;
+	}
+
+	@Override
+	public boolean fileNeedsToBeCompiled(final NativeCodeFile ncf) throws MojoExecutionException {
+		final List<InputState> recordedStates = readDigestFile(ncf);
+		if( recordedStates == null )
+			return timestampJudge.fileNeedsToBeCompiled(ncf);
+
+		final List<InputState> currentStates = new ArrayList<InputState>();
+		boolean timestampsChanged = false;
+
+		for(InputState recordedState : recordedStates.subList(1, recordedStates.size())) {
+			final File input = new File(recordedState.path);
+			if( !input.exists() ) {
+				log.debug(ncf.getSourceFile().getName() + " depends on " + input + ", which no longer exists. It needs to be compiled.");
+				return true;
+			}
+
+			if( input.length() == recordedState.size && input.lastModified() == recordedState.time ) {
+				currentStates.add(recordedState);
+				continue;
+			}
+
+			final InputState currentState = getState(input);
+			if( !currentState.digest.equals(recordedState.digest) ) {
+				log.debug(ncf.getSourceFile().getName() + " depends on " + input + ", which has changed. It needs to be compiled.");
+				return true;
+			}
+
+			currentStates.add(currentState);
+			timestampsChanged = true;
+		}
+
+		if( timestampsChanged ) {
+			log.debug(ncf.getSourceFile().getName() + " has been touched, but its content is unchanged.");
+			writeDigestFile(ncf, recordedStates.get(0), currentStates);
+		}
+
+		return false;
+	}
+
+	@Override
+	public void filesCompiled(final Collection<NativeCodeFile> compiledFiles) throws MojoExecutionException {
+		timestampJudge.filesCompiled(compiledFiles);
+
+		for(NativeCodeFile ncf : compiledFiles)
+			recordDigests(ncf);
+	}
+
+	@Override
+	public void save() {
+		timestampJudge.save();
+	}
+
+	/**
+	 * Inputs changed after the object file was written are not recorded, which leaves the file to the timestamp judge next build.
+	 */
+	private void recordDigests(final NativeCodeFile ncf) throws MojoExecutionException {
+		ncf.getDigestFile().delete();
+
+		final List<File> inputs = new ArrayList<File>();
+		inputs.add(ncf.getSourceFile());
+		inputs.addAll(includesAnalyzer.getIncludedFiles(ncf));
+
+		final long objectFileTime = ncf.getObjectFile().lastModified();
+		final List<InputState> states = new ArrayList<InputState>();
+		for(File input : inputs) {
+			if( input.lastModified() > objectFileTime ) {
+				log.debug(input + " was changed while " + ncf.getSourceFile().getName() + " was being compiled. No digests recorded.");
+				return;
+			}
+
+			states.add(getState(input));
+		}
+
+		writeDigestFile(ncf, new InputState(ncf.getObjectFile().getPath(), ncf.getObjectFile().length(), objectFileTime, ""), states);
+	}
+
+	/**
+	 * @return		The state of the object file followed by the states of its inputs, or null if there is no valid digest file
+	 */
+	private List<InputState> readDigestFile(final NativeCodeFile ncf) {
+		if( !ncf.getDigestFile().exists() || !ncf.getObjectFile().exists() )
+			return null;
+
+		final List<InputState> states = new ArrayList<InputState>();
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new FileReader(ncf.getDigestFile()));
+			String line;
+			while( (line = reader.readLine()) != null )
+				states.add(InputState.parse(line));
+		}
+		catch (IOException e) {
+			log.debug("Failed to read " + ncf.getDigestFile() + ". Timestamps will be used instead.");
+			return null;
+		}
+		finally {
+			close(reader);
+		}
+
+		if( states.isEmpty() || states.contains(null) )
+			return null;
+
+		final InputState objectState = states.get(0);
+		if( ncf.getObjectFile().length() != objectState.size || ncf.getObjectFile().lastModified() != objectState.time ) {
+			log.debug(ncf.getObjectFile() + " was not built with content based recompilation. Timestamps will be used instead.");
+			return null;
+		}
+
+		return states;
+	}
+
+	private void writeDigestFile(final NativeCodeFile ncf, final InputState objectState, final List<InputState> inputStates) throws MojoExecutionException {
+		PrintWriter writer = null;
+		try {
+			writer = new PrintWriter(ncf.getDigestFile());
+			writer.println(objectState.format());
+			for(InputState state : inputStates)
+				writer.println(state.format());
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to write " + ncf.getDigestFile() + ".", e);
+		}
+		finally {
+			if( writer != null )
+				writer.close();
+		}
+	}
+
+	private InputState getState(final File input) throws MojoExecutionException {
+		final long size = input.length();
+		final long time = input.lastModified();
+
+		String digest = digests.get(input);
+		if( digest == null ) {
+			digest = calculateDigest(input);
+			digests.put(input, digest);
+		}
+
+		return new InputState(input.getPath(), size, time, digest);
+	}
+
+	private String calculateDigest(final File file) throws MojoExecutionException {
+		InputStream in = null;
+		try {
+			final MessageDigest messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+			in = new FileInputStream(file);
+			final byte[] buffer = new byte[65536];
+			int length;
+			while( (length = in.read(buffer)) >= 0 )
+				messageDigest.update(buffer, 0, length);
+
+			final StringBuilder hex = new StringBuilder();
+			for(byte b : messageDigest.digest())
+				hex.append(String.format("%02x", b));
+
+			return hex.toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new MojoExecutionException(DIGEST_ALGORITHM + " is not available.", e);
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to calculate digest of " + file + ".", e);
+		}
+		finally {
+			close(in);
+		}
+	}
+
+	private void close(final Closeable stream) {
+		if( stream == null )
+			return;
+
+		try {
+			stream.close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close stream.");
+		}
+	}
+
+	private static class InputState {
+		private final String path;
+		private final long size;
+		private final long time;
+		private final String digest;
+
+		public InputState(final String path, final long size, final long time, final String digest) {
+			this.path = path;
+			this.size = size;
+			this.time = time;
+			this.digest = digest;
+		}
+
+		/**
+		 * The path goes last, since it may contain spaces.
+		 */
+		public String format() {
+			return (digest.isEmpty() ? "-" : digest) + " " + size + " " + time + " " + path;
+		}
+
+		/**
+		 * @return		The state described by the line, or null if it is malformed
+		 */
+		public static InputState parse(final String line) {
+			final String[] fields = line.split(" ", 4);
+			if( fields.length != 4 )
+				return null;
+
+			try {
+				return new InputState(fields[3], Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[0].equals("-") ? "" : fields[0]);
+			}
+			catch (NumberFormatException e) {
+				return null;
+			}
+		}
+	}
+}
@@ -0,0 +1,217 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.compilation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Which header files each source file includes, as listed by its depend file.<br/>
+ * Header paths are interned, so each distinct header is stored and represented by one {@link File} only.
+ * The graph is kept in a binary file, and an entry is only valid as long as its depend file is unchanged.
+ */
+public class IncludeGraph {
+	private static final int MAGIC = 0x43504947;
+	private static final int VERSION = 1;
+
+	private final Log log;
+	private final File graphFile;
+	private final List<File> headers = new ArrayList<File>();
+	private final Map<String, Integer> headerIndices = new HashMap<String, Integer>();
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+	private boolean loaded = false;
+	private boolean modified = false;
+
+	public IncludeGraph(final Log log, final File graphFile) {
+		this.log = log;
+		this.graphFile = graphFile;
+	}
+
+	/**
+	 * @return		The headers included by the source file owning the depend file, or null if the depend file has changed since they were recorded
+	 */
+	public synchronized List<File> getIncludedFiles(final File dependFile) {
+		loadIfNeeded();
+
+		final Entry entry = entries.get(dependFile.getPath());
+		if( entry == null || entry.dependFileTime != dependFile.lastModified() )
+			return null;
+
+		final List<File> includedFiles = new ArrayList<File>(entry.headers.length);
+		for(int header : entry.headers)
+			includedFiles.add(headers.get(header));
+
+		return includedFiles;
+	}
+
+	public synchronized void record(final File dependFile, final List<File> includedFiles) {
+		loadIfNeeded();
+
+		final int[] headerList = new int[includedFiles.size()];
+		for(int i = 0; i < headerList.length; i++)
+			headerList[i] = intern(includedFiles.get(i).getPath());
+
+		entries.put(dependFile.getPath(), new Entry(dependFile.lastModified(), headerList));
+		modified = true;
+	}
+
+	public synchronized void save() {
+		if( !modified )
+			return;
+
+		DataOutputStream out = null;
+		try {
+			graphFile.getParentFile().mkdirs();
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(graphFile), 65536));
+			write(out);
+			modified = false;
+		}
+		catch (IOException e) {
+			log.warn("Failed to write include graph to " + graphFile + ". Depend files will be read again next build.");
+			close(out);
+			out = null;
+			graphFile.delete();
+		}
+		finally {
+			close(out);
+		}
+	}
+
+	private void loadIfNeeded() {
+		if( loaded )
+			return;
+
+		loaded = true;
+		if( !graphFile.exists() )
+			return;
+
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(graphFile), 65536));
+			read(in);
+			log.debug("Loaded includes of " + entries.size() + " files, " + headers.size() + " headers in total, from " + graphFile);
+		}
+		catch (IOException e) {
+			log.warn("Include graph in " + graphFile + " is unreadable and will be rebuilt.");
+			headers.clear();
+			headerIndices.clear();
+			entries.clear();
+		}
+		finally {
+			close(in);
+		}
+	}
+
+	private void read(final DataInputStream in) throws IOException {
+		if( in.readInt() != MAGIC || in.readInt() != VERSION )
+			throw new IOException("Unknown include graph format.");
+
+		final int numberOfHeaders = in.readInt();
+		for(int i = 0; i < numberOfHeaders; i++)
+			intern(in.readUTF());
+
+		final int numberOfEntries = in.readInt();
+		for(int i = 0; i < numberOfEntries; i++) {
+			final String dependFilePath = in.readUTF();
+			final long dependFileTime = in.readLong();
+			final int[] headerList = new int[in.readInt()];
+			for(int j = 0; j < headerList.length; j++) {
+				headerList[j] = in.readInt();
+				if( headerList[j] < 0 || headerList[j] >= numberOfHeaders )
+					throw new IOException("Header index out of range.");
+			}
+
+			entries.put(dependFilePath, new Entry(dependFileTime, headerList));
+		}
+	}
+
+	/**
+	 * Writes only the headers still included by some file, renumbering them as needed.
+	 */
+	private void write(final DataOutputStream out) throws IOException {
+		final Map<Integer, Integer> newIndices = new HashMap<Integer, Integer>();
+		final List<String> usedHeaders = new ArrayList<String>();
+		for(Entry entry : entries.values()) {
+			for(int header : entry.headers) {
+				if( !newIndices.containsKey(header) ) {
+					newIndices.put(header, usedHeaders.size());
+					usedHeaders.add(headers.get(header).getPath());
+				}
+			}
+		}
+
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(usedHeaders.size());
+		for(String header : usedHeaders)
+			out.writeUTF(header);
+
+		out.writeInt(entries.size());
+		for(Map.Entry<String, Entry> entry : entries.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeLong(entry.getValue().dependFileTime);
+			out.writeInt(entry.getValue().headers.length);
+			for(int header : entry.getValue().headers)
+				out.writeInt(newIndices.get(header));
+		}
+	}
+
+	private int intern(final String path) {
+		final Integer index = headerIndices.get(path);
+		if( index != null )
+			return index;
+
+		headers.add(new File(path));
+		headerIndices.put(path, headers.size() - 1);
+		return headers.size() - 1;
+	}
+
+	private void close(final Closeable stream) {
+		if( stream == null )
+			return;
+
+		try {
+			stream.close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close " + graphFile + ".");
+		}
+	}
+
+	private static class Entry {
+		private final long dependFileTime;
+		private final int[] headers;
+
+		public Entry(final long dependFileTime, final int[] headers) {
+			this.dependFileTime = dependFileTime;
+			this.headers = headers;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.compilation;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+
+/**
+ * Looks up included files in an {@link IncludeGraph}, and only reads a depend file when its graph entry is outdated.<br/>
+ * The depend files of compiled files are read right after compilation, so that the graph is current for the next build.
+ */
+public class IndexedIncludesAnalyzer implements IncludesAnalyzer {
+	private final IncludesAnalyzer dependFileAnalyzer;
+	private final IncludeGraph includeGraph;
+	private final Set<File> existingHeaders = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+
+	public IndexedIncludesAnalyzer(final IncludesAnalyzer dependFileAnalyzer, final IncludeGraph includeGraph) {
+		this.dependFileAnalyzer = dependFileAnalyzer;
+		this.includeGraph = includeGraph;
+	}
+
+	@Override
+	public List<File> getIncludedFiles(final NativeCodeFile ncf) throws MojoExecutionException {
+		final List<File> includedFiles = includeGraph.getIncludedFiles(ncf.getDependFile());
+		if( includedFiles != null && allExist(includedFiles) )
+			return includedFiles;
+
+		return analyze(ncf);
+	}
+
+	@Override
+	public void filesCompiled(final Collection<NativeCodeFile> compiledFiles) throws MojoExecutionException {
+		for(NativeCodeFile ncf : compiledFiles)
+			if( ncf.getDependFile().exists() )
+				analyze(ncf);
+	}
+
+	@Override
+	public void save() {
+		includeGraph.save();
+	}
+
+	private List<File> analyze(final NativeCodeFile ncf) throws MojoExecutionException {
+		final List<File> includedFiles = dependFileAnalyzer.getIncludedFiles(ncf);
+		includeGraph.record(ncf.getDependFile(), includedFiles);
+		return includedFiles;
+	}
+
+	/**
+	 * A removed header is left to the depend file analyzer to report. Each header is checked once per build.
+	 */
+	private boolean allExist(final List<File> includedFiles) {
+		for(File includedFile : includedFiles) {
+			if( existingHeaders.contains(includedFile) )
+				continue;
+
+			if( !includedFile.exists() )
+				return false;
+
+			existingHeaders.add(includedFile);
+		}
+
+		return true;
+	}
+}
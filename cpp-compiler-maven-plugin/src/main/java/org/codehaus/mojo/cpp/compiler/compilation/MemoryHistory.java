@@ -0,0 +1,149 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.compilation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.mojo.cpp.compiler.jobs.PeakMemoryMonitor;
+
+/**
+ * Remembers the peak memory the compiler needed for each source file in previous builds.<br/>
+ * The history is kept in a properties file, mapping source file paths to bytes. Files compiled in
+ * this build get the peak the {@link PeakMemoryMonitor} saw, if it saw any.
+ */
+public class MemoryHistory {
+	private final Log log;
+	private final File historyFile;
+	private final PeakMemoryMonitor monitor;
+	private final Map<String, Long> peakMemory = new ConcurrentHashMap<String, Long>();
+	private volatile long averagePeakMemory = 0;
+
+	public MemoryHistory(final Log log, final File historyFile, final PeakMemoryMonitor monitor) {
+		this.log = log;
+		this.historyFile = historyFile;
+		this.monitor = monitor;
+	}
+
+	public void load() {
+		if( !historyFile.exists() )
+			return;
+
+		final Properties properties = new Properties();
+		InputStream in = null;
+		try {
+			in = new FileInputStream(historyFile);
+			properties.load(in);
+
+			for(String path : properties.stringPropertyNames())
+				peakMemory.put(path, Long.valueOf(properties.getProperty(path)));
+		}
+		catch (IOException e) {
+			log.warn("Failed to read compiler memory history from " + historyFile + ".");
+		}
+		catch (NumberFormatException e) {
+			log.warn("Compiler memory history in " + historyFile + " is corrupt and will be ignored.");
+			peakMemory.clear();
+		}
+		finally {
+			close(in);
+		}
+
+		averagePeakMemory = calculateAveragePeakMemory();
+		log.debug("Loaded peak compiler memory of " + peakMemory.size() + " files from " + historyFile);
+	}
+
+	public void save() {
+		final Properties properties = new Properties();
+		for(Map.Entry<String, Long> entry : peakMemory.entrySet())
+			properties.setProperty(entry.getKey(), entry.getValue().toString());
+
+		OutputStream out = null;
+		try {
+			historyFile.getParentFile().mkdirs();
+			out = new FileOutputStream(historyFile);
+			properties.store(out, "Peak compiler memory in bytes");
+		}
+		catch (IOException e) {
+			log.warn("Failed to write compiler memory history to " + historyFile + ".");
+		}
+		finally {
+			close(out);
+		}
+	}
+
+	/**
+	 * The files of a batch are compiled one after the other, so the batch needs as much as its most demanding file.
+	 *
+	 * @return		The expected peak memory of compiling the batch in bytes, or 0 if nothing is known
+	 */
+	public long getEstimatedMemory(final Collection<NativeCodeFile> batch) {
+		long estimatedMemory = 0;
+		for(NativeCodeFile file : batch) {
+			final Long recordedMemory = peakMemory.get(PeakMemoryMonitor.getKey(file.getSourceFile()));
+			estimatedMemory = Math.max(estimatedMemory, recordedMemory != null ? recordedMemory : averagePeakMemory);
+		}
+
+		return estimatedMemory;
+	}
+
+	/**
+	 * Takes the peak memory of the compiled files from the monitor.
+	 */
+	public void record(final Collection<NativeCodeFile> compiledFiles) {
+		for(NativeCodeFile file : compiledFiles) {
+			final long memory = monitor.getPeakMemory(file);
+			if( memory > 0 )
+				peakMemory.put(PeakMemoryMonitor.getKey(file.getSourceFile()), memory);
+		}
+	}
+
+	private long calculateAveragePeakMemory() {
+		if( peakMemory.isEmpty() )
+			return 0;
+
+		long total = 0;
+		for(Long memory : peakMemory.values())
+			total += memory;
+
+		return total / peakMemory.size();
+	}
+
+	private void close(final Closeable stream) {
+		if( stream == null )
+			return;
+
+		try {
+			stream.close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close " + historyFile + ".");
+		}
+	}
+}
@@ -0,0 +1,50 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.compilation;
+
+import java.util.Collection;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+
+/**
+ * Thrown when some of the files of a batch failed to compile, while the object files of the others were written.
+ */
+public class PartialCompilationException extends MojoFailureException {
+	private static final long serialVersionUID = 1L;
+
+	private final Collection<NativeCodeFile> compiledFiles;
+	private final Collection<NativeCodeFile> failedFiles;
+
+	public PartialCompilationException(final String message, final Collection<NativeCodeFile> compiledFiles, final Collection<NativeCodeFile> failedFiles, final Throwable cause) {
+		super(message, cause);
+		this.compiledFiles = compiledFiles;
+		this.failedFiles = failedFiles;
+	}
+
+	/**
+	 * @return		The files whose object files were written and can be kept
+	 */
+	public Collection<NativeCodeFile> getCompiledFiles() {
+		return compiledFiles;
+	}
+
+	public Collection<NativeCodeFile> getFailedFiles() {
+		return failedFiles;
+	}
+}
@@ -1,25 +1,37 @@
-/* 
- *  Copyright 2011 Ericsson AB
- *
- *  Licensed under the Apache License, Version 2.0 (the "License");
- *  you may not use this file except in compliance with the License.
- *  You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- */
-
-package org.codehaus.mojo.cpp.compiler.compilation;
-
-import org.apache.maven.plugin.MojoExecutionException;
-import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
-
-
-public interface RecompilationJudge {
-	public boolean fileNeedsToBeCompiled(final NativeCodeFile file) throws MojoExecutionException;
-}
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.compilation;
+
+import java.util.Collection;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+
+
+public interface RecompilationJudge {
+	public boolean fileNeedsToBeCompiled(final NativeCodeFile file) throws MojoExecutionException;
+
+	/**
+	 * Called after the files have been compiled.
+	 */
+	public void filesCompiled(final Collection<NativeCodeFile> compiledFiles) throws MojoExecutionException;
+
+	/**
+	 * Called when compilation is over, to persist anything worth keeping until the next build.
+	 */
+	public void save();
+}
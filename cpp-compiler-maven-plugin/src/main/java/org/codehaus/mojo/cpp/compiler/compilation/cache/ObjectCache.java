@@ -0,0 +1,693 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.compilation.cache;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.files.FingerprintStore;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.mojo.cpp.tools.FileLocker;
+import org.codehaus.mojo.cpp.tools.cache.CacheBackend;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * A cache of object and depend files, shared by all builds of the same user.<br/>
+ * Objects are found through a manifest keyed by the compile command and the source file. The manifest lists,
+ * for each cached object, the included files and their digests, so included files don't have to be known
+ * before compiling. Paths below the project base directory are stored relative to it, so that checkouts in
+ * different places share objects.<br/>
+ * Objects and manifests are written to temporary files and renamed into place, so readers never need a lock.
+ * Manifest updates, statistics and eviction of the least recently used objects are serialized by a lock
+ * file, which is shared with other Maven processes.<br/>
+ * A remote backend may be shared on top of the local cache. Files queued for compilation are looked up in it
+ * in the background, and what is found is added to the local cache. Freshly compiled objects are pushed to it
+ * along with their manifest, which replaces the remote manifest as a whole.
+ */
+public class ObjectCache {
+	private static final String BASE_DIRECTORY_TOKEN = "${basedir}";
+	private static final String MANIFEST_SUFFIX = ".manifest";
+	private static final String LOCK_FILE_NAME = "cache.lock";
+	private static final String STATISTICS_FILE_NAME = "statistics.properties";
+	private static final int MAXIMUM_NUMBER_OF_MANIFEST_ENTRIES = 16;
+	private static final double EVICTION_TARGET = 0.9;
+	private static final int NUMBER_OF_REMOTE_LOOKUP_THREADS = 8;
+
+	private final Log log;
+	private final File cacheDirectory;
+	private final long maximumSize;
+	private final String baseDirectory;
+	private final CacheBackend remoteBackend;
+	private final boolean pushToRemote;
+	private final ExecutorService remoteLookups;
+	private final ConcurrentMap<NativeCodeFile, Future<Boolean>> remoteFetches = new ConcurrentHashMap<NativeCodeFile, Future<Boolean>>();
+	private final ConcurrentLinkedQueue<Future<Boolean>> remotePuts = new ConcurrentLinkedQueue<Future<Boolean>>();
+	private final Map<File, String> digests = new ConcurrentHashMap<File, String>();
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger remoteHits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+	private final AtomicInteger stores = new AtomicInteger();
+
+	/**
+	 * @param maximumSize		The size in bytes above which the least recently used objects are evicted
+	 * @param baseDirectory		The directory paths are stored relative to
+	 * @param remoteBackend		A cache shared with other machines, or null if there is none
+	 * @param pushToRemote		Whether freshly compiled objects are stored in the remote backend
+	 */
+	public ObjectCache(final Log log, final File cacheDirectory, final long maximumSize, final File baseDirectory, final CacheBackend remoteBackend, final boolean pushToRemote) {
+		this.log = log;
+		this.cacheDirectory = cacheDirectory;
+		this.maximumSize = maximumSize;
+		this.baseDirectory = baseDirectory.getAbsolutePath();
+		this.remoteBackend = remoteBackend;
+		this.pushToRemote = pushToRemote;
+		this.remoteLookups = remoteBackend == null ? null : Executors.newFixedThreadPool(NUMBER_OF_REMOTE_LOOKUP_THREADS, new ThreadFactory() {
+			private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = defaultFactory.newThread(runnable);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Starts looking up a file queued for compilation in the remote backend, unless it is in the local cache already.
+	 * 
+	 * @param commandKey	Identifies the compile command, with paths below the base directory made relative
+	 */
+	public void prefetch(final NativeCodeFile file, final String commandKey) {
+		if( remoteBackend == null || findLocally(file, commandKey) != null )
+			return;
+
+		remoteFetches.putIfAbsent(file, startRemoteLookup(file, commandKey));
+	}
+
+	/**
+	 * Restores the object and depend file of a source file compiled earlier with the same command and the same included files.
+	 * If the file isn't in the local cache, this waits for the remote lookup started by {@link #prefetch(NativeCodeFile, String)}.
+	 * 
+	 * @param commandKey	Identifies the compile command, with paths below the base directory made relative
+	 * @return				True if the object and depend file were restored
+	 */
+	public boolean fetch(final NativeCodeFile file, final String commandKey) {
+		try {
+			if( restoreLocally(file, commandKey) ) {
+				hits.incrementAndGet();
+				return true;
+			}
+
+			if( fetchRemotely(file, commandKey) && restoreLocally(file, commandKey) ) {
+				hits.incrementAndGet();
+				remoteHits.incrementAndGet();
+				return true;
+			}
+		}
+		catch (IOException e) {
+			log.debug("Failed to look up " + file.getSourceFile() + " in the object cache: " + e.getMessage());
+		}
+
+		misses.incrementAndGet();
+		return false;
+	}
+
+	private boolean restoreLocally(final NativeCodeFile file, final String commandKey) throws IOException {
+		final String resultKey = findLocally(file, commandKey);
+		if( resultKey == null || !restore(resultKey, file) )
+			return false;
+
+		log.debug("Restored " + file.getObjectFile().getName() + " from the object cache.");
+		return true;
+	}
+
+	/**
+	 * @return		The key of the locally cached object matching the file, or null if there is none
+	 */
+	private String findLocally(final NativeCodeFile file, final String commandKey) {
+		try {
+			for(ManifestEntry entry : readManifest(getManifestFile(getManifestKey(file, commandKey))))
+				if( entry.matchesIncludedFiles() && getResultFile(entry.resultKey, NativeCodeFile.OBJECT_SUFFIX).exists() )
+					return entry.resultKey;
+		}
+		catch (IOException e) {
+			log.debug("Failed to look up " + file.getSourceFile() + " in the object cache: " + e.getMessage());
+		}
+
+		return null;
+	}
+
+	private boolean fetchRemotely(final NativeCodeFile file, final String commandKey) {
+		if( remoteBackend == null )
+			return false;
+
+		Future<Boolean> remoteFetch = remoteFetches.remove(file);
+		if( remoteFetch == null )
+			remoteFetch = startRemoteLookup(file, commandKey);
+
+		try {
+			return remoteFetch.get();
+		}
+		catch (ExecutionException e) {
+			log.debug("Failed to look up " + file.getSourceFile() + " in the remote object cache " + remoteBackend + ": " + e.getCause().getMessage());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		return false;
+	}
+
+	private Future<Boolean> startRemoteLookup(final NativeCodeFile file, final String commandKey) {
+		return remoteLookups.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws IOException, MojoExecutionException, InterruptedException, ExecutionException {
+				return lookUpRemotely(file, commandKey);
+			}
+		});
+	}
+
+	/**
+	 * Fetches the remote manifest of the file, and the first object in it which matches the included files, into the local cache.
+	 */
+	private boolean lookUpRemotely(final NativeCodeFile file, final String commandKey) throws IOException, MojoExecutionException, InterruptedException, ExecutionException {
+		final String manifestKey = getManifestKey(file, commandKey);
+		cacheDirectory.mkdirs();
+		final File remoteManifest = File.createTempFile(manifestKey, MANIFEST_SUFFIX, cacheDirectory);
+		try {
+			if( !remoteBackend.get(getManifestPath(manifestKey), remoteManifest).get() )
+				return false;
+
+			for(ManifestEntry entry : readManifest(remoteManifest)) {
+				if( !entry.matchesIncludedFiles() )
+					continue;
+
+				final Future<Boolean> dependFileFetch = remoteBackend.get(getResultPath(entry.resultKey, NativeCodeFile.DEPEND_SUFFIX), getResultFile(entry.resultKey, NativeCodeFile.DEPEND_SUFFIX));
+				final Future<Boolean> objectFetch = remoteBackend.get(getResultPath(entry.resultKey, NativeCodeFile.OBJECT_SUFFIX), getResultFile(entry.resultKey, NativeCodeFile.OBJECT_SUFFIX));
+				if( dependFileFetch.get() && objectFetch.get() ) {
+					addManifestEntry(getManifestFile(manifestKey), entry.line);
+					return true;
+				}
+			}
+
+			return false;
+		}
+		finally {
+			remoteManifest.delete();
+		}
+	}
+
+	/**
+	 * Stores the object and depend file of a freshly compiled source file.
+	 * 
+	 * @param commandKey		Identifies the compile command, with paths below the base directory made relative
+	 * @param includedFiles		The files included by the source file, as listed in its depend file
+	 */
+	public void store(final NativeCodeFile file, final String commandKey, final Collection<File> includedFiles) {
+		try {
+			final String manifestKey = getManifestKey(file, commandKey);
+			final List<String> resultKeyParts = new ArrayList<String>();
+			resultKeyParts.add(manifestKey);
+
+			final StringBuilder includes = new StringBuilder();
+			for(File includedFile : includedFiles) {
+				final String digest = getDigest(includedFile);
+				final String path = relativize(includedFile.getAbsolutePath());
+				resultKeyParts.add(path);
+				resultKeyParts.add(digest);
+				includes.append('\t').append(digest).append(' ').append(path);
+			}
+
+			final String resultKey = FingerprintStore.fingerprint(resultKeyParts);
+			final File cachedObject = getResultFile(resultKey, NativeCodeFile.OBJECT_SUFFIX);
+			if( !cachedObject.exists() ) {
+				final File cachedDependFile = getResultFile(resultKey, NativeCodeFile.DEPEND_SUFFIX);
+				writeAtomically(cachedDependFile, relativize(FileUtils.fileRead(file.getDependFile())));
+				copyAtomically(file.getObjectFile(), cachedObject);
+			}
+
+			addManifestEntry(getManifestFile(manifestKey), resultKey + includes);
+			stores.incrementAndGet();
+
+			if( pushToRemote && remoteBackend != null ) {
+				remotePuts.add(remoteBackend.put(getResultPath(resultKey, NativeCodeFile.DEPEND_SUFFIX), getResultFile(resultKey, NativeCodeFile.DEPEND_SUFFIX)));
+				remotePuts.add(remoteBackend.put(getResultPath(resultKey, NativeCodeFile.OBJECT_SUFFIX), cachedObject));
+				remotePuts.add(remoteBackend.put(getManifestPath(manifestKey), getManifestFile(manifestKey)));
+			}
+		}
+		catch (IOException e) {
+			log.warn("Failed to store " + file.getObjectFile().getName() + " in the object cache: " + e.getMessage());
+		}
+		catch (MojoExecutionException e) {
+			log.warn("Failed to store " + file.getObjectFile().getName() + " in the object cache: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Logs the hits and misses of this build, adds them to the statistics kept in the cache, and evicts the
+	 * least recently used objects if the cache has outgrown its size limit.
+	 */
+	public void finish(final String description) {
+		finishRemoteTransfers();
+
+		final int hitCount = hits.getAndSet(0);
+		final int remoteHitCount = remoteHits.getAndSet(0);
+		final int missCount = misses.getAndSet(0);
+		final int storeCount = stores.getAndSet(0);
+		if( hitCount + missCount == 0 )
+			return;
+
+		log.info(description + ": Object cache hits: " + hitCount + " (" + remoteHitCount + " remote), misses: " + missCount + ", stored: " + storeCount + ".");
+
+		try {
+			final FileLocker locker = new FileLocker(new File(cacheDirectory, LOCK_FILE_NAME));
+			locker.lock();
+			try {
+				updateStatistics(hitCount, remoteHitCount, missCount, storeCount);
+				if( storeCount > 0 )
+					evict();
+			}
+			finally {
+				locker.unlock();
+			}
+		}
+		catch (IOException e) {
+			log.warn("Failed to update the object cache in " + cacheDirectory + ": " + e.getMessage());
+		}
+		catch (MojoExecutionException e) {
+			log.warn("Failed to update the object cache in " + cacheDirectory + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Waits for pushes to the remote backend, and stops looking up files which were never compiled.
+	 */
+	private void finishRemoteTransfers() {
+		if( remoteBackend == null )
+			return;
+
+		for(Future<Boolean> remoteFetch : remoteFetches.values())
+			remoteFetch.cancel(false);
+		remoteFetches.clear();
+		remoteLookups.shutdown();
+
+		int numberOfFailedPushes = 0;
+		String failure = null;
+		for(Future<Boolean> remotePut = remotePuts.poll(); remotePut != null; remotePut = remotePuts.poll()) {
+			try {
+				remotePut.get();
+			}
+			catch (ExecutionException e) {
+				numberOfFailedPushes++;
+				failure = e.getCause().getMessage();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		if( numberOfFailedPushes > 0 )
+			log.warn("Failed to store " + numberOfFailedPushes + " files in the remote object cache " + remoteBackend + ": " + failure);
+
+		remoteBackend.close();
+	}
+
+	private String getManifestKey(final NativeCodeFile file, final String commandKey) throws IOException {
+		return FingerprintStore.fingerprint(Arrays.asList(commandKey, relativize(file.getSourceFile().getAbsolutePath()), getDigest(file.getSourceFile())));
+	}
+
+	private boolean restore(final String resultKey, final NativeCodeFile file) throws IOException {
+		final File cachedObject = getResultFile(resultKey, NativeCodeFile.OBJECT_SUFFIX);
+		final File cachedDependFile = getResultFile(resultKey, NativeCodeFile.DEPEND_SUFFIX);
+		if( !cachedObject.exists() || !cachedDependFile.exists() )
+			return false;
+
+		final long now = System.currentTimeMillis();
+		cachedObject.setLastModified(now);
+
+		file.getObjectFile().getParentFile().mkdirs();
+		FileUtils.fileWrite(file.getDependFile().getPath(), resolve(FileUtils.fileRead(cachedDependFile)));
+		FileUtils.copyFile(cachedObject, file.getObjectFile());
+		file.getDependFile().setLastModified(now);
+		file.getObjectFile().setLastModified(now);
+		return true;
+	}
+
+	private List<ManifestEntry> readManifest(final File manifestFile) throws IOException {
+		final List<ManifestEntry> entries = new ArrayList<ManifestEntry>();
+		if( !manifestFile.exists() )
+			return entries;
+
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new FileReader(manifestFile));
+			String line;
+			while( (line = reader.readLine()) != null )
+				if( !line.isEmpty() )
+					entries.add(new ManifestEntry(line));
+		}
+		finally {
+			close(reader);
+		}
+
+		return entries;
+	}
+
+	private void addManifestEntry(final File manifestFile, final String line) throws IOException, MojoExecutionException {
+		final FileLocker locker = new FileLocker(new File(cacheDirectory, LOCK_FILE_NAME));
+		locker.lock();
+		try {
+			final StringBuilder manifest = new StringBuilder(line).append('\n');
+			int numberOfEntries = 1;
+			for(ManifestEntry entry : readManifest(manifestFile)) {
+				if( numberOfEntries == MAXIMUM_NUMBER_OF_MANIFEST_ENTRIES )
+					break;
+
+				if( entry.line.equals(line) )
+					continue;
+
+				manifest.append(entry.line).append('\n');
+				numberOfEntries++;
+			}
+
+			writeAtomically(manifestFile, manifest.toString());
+		}
+		finally {
+			locker.unlock();
+		}
+	}
+
+	private void updateStatistics(final int hitCount, final int remoteHitCount, final int missCount, final int storeCount) throws IOException {
+		final File statisticsFile = new File(cacheDirectory, STATISTICS_FILE_NAME);
+		final Properties statistics = new Properties();
+		if( statisticsFile.exists() ) {
+			InputStream in = null;
+			try {
+				in = new FileInputStream(statisticsFile);
+				statistics.load(in);
+			}
+			finally {
+				close(in);
+			}
+		}
+
+		addToStatistic(statistics, "hits", hitCount);
+		addToStatistic(statistics, "remote.hits", remoteHitCount);
+		addToStatistic(statistics, "misses", missCount);
+		addToStatistic(statistics, "stores", storeCount);
+
+		OutputStream out = null;
+		try {
+			out = new FileOutputStream(statisticsFile);
+			statistics.store(out, "Object cache statistics");
+		}
+		finally {
+			close(out);
+		}
+	}
+
+	private void addToStatistic(final Properties statistics, final String name, final int count) {
+		long previousCount = 0;
+		try {
+			previousCount = Long.parseLong(statistics.getProperty(name, "0"));
+		}
+		catch (NumberFormatException e) {
+			log.debug("Resetting corrupt object cache statistic " + name + ".");
+		}
+
+		statistics.setProperty(name, Long.toString(previousCount + count));
+	}
+
+	/**
+	 * Removes the least recently used objects until the cache, manifests included, is comfortably below its size limit.
+	 * The manifest entries of evicted objects are then dropped, and manifests left without entries are removed.
+	 */
+	private void evict() {
+		final List<File> cachedObjects = new ArrayList<File>();
+		long size = 0;
+		for(File bucket : listFiles(new File(cacheDirectory, "objects")))
+			for(File cachedFile : listFiles(bucket)) {
+				size += cachedFile.length();
+				if( cachedFile.getName().endsWith(NativeCodeFile.OBJECT_SUFFIX) )
+					cachedObjects.add(cachedFile);
+			}
+
+		final List<File> manifestFiles = new ArrayList<File>();
+		for(File bucket : listFiles(new File(cacheDirectory, "manifests")))
+			for(File manifestFile : listFiles(bucket)) {
+				size += manifestFile.length();
+				if( manifestFile.getName().endsWith(MANIFEST_SUFFIX) )
+					manifestFiles.add(manifestFile);
+			}
+
+		if( size <= maximumSize )
+			return;
+
+		final Map<File, Long> accessTimes = new HashMap<File, Long>();
+		for(File cachedObject : cachedObjects)
+			accessTimes.put(cachedObject, cachedObject.lastModified());
+
+		Collections.sort(cachedObjects, new Comparator<File>() {
+			@Override
+			public int compare(final File first, final File second) {
+				return accessTimes.get(first).compareTo(accessTimes.get(second));
+			}
+		});
+
+		int numberOfEvictedObjects = 0;
+		final long targetSize = (long)(maximumSize * EVICTION_TARGET);
+		for(File cachedObject : cachedObjects) {
+			if( size <= targetSize )
+				break;
+
+			final String name = cachedObject.getName();
+			final File cachedDependFile = new File(cachedObject.getParentFile(), name.substring(0, name.length() - NativeCodeFile.OBJECT_SUFFIX.length()) + NativeCodeFile.DEPEND_SUFFIX);
+			size -= cachedObject.length() + cachedDependFile.length();
+			cachedObject.delete();
+			cachedDependFile.delete();
+			numberOfEvictedObjects++;
+		}
+
+		final int numberOfDroppedEntries = dropEntriesOfMissingObjects(manifestFiles);
+		log.debug("Evicted " + numberOfEvictedObjects + " objects from the object cache, and dropped " + numberOfDroppedEntries + " manifest entries referring to them.");
+	}
+
+	/**
+	 * @return		The number of entries dropped
+	 */
+	private int dropEntriesOfMissingObjects(final List<File> manifestFiles) {
+		int numberOfDroppedEntries = 0;
+		for(File manifestFile : manifestFiles) {
+			try {
+				final StringBuilder manifest = new StringBuilder();
+				int numberOfEntriesDroppedFromManifest = 0;
+				for(ManifestEntry entry : readManifest(manifestFile)) {
+					if( getResultFile(entry.resultKey, NativeCodeFile.OBJECT_SUFFIX).exists() )
+						manifest.append(entry.line).append('\n');
+					else
+						numberOfEntriesDroppedFromManifest++;
+				}
+
+				if( manifest.length() == 0 )
+					manifestFile.delete();
+				else if( numberOfEntriesDroppedFromManifest > 0 )
+					writeAtomically(manifestFile, manifest.toString());
+
+				numberOfDroppedEntries += numberOfEntriesDroppedFromManifest;
+			}
+			catch (IOException e) {
+				log.debug("Failed to drop entries of evicted objects from " + manifestFile + ": " + e.getMessage());
+			}
+		}
+
+		return numberOfDroppedEntries;
+	}
+
+	private File[] listFiles(final File directory) {
+		final File[] files = directory.listFiles();
+		return files == null ? new File[0] : files;
+	}
+
+	private File getManifestFile(final String manifestKey) {
+		return new File(cacheDirectory, getManifestPath(manifestKey));
+	}
+
+	private String getManifestPath(final String manifestKey) {
+		return "manifests/" + manifestKey.substring(0, 2) + "/" + manifestKey + MANIFEST_SUFFIX;
+	}
+
+	private File getResultFile(final String resultKey, final String suffix) {
+		return new File(cacheDirectory, getResultPath(resultKey, suffix));
+	}
+
+	private String getResultPath(final String resultKey, final String suffix) {
+		return "objects/" + resultKey.substring(0, 2) + "/" + resultKey + suffix;
+	}
+
+	/**
+	 * @return		The text with all paths below the base directory made relative to it
+	 */
+	public String relativize(final String text) {
+		return text.replace(baseDirectory + File.separator, BASE_DIRECTORY_TOKEN + File.separator);
+	}
+
+	private String resolve(final String text) {
+		return text.replace(BASE_DIRECTORY_TOKEN + File.separator, baseDirectory + File.separator);
+	}
+
+	private void writeAtomically(final File destination, final String content) throws IOException {
+		final File temporaryFile = createTemporaryFile(destination);
+		FileUtils.fileWrite(temporaryFile.getPath(), content);
+		moveIntoPlace(temporaryFile, destination);
+	}
+
+	private void copyAtomically(final File source, final File destination) throws IOException {
+		final File temporaryFile = createTemporaryFile(destination);
+		FileUtils.copyFile(source, temporaryFile);
+		moveIntoPlace(temporaryFile, destination);
+	}
+
+	private File createTemporaryFile(final File destination) throws IOException {
+		destination.getParentFile().mkdirs();
+		return File.createTempFile(destination.getName(), ".tmp", destination.getParentFile());
+	}
+
+	private void moveIntoPlace(final File temporaryFile, final File destination) throws IOException {
+		if( temporaryFile.renameTo(destination) )
+			return;
+
+		temporaryFile.delete();
+		throw new IOException("Failed to move " + temporaryFile + " to " + destination);
+	}
+
+	private String getDigest(final File file) throws IOException {
+		String digest = digests.get(file);
+		if( digest == null ) {
+			digest = calculateDigest(file);
+			digests.put(file, digest);
+		}
+
+		return digest;
+	}
+
+	private String calculateDigest(final File file) throws IOException {
+		InputStream in = null;
+		try {
+			final MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+			in = new FileInputStream(file);
+			final byte[] buffer = new byte[65536];
+			int length;
+			while( (length = in.read(buffer)) >= 0 )
+				messageDigest.update(buffer, 0, length);
+
+			final StringBuilder hex = new StringBuilder();
+			for(byte b : messageDigest.digest())
+				hex.append(String.format("%02x", b));
+
+			return hex.toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("MD5 is not available.", e);
+		}
+		finally {
+			close(in);
+		}
+	}
+
+	private void close(final Closeable stream) {
+		if( stream == null )
+			return;
+
+		try {
+			stream.close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close stream.");
+		}
+	}
+
+	/**
+	 * A line of a manifest: the key of a cached object followed by the digest and path of each file it includes, separated by tabs.
+	 */
+	private class ManifestEntry {
+		private final String line;
+		private final String resultKey;
+		private final String[] includes;
+
+		public ManifestEntry(final String line) {
+			this.line = line;
+			final String[] fields = line.split("\t");
+			this.resultKey = fields[0];
+			this.includes = Arrays.copyOfRange(fields, 1, fields.length);
+		}
+
+		public boolean matchesIncludedFiles() {
+			for(String include : includes) {
+				final int separator = include.indexOf(' ');
+				if( separator < 0 )
+					return false;
+
+				final File includedFile = new File(resolve(include.substring(separator + 1)));
+				if( !includedFile.isFile() )
+					return false;
+
+				try {
+					if( !include.substring(0, separator).equals(getDigest(includedFile)) )
+						return false;
+				}
+				catch (IOException e) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+	}
+}
@@ -1,102 +1,334 @@
-/* 
- *  Copyright 2011 Ericsson AB
- *
- *  Licensed under the Apache License, Version 2.0 (the "License");
- *  you may not use this file except in compliance with the License.
- *  You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- */
-
-package org.codehaus.mojo.cpp.compiler.compilation.gcc;
-
-import java.io.File;
-import java.util.ArrayList;
-import java.util.Collection;
-
-import org.apache.maven.plugin.MojoExecutionException;
-import org.apache.maven.plugin.MojoFailureException;
-import org.apache.maven.plugin.logging.Log;
-import org.codehaus.mojo.cpp.compiler.compilation.AbstractCompiler;
-import org.codehaus.mojo.cpp.compiler.compilation.RecompilationJudge;
-import org.codehaus.mojo.cpp.compiler.files.ColocatedNativeCodeFileBatch;
-import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
-import org.codehaus.mojo.cpp.compiler.settings.CompilationSettings;
-import org.codehaus.mojo.cpp.tools.CliExecutor;
-import org.codehaus.mojo.cpp.tools.environment.Environment;
-
-
-public abstract class AbstractGccCompiler extends AbstractCompiler {
-
-	public AbstractGccCompiler(final Log log, final CompilationSettings settings, final Environment targetEnvironment, final RecompilationJudge recompilationJudge) {
-		super(log, settings, targetEnvironment, recompilationJudge);
-	}
-
-	@Override
-	public void compile(final Collection<NativeCodeFile> codeFiles) throws MojoFailureException, MojoExecutionException {
-		final Collection<NativeCodeFile> dispersedCodeFiles = new ArrayList<NativeCodeFile>(codeFiles);
-		final ColocatedNativeCodeFileBatch colocatedBatch = new ColocatedNativeCodeFileBatch(log);
-		while(!dispersedCodeFiles.isEmpty()) {
-			colocatedBatch.clear();
-			colocatedBatch.drainDispersedCollection(dispersedCodeFiles);
-			compileColocatedBatch(colocatedBatch);
-		}
-		
-		placeFilesInCorrectDirectories(codeFiles);
-	}
-	
-	protected String getCompilerExecutable() {
-		return "gcc";
-	}
-
-	protected String getMandatoryCompilerArguments() {
-		return "-c -MMD";
-	}
-
-	private void compileColocatedBatch(final ColocatedNativeCodeFileBatch batch) throws MojoFailureException, MojoExecutionException {
-		final CliExecutor executor = getExecutor(batch.getDirectory(), getCompilerExecutable());
-		executor.getCommandline().createArg().setLine(getMandatoryCompilerArguments());
-		executor.getCommandline().createArg().setLine(settings.getCompilerArguments(getTargetEnvironment()));
-		executor.getCommandline().createArg().setValue("-I" + settings.getCodeDirectory(null, settings.isTestCompilation()));
-		executor.getCommandline().createArg().setValue("-I" + settings.getCodeDirectory(getTargetEnvironment(), settings.isTestCompilation()));
-		executor.getCommandline().createArg().setValue("-I" + settings.getIncludeDirectory(null, settings.isTestCompilation()));
-		executor.getCommandline().createArg().setValue("-I" + settings.getIncludeDirectory(getTargetEnvironment(), settings.isTestCompilation()));
-		for(File includeDirectory : getExtractedDependencyIncludeDirectories("compile"))
-			executor.getCommandline().createArg().setValue("-I" + includeDirectory);
-
-		if( settings.isTestCompilation() ) {
-			executor.getCommandline().createArg().setValue("-I" + settings.getIncludeDirectory(null, false));
-			for(File includeDirectory : getExtractedDependencyIncludeDirectories("test"))
-				executor.getCommandline().createArg().setValue("-I" + includeDirectory);
-		}
-
-		for(NativeCodeFile codeFile : batch.getCodeFiles())
-			executor.getCommandline().createArg().setValue(codeFile.getSourceFile().getName());
-
-		executor.execute();
-	}
-
-	private void placeFilesInCorrectDirectories(final Collection<NativeCodeFile> batch) throws MojoExecutionException {
-		for(NativeCodeFile codeFile : batch) {
-			final File destDir = codeFile.getObjectFile().getParentFile();
-			if(!destDir.exists())
-				destDir.mkdirs();
-			
-			final File actualObjectFile = new File(codeFile.getSourceFile().getParentFile(), codeFile.getObjectFile().getName());
-			final File actualDependFile = new File(codeFile.getSourceFile().getParentFile(), codeFile.getDependFile().getName());
-			moveFile(actualObjectFile, codeFile.getObjectFile());
-			moveFile(actualDependFile, codeFile.getDependFile());
-		}
-	}
-
-	private void moveFile(File source, File target) throws MojoExecutionException {
-		if(!source.renameTo(target))
-			throw new MojoExecutionException("Failed to move " + source + " to " + target);
-	}
-}
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.compilation.gcc;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.compilation.AbstractCompiler;
+import org.codehaus.mojo.cpp.compiler.compilation.PartialCompilationException;
+import org.codehaus.mojo.cpp.compiler.compilation.RecompilationJudge;
+import org.codehaus.mojo.cpp.compiler.compilation.cache.ObjectCache;
+import org.codehaus.mojo.cpp.compiler.files.ColocatedNativeCodeFileBatch;
+import org.codehaus.mojo.cpp.compiler.files.FingerprintStore;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.mojo.cpp.compiler.settings.CompilationSettings;
+import org.codehaus.mojo.cpp.tools.CliExecutor;
+import org.codehaus.mojo.cpp.tools.ToolLocator;
+import org.codehaus.mojo.cpp.tools.cache.CacheBackendFactory;
+import org.codehaus.mojo.cpp.tools.environment.Environment;
+
+
+public abstract class AbstractGccCompiler extends AbstractCompiler {
+	private String commandFingerprint;
+	private String objectCacheKey;
+	private ObjectCache objectCache;
+
+	public AbstractGccCompiler(final Log log, final CompilationSettings settings, final Environment targetEnvironment, final RecompilationJudge recompilationJudge) {
+		super(log, settings, targetEnvironment, recompilationJudge);
+	}
+
+	@Override
+	public void compile(final Collection<NativeCodeFile> codeFiles) throws MojoFailureException, MojoExecutionException {
+		final Collection<NativeCodeFile> filesToCompile = fetchFromObjectCache(codeFiles);
+		final Collection<NativeCodeFile> compiledFiles = new ArrayList<NativeCodeFile>();
+		final Collection<NativeCodeFile> failedFiles = new ArrayList<NativeCodeFile>();
+		MojoFailureException failure = null;
+
+		if( settings.isExplicitObjectPlacement() ) {
+			for(NativeCodeFile codeFile : filesToCompile) {
+				try {
+					compileInPlace(codeFile);
+					compiledFiles.add(codeFile);
+				}
+				catch (MojoFailureException e) {
+					failedFiles.add(codeFile);
+					failure = failure != null ? failure : e;
+					if( !settings.isIsolateCompilationFailures() )
+						break;
+				}
+			}
+		}
+		else {
+			for(ColocatedNativeCodeFileBatch colocatedBatch : ColocatedNativeCodeFileBatch.groupByDirectory(log, filesToCompile)) {
+				final MojoFailureException batchFailure = compileColocatedBatch(colocatedBatch.getDirectory(), new ArrayList<NativeCodeFile>(colocatedBatch.getCodeFiles()), compiledFiles, failedFiles);
+				failure = failure != null ? failure : batchFailure;
+				if( failure != null && !settings.isIsolateCompilationFailures() )
+					break;
+			}
+		}
+
+		storeInObjectCache(compiledFiles);
+
+		if( failure != null ) {
+			final Collection<NativeCodeFile> keptFiles = new ArrayList<NativeCodeFile>(compiledFiles);
+			final Set<NativeCodeFile> attemptedFiles = new HashSet<NativeCodeFile>(filesToCompile);
+			for(NativeCodeFile codeFile : codeFiles)
+				if( !attemptedFiles.contains(codeFile) )
+					keptFiles.add(codeFile);
+
+			final Collection<File> failedSourceFiles = new ArrayList<File>();
+			for(NativeCodeFile codeFile : failedFiles)
+				failedSourceFiles.add(codeFile.getSourceFile());
+
+			throw new PartialCompilationException("Failed to compile " + (failedSourceFiles.isEmpty() ? "batch" : failedSourceFiles.toString()) + ". Kept the object files of " + keptFiles.size() + " of " + codeFiles.size() + " files.", keptFiles, failedFiles, failure);
+		}
+	}
+
+	@Override
+	public void prefetch(final NativeCodeFile file) throws MojoExecutionException {
+		if( getObjectCache() != null )
+			getObjectCache().prefetch(file, getObjectCacheKey());
+	}
+
+	@Override
+	public void saveRecompilationState() throws MojoExecutionException {
+		super.saveRecompilationState();
+
+		if( getObjectCache() != null )
+			getObjectCache().finish(getTargetEnvironment().toString());
+	}
+	
+	protected String getCompilerExecutable() {
+		return "gcc";
+	}
+
+	protected String getMandatoryCompilerArguments() {
+		return "-c -MMD";
+	}
+
+	/**
+	 * The fingerprint covers the compiler version, as reported by the compiler, and all arguments but the files to compile.
+	 */
+	@Override
+	protected synchronized String getCommandFingerprint() throws MojoExecutionException {
+		if( commandFingerprint == null )
+			commandFingerprint = FingerprintStore.fingerprint(getCommandParts());
+
+		return commandFingerprint;
+	}
+
+	private List<String> getCommandParts() throws MojoExecutionException {
+		final List<String> commandParts = new ArrayList<String>();
+		commandParts.add(getCompilerIdentity());
+		commandParts.add(getCompilerExecutable());
+		commandParts.addAll(Arrays.asList(createCompileCommand(null).getCommandline().getArguments()));
+		return commandParts;
+	}
+
+	/**
+	 * @return		The object cache to use, or null if objects aren't cached
+	 */
+	private synchronized ObjectCache getObjectCache() throws MojoExecutionException {
+		if( objectCache == null && settings.getObjectCacheDirectory() != null ) {
+			final String remoteObjectCache = settings.getRemoteObjectCache();
+			if( remoteObjectCache == null || remoteObjectCache.trim().isEmpty() )
+				objectCache = new ObjectCache(log, settings.getObjectCacheDirectory(), settings.getObjectCacheSize(), settings.getProject().getBasedir(), null, false);
+			else
+				objectCache = new ObjectCache(log, settings.getObjectCacheDirectory(), settings.getObjectCacheSize(), settings.getProject().getBasedir(), CacheBackendFactory.create(remoteObjectCache.trim()), !settings.isRemoteObjectCacheReadOnly());
+		}
+
+		return objectCache;
+	}
+
+	/**
+	 * The key is the command fingerprint with paths below the project base directory made relative.
+	 */
+	private synchronized String getObjectCacheKey() throws MojoExecutionException {
+		if( objectCacheKey == null ) {
+			final List<String> commandParts = new ArrayList<String>();
+			for(String commandPart : getCommandParts())
+				commandParts.add(getObjectCache().relativize(commandPart));
+
+			objectCacheKey = FingerprintStore.fingerprint(commandParts);
+		}
+
+		return objectCacheKey;
+	}
+
+	/**
+	 * @return		The files which could not be restored from the object cache
+	 */
+	private Collection<NativeCodeFile> fetchFromObjectCache(final Collection<NativeCodeFile> codeFiles) throws MojoExecutionException {
+		if( getObjectCache() == null )
+			return codeFiles;
+
+		final Collection<NativeCodeFile> filesToCompile = new ArrayList<NativeCodeFile>();
+		for(NativeCodeFile codeFile : codeFiles)
+			if( !getObjectCache().fetch(codeFile, getObjectCacheKey()) )
+				filesToCompile.add(codeFile);
+
+		return filesToCompile;
+	}
+
+	private void storeInObjectCache(final Collection<NativeCodeFile> compiledFiles) throws MojoExecutionException {
+		if( getObjectCache() == null )
+			return;
+
+		final GccIncludesAnalyzer includesAnalyzer = new GccIncludesAnalyzer();
+		for(NativeCodeFile codeFile : compiledFiles)
+			getObjectCache().store(codeFile, getObjectCacheKey(), includesAnalyzer.getIncludedFiles(codeFile));
+	}
+
+	private String getCompilerIdentity() {
+		final String version = ToolLocator.getVersion(log, getCompilerExecutable());
+		return version != null ? version : getCompilerExecutable();
+	}
+
+	/**
+	 * Compiles files of one source directory in one invocation of the compiler. If it fails, the object files
+	 * written for the other files are kept, and when isolating failures the rest are compiled again in halves.
+	 *
+	 * @return		The first failure, or null if all files were compiled
+	 */
+	private MojoFailureException compileColocatedBatch(final File directory, final List<NativeCodeFile> codeFiles, final Collection<NativeCodeFile> compiledFiles, final Collection<NativeCodeFile> failedFiles) throws MojoExecutionException {
+		final CliExecutor executor = createCompileCommand(directory);
+
+		for(NativeCodeFile codeFile : codeFiles)
+			executor.getCommandline().createArg().setValue(codeFile.getSourceFile().getName());
+
+		final long startTime = System.currentTimeMillis();
+		try {
+			executor.execute();
+		}
+		catch (MojoFailureException e) {
+			final List<NativeCodeFile> remainingFiles = salvageObjectFiles(codeFiles, startTime, compiledFiles);
+			if( remainingFiles.size() > 1 && settings.isIsolateCompilationFailures() ) {
+				log.info("Compiling the remaining " + remainingFiles.size() + " files of a failed batch in " + directory + " again in halves.");
+				final int half = remainingFiles.size() / 2;
+				final MojoFailureException firstFailure = compileColocatedBatch(directory, remainingFiles.subList(0, half), compiledFiles, failedFiles);
+				final MojoFailureException secondFailure = compileColocatedBatch(directory, remainingFiles.subList(half, remainingFiles.size()), compiledFiles, failedFiles);
+				return firstFailure != null ? firstFailure : secondFailure;
+			}
+
+			failedFiles.addAll(remainingFiles);
+			return e;
+		}
+
+		for(NativeCodeFile codeFile : codeFiles)
+			placeFileInCorrectDirectory(codeFile);
+		compiledFiles.addAll(codeFiles);
+		return null;
+	}
+
+	/**
+	 * The compiler goes on with the other files of an invocation when one fails, so their object and depend files are moved into place.
+	 * Files older than the invocation are left alone, and anything written for the files which failed is removed.
+	 *
+	 * @return		The files which got no object file
+	 */
+	private List<NativeCodeFile> salvageObjectFiles(final List<NativeCodeFile> codeFiles, final long startTime, final Collection<NativeCodeFile> compiledFiles) throws MojoExecutionException {
+		// File systems with timestamps in whole seconds may date files written just after the start before it
+		final long earliestTimestamp = startTime - startTime % 1000;
+		final List<NativeCodeFile> remainingFiles = new ArrayList<NativeCodeFile>();
+
+		for(NativeCodeFile codeFile : codeFiles) {
+			final File actualObjectFile = new File(codeFile.getSourceFile().getParentFile(), codeFile.getObjectFile().getName());
+			final File actualDependFile = new File(codeFile.getSourceFile().getParentFile(), codeFile.getDependFile().getName());
+			if( actualObjectFile.lastModified() >= earliestTimestamp && actualDependFile.lastModified() >= earliestTimestamp ) {
+				placeFileInCorrectDirectory(codeFile);
+				compiledFiles.add(codeFile);
+				continue;
+			}
+
+			if( actualObjectFile.lastModified() >= earliestTimestamp )
+				actualObjectFile.delete();
+			if( actualDependFile.lastModified() >= earliestTimestamp )
+				actualDependFile.delete();
+			remainingFiles.add(codeFile);
+		}
+
+		if( remainingFiles.size() < codeFiles.size() )
+			log.info("Kept the object files of " + (codeFiles.size() - remainingFiles.size()) + " of " + codeFiles.size() + " files of a failed batch.");
+
+		return remainingFiles;
+	}
+
+	/**
+	 * Compiles a single file, writing the object and depend files straight into the obj directory.<br/>
+	 * The compiler is still run in the source directory with the plain file name, and the depend file
+	 * still names the object file without its path, so the output is the same as for a colocated batch.
+	 */
+	private void compileInPlace(final NativeCodeFile codeFile) throws MojoFailureException, MojoExecutionException {
+		final File destDir = codeFile.getObjectFile().getParentFile();
+		if( !destDir.isDirectory() && !destDir.mkdirs() && !destDir.isDirectory() )
+			throw new MojoExecutionException("Failed to create directory " + destDir);
+
+		final CliExecutor executor = createCompileCommand(codeFile.getSourceFile().getParentFile());
+		executor.getCommandline().createArg().setValue("-o");
+		executor.getCommandline().createArg().setValue(codeFile.getObjectFile().getPath());
+		executor.getCommandline().createArg().setValue("-MF");
+		executor.getCommandline().createArg().setValue(codeFile.getDependFile().getPath());
+		executor.getCommandline().createArg().setValue("-MT");
+		executor.getCommandline().createArg().setValue(codeFile.getObjectFile().getName());
+		executor.getCommandline().createArg().setValue(codeFile.getSourceFile().getName());
+
+		try {
+			executor.execute();
+		}
+		catch (MojoExecutionException e) {
+			// A compiler which was destroyed may have left an incomplete object file newer than the source file
+			codeFile.getObjectFile().delete();
+			codeFile.getDependFile().delete();
+			throw e;
+		}
+	}
+
+	private CliExecutor createCompileCommand(final File directory) {
+		final CliExecutor executor = getExecutor(directory, getCompilerExecutable());
+		executor.getCommandline().createArg().setLine(getMandatoryCompilerArguments());
+		executor.getCommandline().createArg().setLine(settings.getCompilerArguments(getTargetEnvironment()));
+		executor.getCommandline().createArg().setValue("-I" + settings.getCodeDirectory(null, settings.isTestCompilation()));
+		executor.getCommandline().createArg().setValue("-I" + settings.getCodeDirectory(getTargetEnvironment(), settings.isTestCompilation()));
+		executor.getCommandline().createArg().setValue("-I" + settings.getIncludeDirectory(null, settings.isTestCompilation()));
+		executor.getCommandline().createArg().setValue("-I" + settings.getIncludeDirectory(getTargetEnvironment(), settings.isTestCompilation()));
+		for(File includeDirectory : getExtractedDependencyIncludeDirectories("compile"))
+			executor.getCommandline().createArg().setValue("-I" + includeDirectory);
+
+		if( settings.isTestCompilation() ) {
+			executor.getCommandline().createArg().setValue("-I" + settings.getIncludeDirectory(null, false));
+			for(File includeDirectory : getExtractedDependencyIncludeDirectories("test"))
+				executor.getCommandline().createArg().setValue("-I" + includeDirectory);
+		}
+
+		return executor;
+	}
+
+	private void placeFileInCorrectDirectory(final NativeCodeFile codeFile) throws MojoExecutionException {
+		final File destDir = codeFile.getObjectFile().getParentFile();
+		if(!destDir.exists())
+			destDir.mkdirs();
+		
+		final File actualObjectFile = new File(codeFile.getSourceFile().getParentFile(), codeFile.getObjectFile().getName());
+		final File actualDependFile = new File(codeFile.getSourceFile().getParentFile(), codeFile.getDependFile().getName());
+		moveFile(actualObjectFile, codeFile.getObjectFile());
+		moveFile(actualDependFile, codeFile.getDependFile());
+	}
+
+	private void moveFile(File source, File target) throws MojoExecutionException {
+		if(!source.renameTo(target))
+			throw new MojoExecutionException("Failed to move " + source + " to " + target);
+	}
+}
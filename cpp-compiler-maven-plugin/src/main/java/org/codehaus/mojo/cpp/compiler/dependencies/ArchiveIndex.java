@@ -0,0 +1,86 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.dependencies;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The entries of an archive, grouped by the subdirectory of a dependency they belong to, e.g. "noarch/include".<br/>
+ * The archive is only read once, however many subdirectories are extracted from it.
+ */
+public class ArchiveIndex {
+	private final Map<String, List<ZipEntry>> entriesBySubDirectory = new HashMap<String, List<ZipEntry>>();
+
+	public ArchiveIndex(final File archive) throws IOException {
+		final ZipFile zipFile = new ZipFile(archive);
+		try {
+			final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while( entries.hasMoreElements() ) {
+				final ZipEntry entry = entries.nextElement();
+				final String subDirectoryName = getSubDirectoryName(entry.getName());
+				if( subDirectoryName == null )
+					continue;
+
+				List<ZipEntry> subDirectoryEntries = entriesBySubDirectory.get(subDirectoryName);
+				if( subDirectoryEntries == null ) {
+					subDirectoryEntries = new ArrayList<ZipEntry>();
+					entriesBySubDirectory.put(subDirectoryName, subDirectoryEntries);
+				}
+				subDirectoryEntries.add(entry);
+			}
+		}
+		finally {
+			zipFile.close();
+		}
+	}
+
+	/**
+	 * @return		The entries below the subdirectory, in archive order
+	 */
+	public List<ZipEntry> getEntries(final String subDirectoryName) {
+		final List<ZipEntry> entries = entriesBySubDirectory.get(subDirectoryName);
+		if( entries == null )
+			return Collections.emptyList();
+
+		return entries;
+	}
+
+	/**
+	 * @return		The first two components of the entry name, or null if it doesn't have two
+	 */
+	private String getSubDirectoryName(final String entryName) {
+		final int firstSeparator = entryName.indexOf('/');
+		if( firstSeparator < 0 )
+			return null;
+
+		final int secondSeparator = entryName.indexOf('/', firstSeparator + 1);
+		if( secondSeparator < 0 )
+			return firstSeparator + 1 < entryName.length() ? entryName : null;
+
+		return entryName.substring(0, secondSeparator);
+	}
+}
@@ -1,179 +1,552 @@
-/* 
- *  Copyright 2011 Ericsson AB
- *
- *  Licensed under the Apache License, Version 2.0 (the "License");
- *  you may not use this file except in compliance with the License.
- *  You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- */
-
-package org.codehaus.mojo.cpp.compiler.dependencies;
-
-import java.io.BufferedOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.Enumeration;
-import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-
-import org.apache.maven.artifact.Artifact;
-import org.apache.maven.plugin.MojoExecutionException;
-import org.apache.maven.plugin.logging.Log;
-import org.codehaus.mojo.cpp.compiler.artifacts.ArtifactManager;
-import org.codehaus.mojo.cpp.compiler.settings.DependencyExtractionSettings;
-import org.codehaus.mojo.cpp.tools.environment.Environment;
-import org.codehaus.plexus.util.FileUtils;
-
-
-public class DependencyExtractor {
-	private static final String VERSION_FILENAME = "version";
-	private static final String NOARCH_ENVIRONMENT_NAME = "noarch";
-
-	private final Log log;
-	private final DependencyExtractionSettings settings;
-	private final ArtifactManager artifactManager;
-	private final List<DependencyIdentifier> securedDependencies = new ArrayList<DependencyIdentifier>();
-
-	public DependencyExtractor(final Log log, final DependencyExtractionSettings settings, final ArtifactManager artifactManager) {
-		this.log = log;
-		this.settings = settings;
-		this.artifactManager = artifactManager;
-	}
-
-	public void secureAvailabilityOfExtractedDependencies(final DependencyType dependencyType, final Environment targetEnvironment) throws MojoExecutionException {
-		for(Artifact artifact : artifactManager.getDependencyArtifacts()) {
-			secureAvailabilityOfExtractedDependency(new DependencyIdentifier(artifact, dependencyType, NOARCH_ENVIRONMENT_NAME));
-			secureAvailabilityOfExtractedDependency(new DependencyIdentifier(artifact, dependencyType, targetEnvironment.getCanonicalName()));
-		}
-	}
-
-	boolean isUpdatedSnapshot(final Artifact artifact, final File destination) {
-		if( !artifact.isSnapshot() )
-			return false;
-		
-		return artifact.getFile().lastModified() > destination.lastModified();
-	}
-	
-	private void secureAvailabilityOfExtractedDependency(final DependencyIdentifier dep) throws MojoExecutionException {
-		if ( securedDependencies.contains(dep) )
-			return;
-
-		final File destination = settings.getDirectoryForDependecyArtifactExtraction(dep.getArtifact().getScope(), dep.getArtifact().getGroupId(), dep.getArtifact().getArtifactId());
-
-		if( destination.exists() )
-			deleteDestinationIfInvalid(dep.getArtifact(), destination);
-
-		if( !destination.exists() )
-			setupDestination(dep.getArtifact(), destination);
-
-
-		final File depSubDirectory = new File(destination, dep.getSubDirectoryName());
-		if( !depSubDirectory.exists() )
-			extractDependency(dep, destination);
-
-		securedDependencies.add(dep);
-	}
-
-	private void extractDependency(final DependencyIdentifier dep, final File destination) throws MojoExecutionException {
-		try {
-			final ZipFile zipFile = new ZipFile(dep.getArtifact().getFile());
-			final Enumeration<? extends ZipEntry> entriesEnum = zipFile.entries();
-			while (entriesEnum.hasMoreElements()) {
-				final ZipEntry entry = entriesEnum.nextElement();
-				if( entryMatchesDependency(entry, dep) )
-					extractEntry(entry, zipFile, destination);
-			}
-
-			zipFile.close();
-		}
-		catch(IOException e) {
-			throw new MojoExecutionException("Failed to extract " + dep.getArtifact() + ".", e);
-		} 
-
-		log.debug("Extracted \"" + dep + "\" to " + destination);
-	}
-
-	private void extractEntry(final ZipEntry entry, final ZipFile zipFile, final File destination) throws MojoExecutionException {
-		final File targetFile = new File(destination, entry.getName()); 
-
-		if( entry.isDirectory() )
-			targetFile.mkdirs();
-		else
-			writeFile(zipFile, entry, targetFile);
-	}
-
-	private boolean entryMatchesDependency(final ZipEntry entry, final DependencyIdentifier dep) {
-		return entry.getName().startsWith(dep.getSubDirectoryName());
-	}
-
-	private void deleteDestinationIfInvalid(final Artifact artifact, final File destination) throws MojoExecutionException {
-		try {
-			if(isUpdatedSnapshot(artifact, destination)) {
-				log.info(destination + " will be cleaned. There is a newer SNAPSHOT version in local repository.");
-				FileUtils.deleteDirectory(destination);
-				return;
-			}
-
-			final File versionFile = new File(destination, VERSION_FILENAME);
-			if( !versionFile.exists() ) {
-				log.warn(destination + " will be cleaned. It contains no version file, which might indicate a previous failed extraction attempt.");
-				FileUtils.deleteDirectory(destination);
-				return;
-			}
-
-			final String previouslyExtractedVersion = FileUtils.fileRead(versionFile);
-			if(!previouslyExtractedVersion.equals(artifact.getVersion())) {
-				log.warn(destination + " will be cleaned. It contains version " + previouslyExtractedVersion + ", but the current dependency is to " + artifact.getVersion() + ".");
-				FileUtils.deleteDirectory(destination);
-				return;
-			}
-		} 
-		catch (IOException e) {
-			throw new MojoExecutionException("Inspection and/or cleaning of " + destination + " failed.", e);
-		}
-	}
-
-	private void setupDestination(final Artifact artifact, final File destination) throws MojoExecutionException {
-		destination.mkdirs();
-
-		try {
-			FileUtils.fileWrite(destination.getPath() + "/" + VERSION_FILENAME, artifact.getVersion());
-		} 
-		catch (IOException e){
-			throw new MojoExecutionException("Failed to write version file.", e);
-		}
-	}
-
-	private void writeFile(final ZipFile zipFile, final ZipEntry entry, final File targetFile) throws MojoExecutionException {
-		InputStream in;
-		try {
-			in = zipFile.getInputStream(entry);
-			final OutputStream out = new BufferedOutputStream(new FileOutputStream(targetFile));
-
-			byte[] buffer = new byte[1024];
-			int bufferLength;
-
-			while ((bufferLength = in.read(buffer)) >= 0)
-				out.write(buffer, 0, bufferLength);
-
-			in.close();
-			out.close();
-			targetFile.setReadOnly();
-		} 
-		catch (IOException e) {
-			throw new MojoExecutionException("Failed to extract " + entry.getName() + " from " + zipFile.getName() + " to " + targetFile.getPath(), e);
-		}
-	}
-}
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.dependencies;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.artifacts.ArtifactManager;
+import org.codehaus.mojo.cpp.compiler.settings.DependencyExtractionSettings;
+import org.codehaus.mojo.cpp.tools.FileLocker;
+import org.codehaus.mojo.cpp.tools.environment.Environment;
+import org.codehaus.plexus.util.FileUtils;
+
+
+public class DependencyExtractor {
+	private static final String VERSION_FILENAME = "version";
+	private static final String NOARCH_ENVIRONMENT_NAME = "noarch";
+	private static final int BUFFER_SIZE = 65536;
+
+	private final Log log;
+	private final DependencyExtractionSettings settings;
+	private final ArtifactManager artifactManager;
+	private final Set<DependencyIdentifier> securedDependencies = Collections.newSetFromMap(new ConcurrentHashMap<DependencyIdentifier, Boolean>());
+	private final ConcurrentMap<File, Object> destinationLocks = new ConcurrentHashMap<File, Object>();
+	private final ConcurrentMap<File, ArchiveIndex> archiveIndices = new ConcurrentHashMap<File, ArchiveIndex>();
+	private final ConcurrentMap<String, Future<Void>> backgroundExtractions = new ConcurrentHashMap<String, Future<Void>>();
+	private ExtractionStore extractionStore;
+
+	public DependencyExtractor(final Log log, final DependencyExtractionSettings settings, final ArtifactManager artifactManager) {
+		this.log = log;
+		this.settings = settings;
+		this.artifactManager = artifactManager;
+	}
+
+	/**
+	 * Waits for any extraction of the dependencies started in the background, and then makes sure all of them are extracted.
+	 */
+	public void secureAvailabilityOfExtractedDependencies(final DependencyType dependencyType, final Environment targetEnvironment) throws MojoExecutionException {
+		final Future<Void> backgroundExtraction = backgroundExtractions.get(getBackgroundExtractionKey(dependencyType, targetEnvironment));
+		if( backgroundExtraction != null )
+			awaitBackgroundExtraction(backgroundExtraction);
+
+		extractDependencies(dependencyType, targetEnvironment);
+	}
+
+	/**
+	 * Starts extracting the dependencies on a thread of its own, unless that has been done already.
+	 * Any failure is reported by {@link #secureAvailabilityOfExtractedDependencies(DependencyType, Environment)}.
+	 */
+	public void startExtractionInBackground(final DependencyType dependencyType, final Environment targetEnvironment) {
+		final FutureTask<Void> extraction = new FutureTask<Void>(new Callable<Void>() {
+			@Override
+			public Void call() throws MojoExecutionException {
+				extractDependencies(dependencyType, targetEnvironment);
+				return null;
+			}
+		});
+
+		if( backgroundExtractions.putIfAbsent(getBackgroundExtractionKey(dependencyType, targetEnvironment), extraction) != null )
+			return;
+
+		final Thread thread = new Thread(extraction, "Extraction of " + dependencyType + " for " + targetEnvironment.getCanonicalName());
+		thread.setDaemon(true);
+		thread.start();
+		log.debug("Started extracting " + dependencyType + " for " + targetEnvironment.getCanonicalName() + " in the background.");
+	}
+
+	private String getBackgroundExtractionKey(final DependencyType dependencyType, final Environment targetEnvironment) {
+		return dependencyType + ":" + targetEnvironment.getCanonicalName();
+	}
+
+	private void awaitBackgroundExtraction(final Future<Void> backgroundExtraction) throws MojoExecutionException {
+		try {
+			backgroundExtraction.get();
+		}
+		catch (ExecutionException e) {
+			if( e.getCause() instanceof MojoExecutionException )
+				throw (MojoExecutionException)e.getCause();
+
+			throw new MojoExecutionException("Failed to extract dependencies.", e.getCause());
+		}
+		catch (InterruptedException e) {
+			throw new MojoExecutionException("Interrupted while extracting dependencies.", e);
+		}
+	}
+
+	/**
+	 * Extracts the dependencies of several artifacts in parallel.
+	 */
+	private void extractDependencies(final DependencyType dependencyType, final Environment targetEnvironment) throws MojoExecutionException {
+		final Collection<Artifact> artifacts = artifactManager.getDependencyArtifacts();
+		if( artifacts.size() <= 1 ) {
+			for(Artifact artifact : artifacts)
+				secureAvailabilityOfExtractedDependencies(artifact, dependencyType, targetEnvironment);
+			return;
+		}
+
+		final ExecutorService extractors = Executors.newFixedThreadPool(Math.min(artifacts.size(), Runtime.getRuntime().availableProcessors()));
+		try {
+			final List<Future<Void>> extractions = new ArrayList<Future<Void>>();
+			for(final Artifact artifact : artifacts)
+				extractions.add(extractors.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws MojoExecutionException {
+						secureAvailabilityOfExtractedDependencies(artifact, dependencyType, targetEnvironment);
+						return null;
+					}
+				}));
+
+			for(Future<Void> extraction : extractions)
+				extraction.get();
+		}
+		catch (ExecutionException e) {
+			if( e.getCause() instanceof MojoExecutionException )
+				throw (MojoExecutionException)e.getCause();
+
+			throw new MojoExecutionException("Failed to extract dependencies.", e.getCause());
+		}
+		catch (InterruptedException e) {
+			throw new MojoExecutionException("Interrupted while extracting dependencies.", e);
+		}
+		finally {
+			extractors.shutdownNow();
+		}
+	}
+
+	boolean isUpdatedSnapshot(final Artifact artifact, final File destination) {
+		if( !artifact.isSnapshot() )
+			return false;
+		
+		return artifact.getFile().lastModified() > destination.lastModified();
+	}
+	
+	private void secureAvailabilityOfExtractedDependencies(final Artifact artifact, final DependencyType dependencyType, final Environment targetEnvironment) throws MojoExecutionException {
+		final Collection<DependencyIdentifier> deps = new ArrayList<DependencyIdentifier>();
+		deps.add(new DependencyIdentifier(artifact, dependencyType, NOARCH_ENVIRONMENT_NAME));
+		deps.add(new DependencyIdentifier(artifact, dependencyType, targetEnvironment.getCanonicalName()));
+		if ( securedDependencies.containsAll(deps) )
+			return;
+
+		final File destination = settings.getDirectoryForDependecyArtifactExtraction(artifact.getScope(), artifact.getGroupId(), artifact.getArtifactId());
+
+		synchronized (getLock(destination)) {
+			deps.removeAll(securedDependencies);
+			if( !deps.isEmpty() )
+				extractIntoDestination(artifact, deps, destination);
+		}
+	}
+
+	/**
+	 * All dependencies extracted into the same destination share a lock, since an outdated destination is deleted as a whole.
+	 */
+	private Object getLock(final File destination) {
+		final Object lock = new Object();
+		final Object previousLock = destinationLocks.putIfAbsent(destination, lock);
+		return previousLock != null ? previousLock : lock;
+	}
+
+	private void extractIntoDestination(final Artifact artifact, final Collection<DependencyIdentifier> deps, final File destination) throws MojoExecutionException {
+		if( destination.exists() && deleteDestinationIfInvalid(artifact, destination) )
+			updateDestination(artifact, destination);
+
+		if( !destination.exists() )
+			setupDestination(artifact, destination);
+
+		final Collection<DependencyIdentifier> depsToExtract = new ArrayList<DependencyIdentifier>();
+		for(DependencyIdentifier dep : deps)
+			if( !new File(destination, dep.getSubDirectoryName()).exists() )
+				depsToExtract.add(dep);
+
+		if( !depsToExtract.isEmpty() ) {
+			if( getExtractionStore() != null )
+				linkFromExtractionStore(artifact, depsToExtract, destination);
+			else
+				extractDependencies(artifact, depsToExtract, destination);
+		}
+
+		securedDependencies.addAll(deps);
+	}
+
+	/**
+	 * @return		The store dependencies are extracted into once per machine, or null if each project extracts its own
+	 */
+	private synchronized ExtractionStore getExtractionStore() throws MojoExecutionException {
+		if( extractionStore == null && settings.getExtractionStoreDirectory() != null ) {
+			extractionStore = new ExtractionStore(log, settings.getExtractionStoreDirectory(), settings.getExtractionStoreMaximumAge());
+			extractionStore.prune();
+		}
+
+		return extractionStore;
+	}
+
+	private void linkFromExtractionStore(final Artifact artifact, final Collection<DependencyIdentifier> deps, final File destination) throws MojoExecutionException {
+		final File artifactDirectory = getExtractionStore().getArtifactDirectory(artifact);
+		final FileLocker locker = getExtractionStore().createLocker(artifact);
+		locker.lock();
+		try {
+			final Collection<DependencyIdentifier> depsToExtract = new ArrayList<DependencyIdentifier>();
+			for(DependencyIdentifier dep : deps)
+				if( !getExtractionStore().isExtracted(artifactDirectory, dep.getSubDirectoryName()) ) {
+					deleteDirectory(new File(artifactDirectory, dep.getSubDirectoryName()));
+					depsToExtract.add(dep);
+				}
+
+			extractDependencies(artifact, depsToExtract, artifactDirectory);
+			for(DependencyIdentifier dep : depsToExtract)
+				getExtractionStore().markExtracted(artifactDirectory, dep.getSubDirectoryName());
+
+			getExtractionStore().markUsed(artifactDirectory);
+		}
+		finally {
+			locker.unlock();
+		}
+
+		final Collection<String> subDirectoryNames = new ArrayList<String>();
+		for(DependencyIdentifier dep : deps)
+			if( new File(artifactDirectory, dep.getSubDirectoryName()).exists() )
+				subDirectoryNames.add(dep.getSubDirectoryName());
+
+		getExtractionStore().link(artifactDirectory, subDirectoryNames, destination);
+	}
+
+	private void deleteDirectory(final File directory) throws MojoExecutionException {
+		try {
+			FileUtils.deleteDirectory(directory);
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to delete " + directory + ".", e);
+		}
+	}
+
+	/**
+	 * Extracts the subdirectories of all the dependencies in one pass over the archive, using the index of its entries.
+	 */
+	private void extractDependencies(final Artifact artifact, final Collection<DependencyIdentifier> deps, final File destination) throws MojoExecutionException {
+		if( deps.isEmpty() )
+			return;
+
+		ZipFile zipFile = null;
+		try {
+			final ArchiveIndex index = getArchiveIndex(artifact.getFile());
+			zipFile = new ZipFile(artifact.getFile());
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			for(DependencyIdentifier dep : deps)
+				for(ZipEntry entry : index.getEntries(dep.getSubDirectoryName()))
+					extractEntry(entry, zipFile, destination, buffer);
+		}
+		catch(IOException e) {
+			throw new MojoExecutionException("Failed to extract " + artifact + ".", e);
+		} 
+		finally {
+			close(zipFile);
+		}
+
+		log.debug("Extracted " + deps + " to " + destination);
+	}
+
+	/**
+	 * The index is kept for the whole build, since includes and libs are extracted at different times.
+	 */
+	private ArchiveIndex getArchiveIndex(final File archive) throws IOException {
+		ArchiveIndex index = archiveIndices.get(archive);
+		if( index == null ) {
+			index = new ArchiveIndex(archive);
+			archiveIndices.put(archive, index);
+		}
+
+		return index;
+	}
+
+	private void extractEntry(final ZipEntry entry, final ZipFile zipFile, final File destination, final byte[] buffer) throws MojoExecutionException {
+		final File targetFile = new File(destination, entry.getName()); 
+
+		if( entry.isDirectory() )
+			targetFile.mkdirs();
+		else
+			writeFile(zipFile, entry, targetFile, buffer);
+	}
+
+	/**
+	 * @return		True if the destination holds an older extraction of the same SNAPSHOT, which is to be updated in place
+	 */
+	private boolean deleteDestinationIfInvalid(final Artifact artifact, final File destination) throws MojoExecutionException {
+		try {
+			final File versionFile = new File(destination, VERSION_FILENAME);
+			if( !versionFile.exists() ) {
+				log.warn(destination + " will be cleaned. It contains no version file, which might indicate a previous failed extraction attempt.");
+				clean(destination);
+				return false;
+			}
+
+			final String previouslyExtractedVersion = FileUtils.fileRead(versionFile);
+			if(!previouslyExtractedVersion.equals(artifact.getVersion())) {
+				log.warn(destination + " will be cleaned. It contains version " + previouslyExtractedVersion + ", but the current dependency is to " + artifact.getVersion() + ".");
+				clean(destination);
+				return false;
+			}
+
+			if(isUpdatedSnapshot(artifact, destination)) {
+				if( getExtractionStore() == null ) {
+					log.info(destination + " will be updated. There is a newer SNAPSHOT version in local repository.");
+					return true;
+				}
+
+				log.info(destination + " will be cleaned. There is a newer SNAPSHOT version in local repository.");
+				clean(destination);
+			}
+		} 
+		catch (IOException e) {
+			throw new MojoExecutionException("Inspection and/or cleaning of " + destination + " failed.", e);
+		}
+
+		return false;
+	}
+
+	private void clean(final File destination) throws IOException {
+		ExtractionStore.removeLinks(destination);
+		FileUtils.deleteDirectory(destination);
+	}
+
+	/**
+	 * Brings every subdirectory extracted before up to date with the archive, leaving files whose size and CRC
+	 * are unchanged, and their timestamps, as they are. Thereby only what includes changed headers is recompiled.
+	 */
+	void updateDestination(final Artifact artifact, final File destination) throws MojoExecutionException {
+		ExtractionStore.removeLinks(destination);
+
+		ZipFile zipFile = null;
+		try {
+			final ArchiveIndex index = new ArchiveIndex(artifact.getFile());
+			archiveIndices.put(artifact.getFile(), index);
+			zipFile = new ZipFile(artifact.getFile());
+
+			final DifferentialUpdate update = new DifferentialUpdate(zipFile);
+			for(File environmentDirectory : listDirectories(destination))
+				for(File subDirectory : listDirectories(environmentDirectory))
+					update.synchronize(index.getEntries(environmentDirectory.getName() + "/" + subDirectory.getName()), destination, subDirectory);
+
+			log.info(destination + ": " + update.getNumberOfWrittenFiles() + " files updated, " + update.getNumberOfDeletedFiles() + " removed and " + update.getNumberOfUnchangedFiles() + " unchanged.");
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to update " + destination + " from " + artifact + ".", e);
+		}
+		finally {
+			close(zipFile);
+		}
+
+		destination.setLastModified(System.currentTimeMillis());
+	}
+
+	private File[] listDirectories(final File directory) {
+		final File[] directories = directory.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(final File file) {
+				return file.isDirectory();
+			}
+		});
+
+		return directories == null ? new File[0] : directories;
+	}
+
+	private void setupDestination(final Artifact artifact, final File destination) throws MojoExecutionException {
+		destination.mkdirs();
+
+		try {
+			FileUtils.fileWrite(destination.getPath() + "/" + VERSION_FILENAME, artifact.getVersion());
+		} 
+		catch (IOException e){
+			throw new MojoExecutionException("Failed to write version file.", e);
+		}
+	}
+
+	private void writeFile(final ZipFile zipFile, final ZipEntry entry, final File targetFile, final byte[] buffer) throws MojoExecutionException {
+		InputStream in = null;
+		OutputStream out = null;
+		try {
+			targetFile.getParentFile().mkdirs();
+			in = zipFile.getInputStream(entry);
+			out = new FileOutputStream(targetFile);
+
+			int bufferLength;
+			while ((bufferLength = in.read(buffer)) >= 0)
+				out.write(buffer, 0, bufferLength);
+
+			out.close();
+			out = null;
+			targetFile.setReadOnly();
+		} 
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to extract " + entry.getName() + " from " + zipFile.getName() + " to " + targetFile.getPath(), e);
+		}
+		finally {
+			close(in);
+			close(out);
+		}
+	}
+
+	/**
+	 * Synchronizes extracted subdirectories with the entries of an archive.
+	 */
+	private class DifferentialUpdate {
+		private final ZipFile zipFile;
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private int numberOfWrittenFiles = 0;
+		private int numberOfDeletedFiles = 0;
+		private int numberOfUnchangedFiles = 0;
+
+		public DifferentialUpdate(final ZipFile zipFile) {
+			this.zipFile = zipFile;
+		}
+
+		public void synchronize(final Collection<ZipEntry> entries, final File destination, final File subDirectory) throws IOException, MojoExecutionException {
+			final Map<String, ZipEntry> entriesToWrite = new HashMap<String, ZipEntry>();
+			for(ZipEntry entry : entries)
+				if( !entry.isDirectory() )
+					entriesToWrite.put(entry.getName(), entry);
+
+			synchronizeFiles(subDirectory, subDirectory.getParentFile().getName() + "/" + subDirectory.getName(), entriesToWrite);
+
+			for(ZipEntry entry : entriesToWrite.values()) {
+				writeFile(zipFile, entry, new File(destination, entry.getName()), buffer);
+				numberOfWrittenFiles++;
+			}
+		}
+
+		/**
+		 * Deletes files no longer in the archive, rewrites changed ones, and removes unchanged ones from the entries to write.
+		 */
+		private void synchronizeFiles(final File directory, final String entryPrefix, final Map<String, ZipEntry> entriesToWrite) throws IOException, MojoExecutionException {
+			final File[] files = directory.listFiles();
+			if( files == null )
+				return;
+
+			for(File file : files) {
+				final String entryName = entryPrefix + "/" + file.getName();
+				if( file.isDirectory() ) {
+					synchronizeFiles(file, entryName, entriesToWrite);
+					continue;
+				}
+
+				final ZipEntry entry = entriesToWrite.get(entryName);
+				if( entry != null && isUnchanged(file, entry) ) {
+					entriesToWrite.remove(entryName);
+					numberOfUnchangedFiles++;
+					continue;
+				}
+
+				if( !file.delete() )
+					throw new IOException("Failed to delete " + file + ".");
+
+				if( entry == null )
+					numberOfDeletedFiles++;
+			}
+		}
+
+		private boolean isUnchanged(final File file, final ZipEntry entry) throws IOException {
+			if( entry.getSize() != file.length() || entry.getCrc() < 0 )
+				return false;
+
+			final CRC32 crc = new CRC32();
+			InputStream in = null;
+			try {
+				in = new FileInputStream(file);
+				int length;
+				while( (length = in.read(buffer)) >= 0 )
+					crc.update(buffer, 0, length);
+			}
+			finally {
+				close(in);
+			}
+
+			return crc.getValue() == entry.getCrc();
+		}
+
+		public int getNumberOfWrittenFiles() {
+			return numberOfWrittenFiles;
+		}
+
+		public int getNumberOfDeletedFiles() {
+			return numberOfDeletedFiles;
+		}
+
+		public int getNumberOfUnchangedFiles() {
+			return numberOfUnchangedFiles;
+		}
+	}
+
+	private void close(final Closeable stream) {
+		if( stream == null )
+			return;
+
+		try {
+			stream.close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close stream.");
+		}
+	}
+
+	private void close(final ZipFile zipFile) {
+		if( zipFile == null )
+			return;
+
+		try {
+			zipFile.close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close " + zipFile.getName() + ".");
+		}
+	}
+}
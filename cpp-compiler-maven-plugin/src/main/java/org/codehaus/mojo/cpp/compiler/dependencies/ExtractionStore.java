@@ -0,0 +1,349 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.dependencies;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.tools.CliExecutor;
+import org.codehaus.mojo.cpp.tools.FileLocker;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Dependencies extracted once per machine, shared by all projects through symbolic links.<br/>
+ * Each artifact is extracted into a directory named by its groupId, artifactId, version and checksum, so that a
+ * rebuilt SNAPSHOT gets a directory of its own. Extraction is guarded by a lock file per artifact, which is
+ * shared with other Maven processes, and each extracted subdirectory is marked complete once fully written.<br/>
+ * Every use of an artifact directory is stamped, and directories left unused for longer than the maximum age are
+ * pruned. Projects still linking to a pruned directory find their links dangling, and have it extracted again.
+ */
+public class ExtractionStore {
+	private static final String LOCK_SUFFIX = ".lock";
+	private static final String EXTRACTED_SUFFIX = ".extracted";
+	private static final String USED_SUFFIX = ".used";
+	private static final String PRUNED_FILENAME = ".pruned";
+	private static final long PRUNING_INTERVAL_MILLISECONDS = 24L * 60 * 60 * 1000;
+
+	private final Log log;
+	private final File storeDirectory;
+	private final long maximumAge;
+	private final Map<File, String> checksums = new ConcurrentHashMap<File, String>();
+
+	/**
+	 * @param maximumAge		The time in milliseconds after which an artifact directory nobody has used is pruned
+	 */
+	public ExtractionStore(final Log log, final File storeDirectory, final long maximumAge) {
+		this.log = log;
+		this.storeDirectory = storeDirectory;
+		this.maximumAge = maximumAge;
+	}
+
+	/**
+	 * @return		The directory the artifact is extracted into
+	 */
+	public File getArtifactDirectory(final Artifact artifact) throws MojoExecutionException {
+		return new File(storeDirectory, artifact.getGroupId() + "/" + artifact.getArtifactId() + "/" + artifact.getVersion() + "/" + getChecksum(artifact.getFile()));
+	}
+
+	/**
+	 * @return		A lock guarding extraction of the artifact
+	 */
+	public FileLocker createLocker(final Artifact artifact) throws MojoExecutionException {
+		return new FileLocker(new File(getArtifactDirectory(artifact).getPath() + LOCK_SUFFIX));
+	}
+
+	public boolean isExtracted(final File artifactDirectory, final String subDirectoryName) {
+		return getMarker(artifactDirectory, subDirectoryName).exists();
+	}
+
+	public void markExtracted(final File artifactDirectory, final String subDirectoryName) throws MojoExecutionException {
+		final File marker = getMarker(artifactDirectory, subDirectoryName);
+		try {
+			marker.getParentFile().mkdirs();
+			if( !marker.exists() && !marker.createNewFile() )
+				throw new MojoExecutionException("Failed to create " + marker + ".");
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to create " + marker + ".", e);
+		}
+	}
+
+	/**
+	 * Records that the artifact directory is in use, so that it isn't pruned. Call while holding the lock of the artifact.
+	 */
+	public void markUsed(final File artifactDirectory) throws MojoExecutionException {
+		touch(getUsedStamp(artifactDirectory));
+	}
+
+	private void touch(final File stamp) throws MojoExecutionException {
+		try {
+			stamp.getParentFile().mkdirs();
+			if( !stamp.createNewFile() && !stamp.setLastModified(System.currentTimeMillis()) )
+				throw new MojoExecutionException("Failed to update " + stamp + ".");
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to create " + stamp + ".", e);
+		}
+	}
+
+	/**
+	 * Makes the extracted subdirectories appear in a project, running ln once for each directory the links are put in.
+	 */
+	public void link(final File artifactDirectory, final Collection<String> subDirectoryNames, final File destination) throws MojoExecutionException {
+		final Map<File, List<File>> storedDirectoriesByLinkDirectory = new LinkedHashMap<File, List<File>>();
+		for(String subDirectoryName : subDirectoryNames) {
+			final File linkDirectory = new File(destination, subDirectoryName).getParentFile();
+			if( !storedDirectoriesByLinkDirectory.containsKey(linkDirectory) )
+				storedDirectoriesByLinkDirectory.put(linkDirectory, new ArrayList<File>());
+
+			storedDirectoriesByLinkDirectory.get(linkDirectory).add(new File(artifactDirectory, subDirectoryName));
+		}
+
+		for(Map.Entry<File, List<File>> entry : storedDirectoriesByLinkDirectory.entrySet())
+			link(entry.getValue(), entry.getKey());
+	}
+
+	private void link(final List<File> storedDirectories, final File linkDirectory) throws MojoExecutionException {
+		linkDirectory.mkdirs();
+		final CliExecutor executor = new CliExecutor(log);
+		executor.initialize(linkDirectory, "ln");
+		executor.getCommandline().createArg().setValue("-sf");
+		for(File storedDirectory : storedDirectories)
+			executor.getCommandline().createArg().setValue(storedDirectory.getAbsolutePath());
+		executor.getCommandline().createArg().setValue(".");
+
+		try {
+			executor.execute();
+		}
+		catch (MojoFailureException e) {
+			throw new MojoExecutionException("Failed to link " + storedDirectories + " into " + linkDirectory + ".", e);
+		}
+
+		log.debug("Linked " + storedDirectories + " into " + linkDirectory);
+	}
+
+	/**
+	 * Deletes the artifact directories nobody has used for longer than the maximum age.
+	 * This is done at most once a day, by whichever build gets there first.
+	 */
+	public void prune() throws MojoExecutionException {
+		final File prunedStamp = new File(storeDirectory, PRUNED_FILENAME);
+		if( System.currentTimeMillis() - prunedStamp.lastModified() < PRUNING_INTERVAL_MILLISECONDS )
+			return;
+
+		final FileLocker locker = new FileLocker(new File(storeDirectory, PRUNED_FILENAME + LOCK_SUFFIX));
+		locker.lock();
+		try {
+			if( System.currentTimeMillis() - prunedStamp.lastModified() < PRUNING_INTERVAL_MILLISECONDS )
+				return;
+
+			int numberOfPrunedDirectories = 0;
+			for(File groupDirectory : listDirectories(storeDirectory))
+				for(File artifactIdDirectory : listDirectories(groupDirectory))
+					for(File versionDirectory : listDirectories(artifactIdDirectory))
+						for(File artifactDirectory : listDirectories(versionDirectory))
+							if( pruneIfUnused(artifactDirectory) )
+								numberOfPrunedDirectories++;
+
+			if( numberOfPrunedDirectories > 0 )
+				log.info("Pruned " + numberOfPrunedDirectories + " extracted dependencies not used for " + maximumAge / PRUNING_INTERVAL_MILLISECONDS + " days from " + storeDirectory + ".");
+
+			touch(prunedStamp);
+		}
+		finally {
+			locker.unlock();
+		}
+	}
+
+	/**
+	 * The lock file is kept, since deleting it could let two processes extract into the directory at once.
+	 */
+	private boolean pruneIfUnused(final File artifactDirectory) throws MojoExecutionException {
+		if( !isUnused(artifactDirectory) )
+			return false;
+
+		final FileLocker locker = new FileLocker(new File(artifactDirectory.getPath() + LOCK_SUFFIX));
+		locker.lock();
+		try {
+			if( !isUnused(artifactDirectory) )
+				return false;
+
+			FileUtils.deleteDirectory(artifactDirectory);
+			getUsedStamp(artifactDirectory).delete();
+			log.debug("Pruned " + artifactDirectory);
+			return true;
+		}
+		catch (IOException e) {
+			log.warn("Failed to prune " + artifactDirectory + ": " + e.getMessage());
+			return false;
+		}
+		finally {
+			locker.unlock();
+		}
+	}
+
+	/**
+	 * Directories extracted before uses were stamped count as used when they were last modified.
+	 */
+	private boolean isUnused(final File artifactDirectory) {
+		final File stamp = getUsedStamp(artifactDirectory);
+		final long lastUsed = stamp.exists() ? stamp.lastModified() : artifactDirectory.lastModified();
+		return System.currentTimeMillis() - lastUsed > maximumAge;
+	}
+
+	private File[] listDirectories(final File directory) {
+		final File[] directories = directory.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(final File file) {
+				return file.isDirectory();
+			}
+		});
+
+		return directories != null ? directories : new File[0];
+	}
+
+	/**
+	 * Removes all symbolic links below a directory, so that it can be deleted without touching what the links point to.
+	 */
+	public static void removeLinks(final File directory) {
+		final File[] children = directory.listFiles();
+		if( children == null )
+			return;
+
+		for(File child : children) {
+			if( isSymbolicLink(child) )
+				child.delete();
+			else if( child.isDirectory() )
+				removeLinks(child);
+		}
+	}
+
+	private static boolean isSymbolicLink(final File file) {
+		try {
+			final File canonicalParent = file.getAbsoluteFile().getParentFile().getCanonicalFile();
+			return !new File(canonicalParent, file.getName()).getCanonicalFile().equals(new File(canonicalParent, file.getName()));
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+	private File getUsedStamp(final File artifactDirectory) {
+		return new File(artifactDirectory.getPath() + USED_SUFFIX);
+	}
+
+	private File getMarker(final File artifactDirectory, final String subDirectoryName) {
+		return new File(artifactDirectory, subDirectoryName + EXTRACTED_SUFFIX);
+	}
+
+	/**
+	 * Uses the checksum the repository keeps next to the artifact if there is one, and calculates it otherwise.
+	 */
+	private String getChecksum(final File artifactFile) throws MojoExecutionException {
+		String checksum = checksums.get(artifactFile);
+		if( checksum == null ) {
+			checksum = readRepositoryChecksum(artifactFile);
+			if( checksum == null )
+				checksum = calculateChecksum(artifactFile);
+
+			checksums.put(artifactFile, checksum);
+		}
+
+		return checksum;
+	}
+
+	private String readRepositoryChecksum(final File artifactFile) {
+		final File checksumFile = new File(artifactFile.getPath() + ".sha1");
+		if( !checksumFile.isFile() || checksumFile.lastModified() < artifactFile.lastModified() )
+			return null;
+
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new FileReader(checksumFile));
+			final String line = reader.readLine();
+			if( line == null )
+				return null;
+
+			final String checksum = line.trim().split("\\s+")[0].toLowerCase();
+			return checksum.matches("[0-9a-f]{40}") ? checksum : null;
+		}
+		catch (IOException e) {
+			return null;
+		}
+		finally {
+			close(reader);
+		}
+	}
+
+	private String calculateChecksum(final File artifactFile) throws MojoExecutionException {
+		InputStream in = null;
+		try {
+			final MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
+			in = new FileInputStream(artifactFile);
+			final byte[] buffer = new byte[65536];
+			int length;
+			while( (length = in.read(buffer)) >= 0 )
+				messageDigest.update(buffer, 0, length);
+
+			final StringBuilder hex = new StringBuilder();
+			for(byte b : messageDigest.digest())
+				hex.append(String.format("%02x", b));
+
+			return hex.toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new MojoExecutionException("SHA-1 is not available.", e);
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to calculate checksum of " + artifactFile + ".", e);
+		}
+		finally {
+			close(in);
+		}
+	}
+
+	private void close(final Closeable stream) {
+		if( stream == null )
+			return;
+
+		try {
+			stream.close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close stream.");
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.files;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Remembers a fingerprint of the command each output was built with, so that outputs built differently can be rebuilt.<br/>
+ * The fingerprints are kept in a properties file, and only written if changed.
+ */
+public class FingerprintStore {
+	private final Log log;
+	private final File storeFile;
+	private final Map<String, String> fingerprints = new ConcurrentHashMap<String, String>();
+	private volatile boolean modified = false;
+
+	public FingerprintStore(final Log log, final File storeFile) {
+		this.log = log;
+		this.storeFile = storeFile;
+		load();
+	}
+
+	/**
+	 * @return		The recorded fingerprint, or null if there is none
+	 */
+	public String get(final String key) {
+		return fingerprints.get(key);
+	}
+
+	public void put(final String key, final String fingerprint) {
+		if( fingerprint.equals(fingerprints.put(key, fingerprint)) )
+			return;
+
+		modified = true;
+	}
+
+	public void remove(final String key) {
+		if( fingerprints.remove(key) != null )
+			modified = true;
+	}
+
+	public synchronized void save() {
+		if( !modified )
+			return;
+
+		final Properties properties = new Properties();
+		properties.putAll(fingerprints);
+
+		OutputStream out = null;
+		try {
+			storeFile.getParentFile().mkdirs();
+			out = new FileOutputStream(storeFile);
+			properties.store(out, "Command fingerprints");
+			modified = false;
+		}
+		catch (IOException e) {
+			log.warn("Failed to write command fingerprints to " + storeFile + ".");
+		}
+		finally {
+			close(out);
+		}
+	}
+
+	/**
+	 * @return		A hex encoded digest of the given command parts
+	 */
+	public static String fingerprint(final Iterable<String> commandParts) {
+		try {
+			final MessageDigest digest = MessageDigest.getInstance("MD5");
+			for(String part : commandParts) {
+				digest.update(part.getBytes("UTF-8"));
+				digest.update((byte)0);
+			}
+
+			final StringBuilder hex = new StringBuilder();
+			for(byte b : digest.digest())
+				hex.append(String.format("%02x", b));
+
+			return hex.toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("MD5 is not available.", e);
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException("UTF-8 is not available.", e);
+		}
+	}
+
+	private void load() {
+		if( !storeFile.exists() )
+			return;
+
+		final Properties properties = new Properties();
+		InputStream in = null;
+		try {
+			in = new FileInputStream(storeFile);
+			properties.load(in);
+
+			for(String key : properties.stringPropertyNames())
+				fingerprints.put(key, properties.getProperty(key));
+		}
+		catch (IOException e) {
+			log.warn("Failed to read command fingerprints from " + storeFile + ". They will be recorded anew.");
+		}
+		finally {
+			close(in);
+		}
+	}
+
+	private void close(final Closeable stream) {
+		if( stream == null )
+			return;
+
+		try {
+			stream.close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close " + storeFile + ".");
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.jobs;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the processors and memory available to the build, honouring the limits of the control group
+ * it runs in, e.g. the CPU quota and memory limit of a Kubernetes pod. Both cgroup v1 and v2 are read.
+ */
+public class ContainerResources {
+	private static final File CGROUP_DIRECTORY = new File("/sys/fs/cgroup");
+	private static final File SELF_CGROUP_FILE = new File("/proc/self/cgroup");
+	private static final long UNLIMITED = -1;
+
+	private ContainerResources() {
+	}
+
+	/**
+	 * @return		The number of processors the CPU quota corresponds to, rounded up, and never more than the JVM sees
+	 */
+	public static int getNumberOfProcessors() {
+		return getNumberOfProcessors(CGROUP_DIRECTORY, SELF_CGROUP_FILE, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param cgroupDirectory		Where the cgroup hierarchies are mounted
+	 * @param selfCgroupFile		The groups of this process, as listed by /proc/self/cgroup
+	 */
+	static int getNumberOfProcessors(final File cgroupDirectory, final File selfCgroupFile, final int availableProcessors) {
+		long quota = UNLIMITED;
+		long period = UNLIMITED;
+		final String cpuMax = readFirstLine(findControllerFile(cgroupDirectory, selfCgroupFile, "", "cpu.max"));
+		if( cpuMax != null ) {
+			final String[] fields = cpuMax.split(" ");
+			quota = parseLimit(fields[0]);
+			period = fields.length > 1 ? parseLimit(fields[1]) : UNLIMITED;
+		}
+		else {
+			quota = parseLimit(readFirstLine(findControllerFile(cgroupDirectory, selfCgroupFile, "cpu", "cpu.cfs_quota_us")));
+			period = parseLimit(readFirstLine(findControllerFile(cgroupDirectory, selfCgroupFile, "cpu", "cpu.cfs_period_us")));
+		}
+
+		if( quota <= 0 || period <= 0 )
+			return availableProcessors;
+
+		return (int)Math.max(1, Math.min(availableProcessors, (quota + period - 1) / period));
+	}
+
+	/**
+	 * @return		The memory limit of the control group, or the physical memory if that is less or there is no limit, or -1 if neither is known
+	 */
+	public static long getMemoryLimit() {
+		return getMemoryLimit(CGROUP_DIRECTORY, SELF_CGROUP_FILE, getPhysicalMemory());
+	}
+
+	/**
+	 * @param cgroupDirectory		Where the cgroup hierarchies are mounted
+	 * @param selfCgroupFile		The groups of this process, as listed by /proc/self/cgroup
+	 * @param physicalMemory		The physical memory in bytes, or -1 if it isn't known
+	 */
+	static long getMemoryLimit(final File cgroupDirectory, final File selfCgroupFile, final long physicalMemory) {
+		long limit = parseLimit(readFirstLine(findControllerFile(cgroupDirectory, selfCgroupFile, "", "memory.max")));
+		if( limit <= 0 )
+			limit = parseLimit(readFirstLine(findControllerFile(cgroupDirectory, selfCgroupFile, "memory", "memory.limit_in_bytes")));
+
+		if( limit <= 0 || (physicalMemory > 0 && limit > physicalMemory) )
+			return physicalMemory;
+
+		return limit;
+	}
+
+	private static long getPhysicalMemory() {
+		for(String line : readLines(new File("/proc/meminfo"))) {
+			if( !line.startsWith("MemTotal:") )
+				continue;
+
+			final String[] fields = line.substring("MemTotal:".length()).trim().split("\\s+");
+			final long kiloBytes = parseLimit(fields[0]);
+			return kiloBytes > 0 ? kiloBytes * 1024 : UNLIMITED;
+		}
+
+		return UNLIMITED;
+	}
+
+	/**
+	 * Looks in the group of this process first, since the group is only the root of the hierarchy when the container has its own cgroup namespace.
+	 *
+	 * @param controller	The cgroup v1 controller, or an empty string for the unified cgroup v2 hierarchy
+	 */
+	private static File findControllerFile(final File cgroupDirectory, final File selfCgroupFile, final String controller, final String fileName) {
+		final File hierarchy = controller.isEmpty() ? cgroupDirectory : new File(cgroupDirectory, controller);
+
+		for(String line : readLines(selfCgroupFile)) {
+			final String[] fields = line.split(":", 3);
+			if( fields.length < 3 )
+				continue;
+
+			final boolean matchesController = controller.isEmpty() ? fields[0].equals("0") : ("," + fields[1] + ",").contains("," + controller + ",");
+			if( !matchesController )
+				continue;
+
+			final File groupFile = new File(new File(hierarchy, fields[2]), fileName);
+			if( groupFile.isFile() )
+				return groupFile;
+		}
+
+		return new File(hierarchy, fileName);
+	}
+
+	/**
+	 * @return		The value, or -1 for "max", for values too large to be a real limit, and for anything unparseable
+	 */
+	private static long parseLimit(final String value) {
+		if( value == null )
+			return UNLIMITED;
+
+		try {
+			final long limit = Long.parseLong(value.trim());
+			return limit <= 0 || limit >= Long.MAX_VALUE / 2 ? UNLIMITED : limit;
+		}
+		catch (NumberFormatException e) {
+			return UNLIMITED;
+		}
+	}
+
+	private static String readFirstLine(final File file) {
+		final List<String> lines = readLines(file);
+		return lines.isEmpty() ? null : lines.get(0);
+	}
+
+	private static List<String> readLines(final File file) {
+		final List<String> lines = new ArrayList<String>();
+		if( !file.isFile() )
+			return lines;
+
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "US-ASCII"));
+			String line;
+			while( (line = reader.readLine()) != null )
+				lines.add(line);
+		}
+		catch (IOException e) {
+			lines.clear();
+		}
+		finally {
+			if( reader != null ) {
+				try {
+					reader.close();
+				}
+				catch (IOException e) {
+				}
+			}
+		}
+
+		return lines;
+	}
+}
@@ -0,0 +1,50 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.jobs;
+
+/**
+ * Limits the number of compiler and linker processes running at the same time.<br/>
+ * A budget may be shared by several target environments built concurrently.
+ */
+public interface JobBudget {
+	/**
+	 * Blocks until a job may be started.
+	 */
+	void acquire() throws InterruptedException;
+
+	/**
+	 * Blocks until a job expected to need the given amount of memory may be started.
+	 *
+	 * @param expectedMemory	The expected peak memory of the job in bytes, or 0 if unknown
+	 */
+	void acquire(long expectedMemory) throws InterruptedException;
+
+	/**
+	 * Returns a job slot taken with {@link #acquire()}.
+	 */
+	void release();
+
+	/**
+	 * Returns a job slot taken with {@link #acquire(long)}.
+	 */
+	void release(long expectedMemory);
+
+	/**
+	 * @return		The maximum number of jobs running at the same time
+	 */
+	int getNumberOfJobs();
+}
@@ -0,0 +1,310 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.jobs;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.tools.CliExecutor;
+
+/**
+ * Takes part in the GNU make jobserver protocol, so that make, gcc -flto=jobserver and the builds of all
+ * modules of a reactor share one limit on the number of jobs.<br/>
+ * Every process holds one implicit job. For each further job a token byte is read from the jobserver,
+ * and written back when the job is done. A jobserver is either inherited through MAKEFLAGS, as a named
+ * pipe (make 4.4 and later) or as a pair of file descriptors, or served by this JVM for the Maven session.
+ * Only a named pipe can be handed on to the compilers and linkers, since Java doesn't let child processes
+ * inherit file descriptors.<br/>
+ * Should the jobserver fail, jobs are only limited by the local budget of this build from then on.
+ */
+public class Jobserver {
+	private static final Pattern AUTH_PATTERN = Pattern.compile("--jobserver-(?:auth|fds)=(\\S+)");
+	private static final byte TOKEN = '+';
+	private static Jobserver sessionJobserver = null;
+	private static Jobserver inheritedJobserver = null;
+	private static boolean environmentRead = false;
+
+	private final Log log;
+	private final File readFile;
+	private final RandomAccessFile writer;
+	private final String makeflags;
+	private final ConcurrentLinkedQueue<Byte> heldTokens = new ConcurrentLinkedQueue<Byte>();
+	private boolean implicitTokenInUse = false;
+	private int numberOfJobsWithoutToken = 0;
+	private volatile boolean failed = false;
+
+	private Jobserver(final Log log, final File readFile, final File writeFile, final String makeflags) throws IOException {
+		this.log = log;
+		this.readFile = readFile;
+		this.writer = new RandomAccessFile(writeFile, "rw");
+		this.makeflags = makeflags;
+	}
+
+	/**
+	 * Connects to the jobserver advertised in MAKEFLAGS once per JVM, since this process holds one implicit job however many modules it builds.
+	 *
+	 * @return		The jobserver advertised in MAKEFLAGS, or null if there is none or it isn't reachable from this process
+	 */
+	public static synchronized Jobserver getInheritedJobserver(final Log log) {
+		if( !environmentRead ) {
+			inheritedJobserver = fromMakeflags(log, System.getenv("MAKEFLAGS"), new File("/proc/self/fd"));
+			environmentRead = true;
+		}
+
+		return inheritedJobserver;
+	}
+
+	/**
+	 * @param descriptorDirectory		The directory the file descriptors of this process can be opened through
+	 * @return							The jobserver advertised in the flags, or null if there is none or it isn't reachable from this process
+	 */
+	static Jobserver fromMakeflags(final Log log, final String makeflags, final File descriptorDirectory) {
+		if( makeflags == null )
+			return null;
+
+		final Matcher matcher = AUTH_PATTERN.matcher(makeflags);
+		if( !matcher.find() )
+			return null;
+
+		final String auth = matcher.group(1);
+		try {
+			if( auth.startsWith("fifo:") ) {
+				final File fifo = new File(auth.substring("fifo:".length()));
+				log.info("Sharing jobs with the jobserver at " + fifo + ".");
+				return new Jobserver(log, fifo, fifo, makeflags);
+			}
+
+			final String[] descriptors = auth.split(",");
+			final File readFile = new File(descriptorDirectory, descriptors[0]);
+			final File writeFile = new File(descriptorDirectory, descriptors.length > 1 ? descriptors[1] : descriptors[0]);
+			if( !readFile.exists() || !writeFile.exists() ) {
+				log.warn("MAKEFLAGS names a jobserver, but its file descriptors weren't passed on. Prefix the command running Maven with + in the makefile to share jobs with make.");
+				return null;
+			}
+
+			log.info("Sharing jobs with the jobserver of the calling make.");
+			return new Jobserver(log, readFile, writeFile, null);
+		}
+		catch (IOException e) {
+			log.warn("Failed to connect to the jobserver in MAKEFLAGS. Jobs are only limited by this build.");
+			return null;
+		}
+	}
+
+	/**
+	 * Serves a jobserver through a named pipe, once per JVM, so that all modules built by a Maven session share it.
+	 *
+	 * @param numberOfJobs	The number of jobs of the session, which is only used by the first caller
+	 */
+	public static synchronized Jobserver getSessionJobserver(final Log log, final int numberOfJobs) throws MojoExecutionException {
+		if( sessionJobserver != null )
+			return sessionJobserver;
+
+		final File fifo;
+		try {
+			fifo = File.createTempFile("cpp-jobserver", ".fifo");
+			fifo.delete();
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to choose a name for the jobserver named pipe.", e);
+		}
+
+		final CliExecutor executor = new CliExecutor(log);
+		executor.initialize(null, "mkfifo");
+		executor.getCommandline().createArg().setValue("-m");
+		executor.getCommandline().createArg().setValue("600");
+		executor.getCommandline().createArg().setValue(fifo.getPath());
+		try {
+			executor.execute();
+		}
+		catch (MojoFailureException e) {
+			throw new MojoExecutionException("Failed to create the jobserver named pipe " + fifo + ".", e);
+		}
+		fifo.deleteOnExit();
+
+		try {
+			// The pipe is kept open for writing, so that opening it for reading never waits and reading never sees its end
+			final Jobserver jobserver = new Jobserver(log, fifo, fifo, "-j" + numberOfJobs + " --jobserver-auth=fifo:" + fifo.getPath());
+			for(int i = 1; i < numberOfJobs; i++)
+				jobserver.writer.write(TOKEN);
+
+			log.info("Serving " + numberOfJobs + " jobs to all modules of this session through " + fifo + ".");
+			sessionJobserver = jobserver;
+			return jobserver;
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to fill the jobserver named pipe " + fifo + ".", e);
+		}
+	}
+
+	/**
+	 * @return		A budget only starting the jobs the local budget allows, when there is a token for them
+	 */
+	public JobBudget createJobBudget(final JobBudget localBudget) {
+		return new JobserverJobBudget(localBudget);
+	}
+
+	/**
+	 * Passes the jobserver on to a compiler or linker, if it is a named pipe.
+	 */
+	public void export(final CliExecutor executor) {
+		if( makeflags != null )
+			executor.getCommandline().addEnvironment("MAKEFLAGS", makeflags);
+	}
+
+	/**
+	 * Reading through a channel of its own lets an interrupted thread give up waiting without closing the pipe for others.
+	 */
+	private void acquireToken() throws InterruptedException {
+		synchronized (this) {
+			if( !implicitTokenInUse ) {
+				implicitTokenInUse = true;
+				return;
+			}
+
+			if( failed ) {
+				numberOfJobsWithoutToken++;
+				return;
+			}
+		}
+
+		FileInputStream in = null;
+		final ByteBuffer token = ByteBuffer.allocate(1);
+		try {
+			in = new FileInputStream(readFile);
+			final FileChannel channel = in.getChannel();
+			while( token.hasRemaining() )
+				if( channel.read(token) < 0 )
+					throw new IOException("The jobserver was closed.");
+
+			heldTokens.add(token.get(0));
+		}
+		catch (ClosedByInterruptException e) {
+			// The interrupt may have closed the channel after the token was read
+			if( token.position() == 1 )
+				writeToken(token.get(0));
+
+			throw new InterruptedException("Interrupted while waiting for a jobserver token.");
+		}
+		catch (IOException e) {
+			synchronized (this) {
+				if( !failed )
+					log.warn("Failed to read a token from the jobserver: " + e.getMessage() + " Jobs are only limited by this build from now on.");
+
+				failed = true;
+				numberOfJobsWithoutToken++;
+			}
+		}
+		finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Which job returns which token doesn't matter, only that as many are returned as were taken.
+	 */
+	private void releaseToken() {
+		final Byte token = heldTokens.poll();
+		if( token != null ) {
+			writeToken(token);
+			return;
+		}
+
+		synchronized (this) {
+			if( numberOfJobsWithoutToken > 0 )
+				numberOfJobsWithoutToken--;
+			else
+				implicitTokenInUse = false;
+		}
+	}
+
+	private void writeToken(final byte token) {
+		try {
+			synchronized (writer) {
+				writer.write(token);
+			}
+		}
+		catch (IOException e) {
+			log.warn("Failed to return a token to the jobserver.");
+		}
+	}
+
+	private void close(final FileInputStream in) {
+		if( in == null )
+			return;
+
+		try {
+			in.close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close " + readFile + ".");
+		}
+	}
+
+	private class JobserverJobBudget implements JobBudget {
+		private final JobBudget localBudget;
+
+		public JobserverJobBudget(final JobBudget localBudget) {
+			this.localBudget = localBudget;
+		}
+
+		@Override
+		public void acquire() throws InterruptedException {
+			acquire(0);
+		}
+
+		@Override
+		public void acquire(final long expectedMemory) throws InterruptedException {
+			localBudget.acquire(expectedMemory);
+			try {
+				acquireToken();
+			}
+			catch (InterruptedException e) {
+				localBudget.release(expectedMemory);
+				throw e;
+			}
+		}
+
+		@Override
+		public void release() {
+			release(0);
+		}
+
+		@Override
+		public void release(final long expectedMemory) {
+			releaseToken();
+			localBudget.release(expectedMemory);
+		}
+
+		@Override
+		public int getNumberOfJobs() {
+			return localBudget.getNumberOfJobs();
+		}
+	}
+}
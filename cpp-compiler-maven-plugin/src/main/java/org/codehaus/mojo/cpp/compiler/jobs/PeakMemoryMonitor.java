@@ -0,0 +1,199 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.jobs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.mojo.cpp.tools.ProcessTree;
+
+/**
+ * Learns the peak memory of compiling each source file by watching the processes started by this JVM.<br/>
+ * The processes are sampled in /proc a few times a second. Any process with a source file among its arguments,
+ * e.g. cc1plus, has its peak resident set size attributed to that file. Processes living shorter than the sampling
+ * interval are missed, but those don't use much memory.
+ */
+public class PeakMemoryMonitor {
+	private static final long SAMPLING_INTERVAL = 200;
+
+	private final Log log;
+	private final ConcurrentMap<String, Long> peakMemory = new ConcurrentHashMap<String, Long>();
+	private Thread thread;
+	private volatile boolean stopped = false;
+
+	public PeakMemoryMonitor(final Log log) {
+		this.log = log;
+	}
+
+	/**
+	 * @return		True if the processes can be watched on this host
+	 */
+	public synchronized boolean start() {
+		final long ownPid = ProcessTree.getOwnPid();
+		if( ownPid <= 0 ) {
+			log.debug("No /proc file system. The memory used by compilers is not learned.");
+			return false;
+		}
+
+		thread = new Thread("Peak memory monitor") {
+			@Override
+			public void run() {
+				while( !stopped ) {
+					for(Long pid : ProcessTree.findDescendants(ownPid))
+						sample(pid);
+
+					try {
+						Thread.sleep(SAMPLING_INTERVAL);
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+		return true;
+	}
+
+	public synchronized void stop() {
+		stopped = true;
+		if( thread != null )
+			thread.interrupt();
+	}
+
+	/**
+	 * @return		The highest peak memory seen in bytes for the file since the monitor was started, or 0 if none was seen
+	 */
+	public long getPeakMemory(final NativeCodeFile file) {
+		final Long memory = peakMemory.get(getKey(file.getSourceFile()));
+		return memory != null ? memory : 0;
+	}
+
+	/**
+	 * Source files are identified by the canonical path of their directory, since compilers are run in it with just the file name.
+	 */
+	public static String getKey(final File sourceFile) {
+		try {
+			return new File(sourceFile.getParentFile().getCanonicalFile(), sourceFile.getName()).getPath();
+		}
+		catch (IOException e) {
+			return sourceFile.getAbsolutePath();
+		}
+	}
+
+	private void sample(final long pid) {
+		final File processDirectory = new File("/proc/" + pid);
+		final List<String> sourceArguments = getSourceArguments(readFile(new File(processDirectory, "cmdline")));
+		if( sourceArguments.isEmpty() )
+			return;
+
+		final long memory = readPeakResidentSetSize(readFile(new File(processDirectory, "status")));
+		if( memory <= 0 )
+			return;
+
+		final File workingDirectory = new File(processDirectory, "cwd");
+		for(String sourceArgument : sourceArguments) {
+			final File sourceFile = new File(sourceArgument).isAbsolute() ? new File(sourceArgument) : new File(workingDirectory, sourceArgument);
+			final String key = getKey(sourceFile);
+
+			Long previousMemory = peakMemory.putIfAbsent(key, memory);
+			while( previousMemory != null && previousMemory < memory && !peakMemory.replace(key, previousMemory, memory) )
+				previousMemory = peakMemory.get(key);
+		}
+	}
+
+	private List<String> getSourceArguments(final String commandLine) {
+		final List<String> sourceArguments = new ArrayList<String>();
+		if( commandLine == null )
+			return sourceArguments;
+
+		for(String argument : commandLine.split("\0")) {
+			if( argument.startsWith("-") )
+				continue;
+
+			for(String suffix : NativeCodeFile.SOURCE_SUFFIXES)
+				if( argument.endsWith(suffix) ) {
+					sourceArguments.add(argument);
+					break;
+				}
+		}
+
+		return sourceArguments;
+	}
+
+	/**
+	 * @return		The VmHWM of the process in bytes, or 0 if it is gone
+	 */
+	private long readPeakResidentSetSize(final String status) {
+		if( status == null )
+			return 0;
+
+		for(String line : status.split("\n")) {
+			if( !line.startsWith("VmHWM:") )
+				continue;
+
+			try {
+				return Long.parseLong(line.substring("VmHWM:".length()).trim().split("\\s+")[0]) * 1024;
+			}
+			catch (NumberFormatException e) {
+				return 0;
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * @return		The content of a file in /proc, or null if the process is gone
+	 */
+	private String readFile(final File file) {
+		InputStream in = null;
+		try {
+			in = new FileInputStream(file);
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[4096];
+			int read;
+			while( (read = in.read(buffer)) > 0 )
+				content.write(buffer, 0, read);
+
+			return content.toString("UTF-8");
+		}
+		catch (IOException e) {
+			return null;
+		}
+		finally {
+			if( in != null ) {
+				try {
+					in.close();
+				}
+				catch (IOException e) {
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.jobs;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Shares a memory budget between compiler and linker jobs.<br/>
+ * A job is only started while the expected peak memory of all running jobs, its own included, stays
+ * within the budget. A job expected to need more than the whole budget is started once nothing else runs.
+ * Each {@link JobBudget} created limits the number of its jobs on top of that.
+ */
+public class ResourceGovernor {
+	/**
+	 * Assumed for jobs whose memory use isn't known, e.g. links and files never compiled before.
+	 */
+	public static final long DEFAULT_JOB_MEMORY = 512L * 1024 * 1024;
+
+	private static ResourceGovernor sessionGovernor = null;
+	private static boolean containerRead = false;
+
+	private final Log log;
+	private final long memoryBudget;
+	private final ReentrantLock lock = new ReentrantLock(true);
+	private final Condition jobFinished = lock.newCondition();
+	private long reservedMemory = 0;
+	private int numberOfRunningJobs = 0;
+
+	public ResourceGovernor(final Log log, final long memoryBudget) {
+		this.log = log;
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * Governs the memory of the container once per JVM, so that modules built at the same time by a Maven session
+	 * share one budget rather than each claiming most of the container.
+	 *
+	 * @return		The governor for the memory available to the session, or null if the memory limit can't be determined
+	 */
+	public static synchronized ResourceGovernor getSessionGovernor(final Log log) {
+		if( !containerRead ) {
+			sessionGovernor = createForContainer(log);
+			containerRead = true;
+		}
+
+		return sessionGovernor;
+	}
+
+	/**
+	 * Leaves a tenth of the memory limit of the container, and the memory held by this JVM, for everything else.
+	 */
+	private static ResourceGovernor createForContainer(final Log log) {
+		final long memoryLimit = ContainerResources.getMemoryLimit();
+		if( memoryLimit <= 0 )
+			return null;
+
+		final long memoryBudget = Math.max(DEFAULT_JOB_MEMORY, memoryLimit / 10 * 9 - Runtime.getRuntime().totalMemory());
+		log.info("Starting compiler and linker jobs within a memory budget of " + memoryBudget / (1024 * 1024) + " MB.");
+		return new ResourceGovernor(log, memoryBudget);
+	}
+
+	public JobBudget createJobBudget(final int numberOfJobs) {
+		return new GovernedJobBudget(numberOfJobs);
+	}
+
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	private class GovernedJobBudget implements JobBudget {
+		private final int numberOfJobs;
+		private int numberOfStartedJobs = 0;
+
+		public GovernedJobBudget(final int numberOfJobs) {
+			this.numberOfJobs = numberOfJobs;
+		}
+
+		@Override
+		public void acquire() throws InterruptedException {
+			acquire(0);
+		}
+
+		@Override
+		public void acquire(final long expectedMemory) throws InterruptedException {
+			final long memory = getMemory(expectedMemory);
+			lock.lockInterruptibly();
+			try {
+				while( numberOfStartedJobs >= numberOfJobs || (numberOfRunningJobs > 0 && reservedMemory + memory > memoryBudget) ) {
+					if( numberOfStartedJobs < numberOfJobs )
+						log.debug("Waiting for " + memory / (1024 * 1024) + " MB of memory to start a job. " + reservedMemory / (1024 * 1024) + " MB are in use by " + numberOfRunningJobs + " jobs.");
+					jobFinished.await();
+				}
+
+				numberOfStartedJobs++;
+				numberOfRunningJobs++;
+				reservedMemory += memory;
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public void release() {
+			release(0);
+		}
+
+		@Override
+		public void release(final long expectedMemory) {
+			lock.lock();
+			try {
+				numberOfStartedJobs--;
+				numberOfRunningJobs--;
+				reservedMemory -= getMemory(expectedMemory);
+				jobFinished.signalAll();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public int getNumberOfJobs() {
+			return numberOfJobs;
+		}
+
+		private long getMemory(final long expectedMemory) {
+			return expectedMemory > 0 ? expectedMemory : DEFAULT_JOB_MEMORY;
+		}
+	}
+}
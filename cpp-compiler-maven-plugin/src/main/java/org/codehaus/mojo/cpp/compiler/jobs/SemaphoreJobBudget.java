@@ -0,0 +1,54 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.jobs;
+
+import java.util.concurrent.Semaphore;
+
+public class SemaphoreJobBudget implements JobBudget {
+	private final Semaphore slots;
+	private final int numberOfJobs;
+
+	public SemaphoreJobBudget(final int numberOfJobs) {
+		this.numberOfJobs = numberOfJobs;
+		this.slots = new Semaphore(numberOfJobs, true);
+	}
+
+	@Override
+	public void acquire() throws InterruptedException {
+		slots.acquire();
+	}
+
+	@Override
+	public void acquire(final long expectedMemory) throws InterruptedException {
+		acquire();
+	}
+
+	@Override
+	public void release() {
+		slots.release();
+	}
+
+	@Override
+	public void release(final long expectedMemory) {
+		release();
+	}
+
+	@Override
+	public int getNumberOfJobs() {
+		return numberOfJobs;
+	}
+}
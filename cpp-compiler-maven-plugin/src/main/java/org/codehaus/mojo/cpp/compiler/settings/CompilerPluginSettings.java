@@ -1,84 +1,243 @@
-/* 
- *  Copyright 2011 Ericsson AB
- *
- *  Licensed under the Apache License, Version 2.0 (the "License");
- *  you may not use this file except in compliance with the License.
- *  You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- */
-
-package org.codehaus.mojo.cpp.compiler.settings;
-
-import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
-
-import org.apache.maven.project.MavenProject;
-import org.codehaus.mojo.cpp.tools.environment.Environment;
-import org.codehaus.mojo.cpp.tools.settings.PluginSettingsImpl;
-
-
-
-public class CompilerPluginSettings extends PluginSettingsImpl implements DependencyExtractionSettings, CompilationSettings {
-	private final boolean testCompilation;
-	private final Map<String, String> compilerArguments;
-	private final Map<String, String> linkerArguments;
-
-	public CompilerPluginSettings(final MavenProject project, final Map<String, String> sources, final File outputDirectory, final File testOutputDirectory, final Map<String, String> linkerArguments, final Map<String, String> compilerArguments, final boolean testCompilation) {
-		super(project, sources, outputDirectory, testOutputDirectory);
-
-		this.linkerArguments = addDefaultLinkerArguments(linkerArguments);
-		this.compilerArguments = compilerArguments;
-		this.testCompilation = testCompilation;
-	}
-
-	public boolean isTestCompilation() {
-		return testCompilation;
-	}
-
-	public String getCompilerArguments(final Environment targetEnvironment) {
-		return getEnvironmentSpecificArguments(targetEnvironment, compilerArguments);
-	}
-
-	public String getLinkerArguments(final Environment targetEnvironment) {
-		return getEnvironmentSpecificArguments(targetEnvironment, linkerArguments);
-	}
-	
-	public String getEnvironmentSpecificArguments(final Environment environment, final Map<String, String> argumentMap) {
-		String arguments = "";
-
-		if( argumentMap != null ) {
-			final String argumentsForAllEnvironments = argumentMap.get("all");
-			final String argumentsForThisEnvironment = argumentMap.get(environment.getCanonicalName());
-			
-			if(argumentsForAllEnvironments != null)
-				arguments += " " + argumentsForAllEnvironments;
-
-			if(argumentsForThisEnvironment != null)
-				arguments += " " + argumentsForThisEnvironment;
-		}		
-		return arguments.replaceAll("[\\t\\n\\x0B\\f\\r]+", " ").trim();
-	}
-
-	private Map<String, String> addDefaultLinkerArguments(Map<String, String> configuredLinkerArguments) {
-		Map<String, String> linkerArguments = configuredLinkerArguments;
-		
-		if( linkerArguments == null )
-			linkerArguments = new HashMap<String, String>();
-		
-		return linkerArguments;
-	}
-
-	@Override
-	public File getDirectoryForDependecyArtifactExtraction(final String scope, final String groupId, final String artifactId) {
-		return new File(getExtractedDependenciesDirectory(scope), groupId + "/" + artifactId);
-	}
-}
-
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.settings;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.maven.project.MavenProject;
+import org.codehaus.mojo.cpp.compiler.compilation.CompilationEngine;
+import org.codehaus.mojo.cpp.compiler.jobs.Jobserver;
+import org.codehaus.mojo.cpp.compiler.jobs.PeakMemoryMonitor;
+import org.codehaus.mojo.cpp.tools.DirectorySnapshot;
+import org.codehaus.mojo.cpp.tools.environment.Environment;
+import org.codehaus.mojo.cpp.tools.settings.PluginSettingsImpl;
+
+
+
+public class CompilerPluginSettings extends PluginSettingsImpl implements DependencyExtractionSettings, CompilationSettings {
+	private final boolean testCompilation;
+	private final Map<String, String> compilerArguments;
+	private final Map<String, String> linkerArguments;
+	private int numberOfCompilerThreads = 0;
+	private CompilationEngine compilationEngine = CompilationEngine.SCHEDULER;
+	private boolean contentBasedRecompilation = false;
+	private boolean explicitObjectPlacement = false;
+	private boolean isolateCompilationFailures = false;
+	private File objectCacheDirectory = null;
+	private long objectCacheSize = 0;
+	private String remoteObjectCache = null;
+	private boolean remoteObjectCacheReadOnly = false;
+	private File extractionStoreDirectory = null;
+	private long extractionStoreMaximumAge = 0;
+	private DirectorySnapshot sourceTreeSnapshot = null;
+	private PeakMemoryMonitor peakMemoryMonitor = null;
+	private Jobserver jobserver = null;
+
+	public CompilerPluginSettings(final MavenProject project, final Map<String, String> sources, final File outputDirectory, final File testOutputDirectory, final Map<String, String> linkerArguments, final Map<String, String> compilerArguments, final boolean testCompilation) {
+		super(project, sources, outputDirectory, testOutputDirectory);
+
+		this.linkerArguments = addDefaultLinkerArguments(linkerArguments);
+		this.compilerArguments = compilerArguments;
+		this.testCompilation = testCompilation;
+	}
+
+	public boolean isTestCompilation() {
+		return testCompilation;
+	}
+
+	public String getCompilerArguments(final Environment targetEnvironment) {
+		return getEnvironmentSpecificArguments(targetEnvironment, compilerArguments);
+	}
+
+	public String getLinkerArguments(final Environment targetEnvironment) {
+		return getEnvironmentSpecificArguments(targetEnvironment, linkerArguments);
+	}
+	
+	public int getNumberOfCompilerThreads() {
+		return numberOfCompilerThreads;
+	}
+
+	/**
+	 * @param numberOfCompilerThreads	The number of compiler threads, or 0 to use one per logical core
+	 */
+	public void setNumberOfCompilerThreads(final int numberOfCompilerThreads) {
+		this.numberOfCompilerThreads = numberOfCompilerThreads;
+	}
+
+	public CompilationEngine getCompilationEngine() {
+		return compilationEngine;
+	}
+
+	public void setCompilationEngine(final CompilationEngine compilationEngine) {
+		this.compilationEngine = compilationEngine;
+	}
+
+	public boolean isContentBasedRecompilation() {
+		return contentBasedRecompilation;
+	}
+
+	public void setContentBasedRecompilation(final boolean contentBasedRecompilation) {
+		this.contentBasedRecompilation = contentBasedRecompilation;
+	}
+
+	public boolean isExplicitObjectPlacement() {
+		return explicitObjectPlacement;
+	}
+
+	/**
+	 * @param explicitObjectPlacement	Whether the compiler writes each object file straight to its place in the obj directory
+	 */
+	public void setExplicitObjectPlacement(final boolean explicitObjectPlacement) {
+		this.explicitObjectPlacement = explicitObjectPlacement;
+	}
+
+	public boolean isIsolateCompilationFailures() {
+		return isolateCompilationFailures;
+	}
+
+	/**
+	 * @param isolateCompilationFailures	Whether a failed batch is split up and retried until the files failing to compile are found
+	 */
+	public void setIsolateCompilationFailures(final boolean isolateCompilationFailures) {
+		this.isolateCompilationFailures = isolateCompilationFailures;
+	}
+
+	/**
+	 * @return		The directory of the object cache, or null if no object cache is used
+	 */
+	public File getObjectCacheDirectory() {
+		return objectCacheDirectory;
+	}
+
+	public long getObjectCacheSize() {
+		return objectCacheSize;
+	}
+
+	/**
+	 * @param objectCacheDirectory	The directory of the object cache, or null to not use an object cache
+	 * @param objectCacheSize		The size in bytes above which the least recently used objects are evicted
+	 */
+	public void setObjectCache(final File objectCacheDirectory, final long objectCacheSize) {
+		this.objectCacheDirectory = objectCacheDirectory;
+		this.objectCacheSize = objectCacheSize;
+	}
+
+	/**
+	 * @return		The location of the object cache shared with other machines, or null if there is none
+	 */
+	public String getRemoteObjectCache() {
+		return remoteObjectCache;
+	}
+
+	public boolean isRemoteObjectCacheReadOnly() {
+		return remoteObjectCacheReadOnly;
+	}
+
+	/**
+	 * @param remoteObjectCache			An http or https URL, or a directory, or null to not share objects with other machines
+	 * @param remoteObjectCacheReadOnly	Whether to only fetch objects from the remote object cache
+	 */
+	public void setRemoteObjectCache(final String remoteObjectCache, final boolean remoteObjectCacheReadOnly) {
+		this.remoteObjectCache = remoteObjectCache;
+		this.remoteObjectCacheReadOnly = remoteObjectCacheReadOnly;
+	}
+
+	/**
+	 * @return		The directory dependencies are extracted into once per machine, or null if each project extracts its own
+	 */
+	public File getExtractionStoreDirectory() {
+		return extractionStoreDirectory;
+	}
+
+	/**
+	 * @return		The time in milliseconds after which an unused directory of the extraction store is pruned
+	 */
+	public long getExtractionStoreMaximumAge() {
+		return extractionStoreMaximumAge;
+	}
+
+	public void setExtractionStore(final File extractionStoreDirectory, final long extractionStoreMaximumAge) {
+		this.extractionStoreDirectory = extractionStoreDirectory;
+		this.extractionStoreMaximumAge = extractionStoreMaximumAge;
+	}
+
+	/**
+	 * @return		The snapshot to list source directories from, or null if every directory is listed
+	 */
+	public DirectorySnapshot getSourceTreeSnapshot() {
+		return sourceTreeSnapshot;
+	}
+
+	public void setSourceTreeSnapshot(final DirectorySnapshot sourceTreeSnapshot) {
+		this.sourceTreeSnapshot = sourceTreeSnapshot;
+	}
+
+	/**
+	 * @return		The monitor learning the memory used by compilers, or null if compiler jobs aren't started by memory
+	 */
+	public PeakMemoryMonitor getPeakMemoryMonitor() {
+		return peakMemoryMonitor;
+	}
+
+	public void setPeakMemoryMonitor(final PeakMemoryMonitor peakMemoryMonitor) {
+		this.peakMemoryMonitor = peakMemoryMonitor;
+	}
+
+	/**
+	 * @return		The GNU make jobserver compiler and linker jobs are shared with, or null if only this build limits them
+	 */
+	public Jobserver getJobserver() {
+		return jobserver;
+	}
+
+	public void setJobserver(final Jobserver jobserver) {
+		this.jobserver = jobserver;
+	}
+
+	public String getEnvironmentSpecificArguments(final Environment environment, final Map<String, String> argumentMap) {
+		String arguments = "";
+
+		if( argumentMap != null ) {
+			final String argumentsForAllEnvironments = argumentMap.get("all");
+			final String argumentsForThisEnvironment = argumentMap.get(environment.getCanonicalName());
+			
+			if(argumentsForAllEnvironments != null)
+				arguments += " " + argumentsForAllEnvironments;
+
+			if(argumentsForThisEnvironment != null)
+				arguments += " " + argumentsForThisEnvironment;
+		}		
+		return arguments.replaceAll("[\\t\\n\\x0B\\f\\r]+", " ").trim();
+	}
+
+	private Map<String, String> addDefaultLinkerArguments(Map<String, String> configuredLinkerArguments) {
+		Map<String, String> linkerArguments = configuredLinkerArguments;
+		
+		if( linkerArguments == null )
+			linkerArguments = new HashMap<String, String>();
+		
+		return linkerArguments;
+	}
+
+	@Override
+	public File getDirectoryForDependecyArtifactExtraction(final String scope, final String groupId, final String artifactId) {
+		return new File(getExtractedDependenciesDirectory(scope), groupId + "/" + artifactId);
+	}
+}
+
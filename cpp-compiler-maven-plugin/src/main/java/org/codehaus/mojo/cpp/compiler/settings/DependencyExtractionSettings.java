@@ -1,26 +1,29 @@
-/* 
- *  Copyright 2011 Ericsson AB
- *
- *  Licensed under the Apache License, Version 2.0 (the "License");
- *  you may not use this file except in compliance with the License.
- *  You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- */
-
-package org.codehaus.mojo.cpp.compiler.settings;
-
-import java.io.File;
-
-import org.codehaus.mojo.cpp.tools.settings.MavenProjectContainer;
-
-
-public interface DependencyExtractionSettings extends MavenProjectContainer {
-	public File getDirectoryForDependecyArtifactExtraction(final String scope, final String groupId, final String artifactId);
-}
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.settings;
+
+import java.io.File;
+
+import org.codehaus.mojo.cpp.tools.settings.MavenProjectContainer;
+
+
+public interface DependencyExtractionSettings extends MavenProjectContainer {
+	public File getExtractedDependenciesDirectory();
+	public File getExtractionStoreDirectory();
+	public long getExtractionStoreMaximumAge();
+	public File getDirectoryForDependecyArtifactExtraction(final String scope, final String groupId, final String artifactId);
+}
@@ -0,0 +1,120 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.artifacts;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.mojo.cpp.compiler.TemporaryDirectory;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.mojo.cpp.compiler.settings.CompilationSettings;
+import org.codehaus.mojo.cpp.tools.environment.Environment;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TestStaticLibraryBuilder {
+	private File directory = null;
+	private File libraryFile = null;
+	private StaticLibraryBuilder builder = null;
+	private final NativeCodeFile first = createNativeCodeFile("first");
+	private final NativeCodeFile second = createNativeCodeFile("second");
+	private final NativeCodeFile third = createNativeCodeFile("third");
+
+	@Before
+	public void setup() throws Exception {
+		directory = TemporaryDirectory.create("static-library");
+		libraryFile = new File(directory, "lib/libproject.a");
+		libraryFile.getParentFile().mkdirs();
+		FileUtils.fileWrite(libraryFile.getPath(), "");
+
+		final Environment environment = mock(Environment.class);
+		final MavenProject project = new MavenProject();
+		project.setArtifactId("project");
+		final CompilationSettings settings = mock(CompilationSettings.class);
+		when(settings.getProject()).thenReturn(project);
+		when(settings.getObjDirectory(environment, false)).thenReturn(new File(directory, "obj"));
+		when(settings.getLibDirectory(environment, false)).thenReturn(libraryFile.getParentFile());
+
+		builder = new StaticLibraryBuilder(mock(Log.class), settings, environment);
+	}
+
+	@After
+	public void teardown() throws Exception {
+		TemporaryDirectory.delete(directory);
+	}
+
+	@Test
+	public void libraryWithUnchangedClassesIsKept() throws Exception {
+		builder.recordMembers(classes(first, second));
+		builder.removeStaleLibrary(classes(second, first));
+
+		assertTrue(libraryFile.exists());
+	}
+
+	@Test
+	public void libraryIsKeptWhenClassesAreAdded() throws Exception {
+		builder.recordMembers(classes(first, second));
+		builder.removeStaleLibrary(classes(first, second, third));
+
+		assertTrue(libraryFile.exists());
+	}
+
+	@Test
+	public void libraryIsRemovedWhenClassesAreRemoved() throws Exception {
+		builder.recordMembers(classes(first, second));
+		builder.removeStaleLibrary(classes(first));
+
+		assertFalse("Archiving can't remove the object of a removed class", libraryFile.exists());
+	}
+
+	@Test
+	public void libraryWithoutRecordedMembersIsRemoved() throws Exception {
+		builder.removeStaleLibrary(classes(first, second));
+
+		assertFalse(libraryFile.exists());
+	}
+
+	@Test
+	public void recordedMembersAreReplaced() throws Exception {
+		builder.recordMembers(classes(first, second));
+		builder.recordMembers(classes(first));
+		builder.removeStaleLibrary(classes(first));
+
+		assertTrue(libraryFile.exists());
+	}
+
+	private Collection<NativeCodeFile> classes(final NativeCodeFile... classes) {
+		return Arrays.asList(classes);
+	}
+
+	private static NativeCodeFile createNativeCodeFile(final String name) {
+		final NativeCodeFile nativeCodeFile = mock(NativeCodeFile.class);
+		when(nativeCodeFile.getObjectFile()).thenReturn(new File("/obj/" + name + ".o"));
+		return nativeCodeFile;
+	}
+}
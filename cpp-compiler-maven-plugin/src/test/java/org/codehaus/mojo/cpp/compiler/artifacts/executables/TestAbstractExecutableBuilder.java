@@ -0,0 +1,145 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.artifacts.executables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.TemporaryDirectory;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.mojo.cpp.compiler.settings.CompilationSettings;
+import org.codehaus.mojo.cpp.tools.environment.Environment;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TestAbstractExecutableBuilder {
+	private static final long OBJECT_TIMESTAMP = 10000;
+	private static final long EXECUTABLE_TIMESTAMP = 20000;
+
+	private File directory = null;
+	private File executableFile = null;
+	private File fingerprintFile = null;
+	private ExecutableBuilderImpl builder = null;
+
+	@Before
+	public void setup() throws Exception {
+		directory = TemporaryDirectory.create("executable-builder");
+
+		final File objectFile = createFile("obj/main.o", OBJECT_TIMESTAMP);
+		executableFile = createFile("bin/app", EXECUTABLE_TIMESTAMP);
+		new File(directory, "lib").mkdirs();
+
+		final Environment environment = mock(Environment.class);
+		final CompilationSettings settings = mock(CompilationSettings.class);
+		when(settings.getObjDirectory(environment, false)).thenReturn(new File(directory, "obj"));
+		when(settings.getBinDirectory(environment, false)).thenReturn(new File(directory, "bin"));
+		when(settings.getLibDirectory(environment, false)).thenReturn(new File(directory, "lib"));
+
+		final Executable executable = new Executable("app", new ArrayList<NativeCodeFile>(), new ArrayList<File>(Arrays.asList(objectFile)));
+		builder = new ExecutableBuilderImpl(mock(Log.class), settings, environment, executable);
+		fingerprintFile = new File(AbstractExecutableBuilder.getLinkFingerprintDirectory(settings, environment), "app" + AbstractExecutableBuilder.FINGERPRINT_SUFFIX);
+	}
+
+	@After
+	public void teardown() throws Exception {
+		TemporaryDirectory.delete(directory);
+	}
+
+	@Test
+	public void upToDateExecutableWithoutFingerprintAdoptsCurrentFingerprint() throws Exception {
+		builder.fingerprint = "-O2";
+		build();
+
+		assertEquals("An up to date executable shouldn't be relinked", 0, builder.links);
+		assertEquals("-O2", FileUtils.fileRead(fingerprintFile).trim());
+	}
+
+	@Test
+	public void changedLinkCommandAfterAdoptionRelinksExecutable() throws Exception {
+		builder.fingerprint = "-O2";
+		build();
+
+		builder.fingerprint = "-O3";
+		build();
+
+		assertEquals(1, builder.links);
+		assertEquals("-O3", FileUtils.fileRead(fingerprintFile).trim());
+	}
+
+	@Test
+	public void unchangedLinkCommandDoesNotRelinkExecutable() throws Exception {
+		builder.fingerprint = "-O2";
+		build();
+		build();
+
+		assertEquals(0, builder.links);
+	}
+
+	@Test
+	public void executablesWithoutFingerprintAreNotFingerprinted() throws Exception {
+		build();
+
+		assertEquals(0, builder.links);
+		assertFalse(fingerprintFile.exists());
+	}
+
+	private void build() throws Exception {
+		builder.build(null, null, null);
+	}
+
+	private File createFile(final String path, final long timestamp) throws Exception {
+		final File file = new File(directory, path);
+		file.getParentFile().mkdirs();
+		FileUtils.fileWrite(file.getPath(), "");
+		file.setLastModified(timestamp);
+		return file;
+	}
+
+
+	private class ExecutableBuilderImpl extends AbstractExecutableBuilder {
+		private String fingerprint = null;
+		private int links = 0;
+
+		public ExecutableBuilderImpl(final Log log, final CompilationSettings settings, final Environment targetEnvironment, final Executable executable) {
+			super(log, settings, targetEnvironment, executable);
+		}
+
+		@Override
+		protected String getLinkFingerprint(final Collection<File> libsToLink) throws MojoExecutionException, MojoFailureException {
+			return fingerprint;
+		}
+
+		@Override
+		protected void buildExecutable(final Collection<File> libsToLink) throws MojoExecutionException, MojoFailureException {
+			links++;
+			executableFile.setLastModified(EXECUTABLE_TIMESTAMP + links);
+		}
+	}
+}
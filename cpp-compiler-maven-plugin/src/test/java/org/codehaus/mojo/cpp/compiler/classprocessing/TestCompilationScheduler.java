@@ -0,0 +1,198 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.classprocessing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.compilation.AbstractCompiler;
+import org.codehaus.mojo.cpp.compiler.compilation.CompilationHistory;
+import org.codehaus.mojo.cpp.compiler.compilation.CompilationListener;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.mojo.cpp.compiler.jobs.SemaphoreJobBudget;
+import org.codehaus.mojo.cpp.compiler.settings.CompilationSettings;
+import org.codehaus.mojo.cpp.tools.environment.Environment;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TestCompilationScheduler {
+	private static final Comparator<NativeCodeFile> BY_NAME = new Comparator<NativeCodeFile>() {
+		@Override
+		public int compare(final NativeCodeFile first, final NativeCodeFile second) {
+			return first.getSourceFile().getName().compareTo(second.getSourceFile().getName());
+		}
+	};
+
+	private Log log = null;
+	private CompilationHistory history = null;
+	private RecordingCompiler compiler = null;
+
+	@Before
+	public void setup() {
+		log = mock(Log.class);
+		history = new CompilationHistory(log, new File("nonexistent/compilation-times.properties"));
+		compiler = new RecordingCompiler(log);
+	}
+
+	@Test
+	public void prioritizedQueueHandsOutFilesInComparatorOrderAndEndOfListingLast() throws Exception {
+		final CompilationScheduler.PrioritizedQueue queue = CompilationScheduler.createPrioritizedQueue(history, BY_NAME);
+		queue.add(CompilationScheduler.END_OF_LISTING);
+		queue.add(createFile("c.cpp"));
+		queue.add(createFile("a.cpp"));
+		queue.add(createFile("b.cpp"));
+
+		assertEquals("a.cpp", queue.take().getSourceFile().getName());
+		assertEquals("b.cpp", queue.take().getSourceFile().getName());
+		assertEquals("c.cpp", queue.take().getSourceFile().getName());
+		assertSame(CompilationScheduler.END_OF_LISTING, queue.take());
+	}
+
+	@Test
+	public void prioritizedQueueKeepsTheEstimatedCompilationTimeOfQueuedFiles() throws Exception {
+		final CompilationScheduler.PrioritizedQueue queue = CompilationScheduler.createPrioritizedQueue(history, BY_NAME);
+		final long estimate = history.getEstimatedCompilationTime(createFile("any.cpp"));
+
+		queue.add(createFile("a.cpp"));
+		queue.put(createFile("b.cpp"));
+		queue.offer(createFile("c.cpp"));
+		queue.add(CompilationScheduler.END_OF_LISTING);
+		assertEquals(3 * estimate, queue.getEstimatedCompilationTime());
+
+		queue.take();
+		queue.poll();
+		assertEquals(estimate, queue.getEstimatedCompilationTime());
+
+		queue.clear();
+		assertEquals(0, queue.getEstimatedCompilationTime());
+	}
+
+	@Test(timeout = 10000)
+	public void everyFileIsCompiledOnceAndEveryThreadStopsAtEndOfListing() throws Exception {
+		final CompilationScheduler.PrioritizedQueue queue = CompilationScheduler.createPrioritizedQueue(history, BY_NAME);
+		final CompilationScheduler scheduler = createScheduler(queue, 3);
+		scheduler.start();
+
+		final List<NativeCodeFile> files = new ArrayList<NativeCodeFile>();
+		for(int i = 0; i < 20; i++) {
+			final NativeCodeFile file = createFile("file" + i + ".cpp");
+			files.add(file);
+			queue.add(file);
+		}
+		scheduler.setClassListingIsComplete();
+
+		final Collection<NativeCodeFile> compiledFiles = scheduler.awaitCompletion();
+
+		assertEquals(20, compiledFiles.size());
+		assertEquals(new HashSet<NativeCodeFile>(files), new HashSet<NativeCodeFile>(compiledFiles));
+		assertEquals(20, compiler.compiledFiles.size());
+		assertSame("End of listing should be left for the next to look at the queue.", CompilationScheduler.END_OF_LISTING, queue.peek());
+	}
+
+	@Test(timeout = 10000)
+	public void schedulerWithNoFilesCompletesAtEndOfListing() throws Exception {
+		final CompilationScheduler.PrioritizedQueue queue = CompilationScheduler.createPrioritizedQueue(history, BY_NAME);
+		final CompilationScheduler scheduler = createScheduler(queue, 2);
+		scheduler.start();
+		scheduler.setClassListingIsComplete();
+
+		assertTrue(scheduler.awaitCompletion().isEmpty());
+		assertTrue(compiler.compiledFiles.isEmpty());
+	}
+
+	@Test(timeout = 10000)
+	public void abortInterruptsRunningCompilationAndDropsQueuedFiles() throws Exception {
+		final CompilationScheduler.PrioritizedQueue queue = CompilationScheduler.createPrioritizedQueue(history, BY_NAME);
+		final CompilationScheduler scheduler = createScheduler(queue, 1);
+		compiler.block = true;
+		scheduler.start();
+
+		final NativeCodeFile first = createFile("first.cpp");
+		queue.add(first);
+		compiler.started.await();
+		queue.add(createFile("second.cpp"));
+
+		scheduler.abort();
+
+		try {
+			scheduler.awaitCompletion();
+			fail("An interrupted compilation should fail the compilation.");
+		}
+		catch (MojoExecutionException e) {
+		}
+		assertTrue("The running compilation should have been interrupted.", compiler.interrupted);
+		assertTrue("Nothing should be reported as compiled.", compiler.compiledFiles.isEmpty());
+		assertEquals(1, compiler.startedBatches.size());
+		assertEquals(first, compiler.startedBatches.peek().iterator().next());
+	}
+
+	private CompilationScheduler createScheduler(final CompilationScheduler.PrioritizedQueue queue, final int numberOfCompilerThreads) {
+		return new CompilationScheduler(log, compiler, history, null, new SemaphoreJobBudget(numberOfCompilerThreads), mock(CompilationListener.class), queue, numberOfCompilerThreads);
+	}
+
+	private NativeCodeFile createFile(final String name) {
+		return new NativeCodeFile(name, new File("src"), new File("obj"));
+	}
+
+
+	public static class RecordingCompiler extends AbstractCompiler {
+		private final ConcurrentLinkedQueue<NativeCodeFile> compiledFiles = new ConcurrentLinkedQueue<NativeCodeFile>();
+		private final ConcurrentLinkedQueue<Collection<NativeCodeFile>> startedBatches = new ConcurrentLinkedQueue<Collection<NativeCodeFile>>();
+		private final CountDownLatch started = new CountDownLatch(1);
+		private volatile boolean block = false;
+		private volatile boolean interrupted = false;
+
+		public RecordingCompiler(final Log log) {
+			super(log, mock(CompilationSettings.class), mock(Environment.class), null);
+		}
+
+		@Override
+		public void compile(final Collection<NativeCodeFile> classes) throws MojoFailureException, MojoExecutionException {
+			startedBatches.add(new ArrayList<NativeCodeFile>(classes));
+			started.countDown();
+
+			if( block ) {
+				try {
+					new CountDownLatch(1).await();
+				}
+				catch (InterruptedException e) {
+					interrupted = true;
+					throw new MojoExecutionException("Interrupted.", e);
+				}
+			}
+
+			compiledFiles.addAll(classes);
+		}
+	}
+}
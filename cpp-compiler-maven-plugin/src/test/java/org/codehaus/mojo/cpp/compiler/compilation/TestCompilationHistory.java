@@ -0,0 +1,170 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.compilation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TestCompilationHistory {
+	private File historyFile = null;
+	private NativeCodeFile slowFile = null;
+	private NativeCodeFile fastFile = null;
+	private NativeCodeFile newFile = null;
+
+	@Before
+	public void setup() throws Exception {
+		historyFile = File.createTempFile("compilation-history", ".properties");
+		slowFile = new NativeCodeFile("slow.cpp", new File("src"), new File("obj"));
+		fastFile = new NativeCodeFile("fast.cpp", new File("src"), new File("obj"));
+		newFile = new NativeCodeFile("new.cpp", new File("src"), new File("obj"));
+	}
+
+	@After
+	public void teardown() {
+		historyFile.delete();
+	}
+
+	@Test
+	public void withoutHistoryEveryFileGetsTheSameEstimate() throws Exception {
+		historyFile.delete();
+		final CompilationHistory history = createHistory();
+
+		assertEquals(history.getEstimatedCompilationTime(slowFile), history.getEstimatedCompilationTime(newFile));
+		assertTrue(history.getEstimatedCompilationTime(newFile) > 0);
+	}
+
+	@Test
+	public void recordedFilesGetTheirTimeAndUnknownFilesTheAverage() throws Exception {
+		writeHistory(slowFile, 3000, fastFile, 1000);
+		final CompilationHistory history = createHistory();
+
+		assertEquals(3000, history.getEstimatedCompilationTime(slowFile));
+		assertEquals(1000, history.getEstimatedCompilationTime(fastFile));
+		assertEquals(2000, history.getEstimatedCompilationTime(newFile));
+	}
+
+	@Test
+	public void estimatesDontChangeWhileCompiling() throws Exception {
+		writeHistory(slowFile, 3000, fastFile, 1000);
+		final CompilationHistory history = createHistory();
+
+		history.record(Arrays.asList(slowFile), 10);
+
+		assertEquals(3000, history.getEstimatedCompilationTime(slowFile));
+	}
+
+	@Test
+	public void batchTimeIsDividedInProportionToEstimates() throws Exception {
+		writeHistory(slowFile, 3000, fastFile, 1000);
+		final CompilationHistory history = createHistory();
+
+		history.record(Arrays.asList(slowFile, fastFile), 800);
+		history.save(Arrays.asList(slowFile, fastFile));
+
+		final Properties properties = readHistory();
+		assertEquals("600", properties.getProperty(slowFile.getSourceFile().getPath()));
+		assertEquals("200", properties.getProperty(fastFile.getSourceFile().getPath()));
+	}
+
+	@Test
+	public void filesNoLongerInTheBuildAreForgottenWhenSaving() throws Exception {
+		writeHistory(slowFile, 3000, fastFile, 1000);
+		final CompilationHistory history = createHistory();
+
+		history.record(Arrays.asList(newFile), 500);
+		history.save(Arrays.asList(fastFile, newFile));
+
+		final Properties properties = readHistory();
+		assertFalse(properties.containsKey(slowFile.getSourceFile().getPath()));
+		assertEquals("1000", properties.getProperty(fastFile.getSourceFile().getPath()));
+		assertEquals("500", properties.getProperty(newFile.getSourceFile().getPath()));
+	}
+
+	@Test
+	public void corruptHistoryIsIgnored() throws Exception {
+		final Properties properties = new Properties();
+		properties.setProperty(slowFile.getSourceFile().getPath(), "not a number");
+		store(properties);
+
+		final CompilationHistory history = createHistory();
+
+		assertEquals(history.getEstimatedCompilationTime(fastFile), history.getEstimatedCompilationTime(slowFile));
+	}
+
+	@Test
+	public void longestFirstComparatorPutsSlowFilesFirst() throws Exception {
+		writeHistory(slowFile, 3000, fastFile, 1000);
+		final Comparator<NativeCodeFile> comparator = createHistory().createLongestFirstComparator();
+
+		assertTrue(comparator.compare(slowFile, fastFile) < 0);
+		assertTrue(comparator.compare(fastFile, slowFile) > 0);
+		assertEquals(0, comparator.compare(newFile, newFile));
+	}
+
+	private CompilationHistory createHistory() {
+		final CompilationHistory history = new CompilationHistory(mock(Log.class), historyFile);
+		history.load();
+		return history;
+	}
+
+	private void writeHistory(final NativeCodeFile firstFile, final long firstTime, final NativeCodeFile secondFile, final long secondTime) throws IOException {
+		final Properties properties = new Properties();
+		properties.setProperty(firstFile.getSourceFile().getPath(), Long.toString(firstTime));
+		properties.setProperty(secondFile.getSourceFile().getPath(), Long.toString(secondTime));
+		store(properties);
+	}
+
+	private void store(final Properties properties) throws IOException {
+		final FileOutputStream out = new FileOutputStream(historyFile);
+		try {
+			properties.store(out, null);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	private Properties readHistory() throws IOException {
+		final Properties properties = new Properties();
+		final FileInputStream in = new FileInputStream(historyFile);
+		try {
+			properties.load(in);
+		}
+		finally {
+			in.close();
+		}
+		return properties;
+	}
+}
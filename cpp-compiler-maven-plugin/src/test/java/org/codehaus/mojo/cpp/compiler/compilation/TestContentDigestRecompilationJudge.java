@@ -0,0 +1,179 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.compilation;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.TemporaryDirectory;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TestContentDigestRecompilationJudge {
+	private File directory = null;
+	private File sourceFile = null;
+	private File headerFile = null;
+	private NativeCodeFile ncf = null;
+	private IncludesAnalyzer includesAnalyzer = null;
+	private RecompilationJudge timestampJudge = null;
+
+	@Before
+	public void setup() throws Exception {
+		directory = TemporaryDirectory.create("content-digest");
+		sourceFile = createFile("src/source.cpp", "#include \"header.h\"\n", 10000);
+		headerFile = createFile("include/header.h", "int answer = 42;\n", 10000);
+		ncf = new NativeCodeFile(sourceFile, new File(directory, "obj"));
+		ncf.getObjectFile().getParentFile().mkdirs();
+
+		includesAnalyzer = mock(IncludesAnalyzer.class);
+		when(includesAnalyzer.getIncludedFiles(ncf)).thenReturn(Arrays.asList(headerFile));
+		timestampJudge = mock(RecompilationJudge.class);
+	}
+
+	@After
+	public void teardown() throws Exception {
+		TemporaryDirectory.delete(directory);
+	}
+
+	@Test
+	public void fileWithoutDigestsIsJudgedByTimestamps() throws Exception {
+		writeObjectFile(20000);
+		when(timestampJudge.fileNeedsToBeCompiled(ncf)).thenReturn(true);
+
+		assertTrue(createJudge().fileNeedsToBeCompiled(ncf));
+		verify(timestampJudge).fileNeedsToBeCompiled(ncf);
+	}
+
+	@Test
+	public void unchangedInputsDontNeedCompiling() throws Exception {
+		compile(20000);
+
+		assertFalse(createJudge().fileNeedsToBeCompiled(ncf));
+		verify(timestampJudge, never()).fileNeedsToBeCompiled(any(NativeCodeFile.class));
+	}
+
+	@Test
+	public void touchedButUnchangedInputDoesntNeedCompiling() throws Exception {
+		compile(20000);
+
+		headerFile.setLastModified(30000);
+
+		assertFalse(createJudge().fileNeedsToBeCompiled(ncf));
+		verify(timestampJudge, never()).fileNeedsToBeCompiled(any(NativeCodeFile.class));
+	}
+
+	@Test
+	public void newTimestampOfTouchedInputIsRecorded() throws Exception {
+		compile(20000);
+		headerFile.setLastModified(30000);
+
+		assertFalse(createJudge().fileNeedsToBeCompiled(ncf));
+
+		final String digests = FileUtils.fileRead(ncf.getDigestFile());
+		assertTrue("The header should be recorded with its new timestamp, so that it isn't digested again: " + digests, digests.contains(" 30000 " + headerFile.getPath()));
+	}
+
+	@Test
+	public void changedInputOfSameSizeNeedsCompiling() throws Exception {
+		compile(20000);
+
+		writeFile(headerFile, "int answer = 43;\n", 30000);
+
+		assertTrue(createJudge().fileNeedsToBeCompiled(ncf));
+	}
+
+	@Test
+	public void changedSourceNeedsCompiling() throws Exception {
+		compile(20000);
+
+		writeFile(sourceFile, "#include \"header.h\"\nint main() { return answer; }\n", 30000);
+
+		assertTrue(createJudge().fileNeedsToBeCompiled(ncf));
+	}
+
+	@Test
+	public void removedInputNeedsCompiling() throws Exception {
+		compile(20000);
+
+		headerFile.delete();
+
+		assertTrue(createJudge().fileNeedsToBeCompiled(ncf));
+	}
+
+	@Test
+	public void staleObjectFileIsJudgedByTimestamps() throws Exception {
+		compile(20000);
+		when(timestampJudge.fileNeedsToBeCompiled(ncf)).thenReturn(true);
+
+		writeObjectFile(25000);
+
+		assertTrue(createJudge().fileNeedsToBeCompiled(ncf));
+		verify(timestampJudge).fileNeedsToBeCompiled(ncf);
+	}
+
+	@Test
+	public void inputChangedWhileCompilingLeavesFileToTimestamps() throws Exception {
+		headerFile.setLastModified(30000);
+		compile(20000);
+		when(timestampJudge.fileNeedsToBeCompiled(ncf)).thenReturn(true);
+
+		assertFalse(ncf.getDigestFile().exists());
+		assertTrue(createJudge().fileNeedsToBeCompiled(ncf));
+	}
+
+	private ContentDigestRecompilationJudge createJudge() {
+		return new ContentDigestRecompilationJudge(mock(Log.class), includesAnalyzer, timestampJudge);
+	}
+
+	/**
+	 * Compiling is simulated by writing the object file, as a compiler would, and telling a judge of a previous build about it.
+	 */
+	private void compile(final long objectFileTime) throws Exception {
+		writeObjectFile(objectFileTime);
+		createJudge().filesCompiled(Arrays.asList(ncf));
+	}
+
+	private void writeObjectFile(final long lastModified) throws Exception {
+		writeFile(ncf.getObjectFile(), "object " + lastModified, lastModified);
+	}
+
+	private File createFile(final String path, final String content, final long lastModified) throws Exception {
+		final File file = new File(directory, path);
+		file.getParentFile().mkdirs();
+		writeFile(file, content, lastModified);
+		return file;
+	}
+
+	private void writeFile(final File file, final String content, final long lastModified) throws Exception {
+		FileUtils.fileWrite(file.getPath(), content);
+		file.setLastModified(lastModified);
+	}
+}
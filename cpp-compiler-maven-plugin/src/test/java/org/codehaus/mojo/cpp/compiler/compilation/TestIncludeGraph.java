@@ -0,0 +1,154 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.compilation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.TemporaryDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TestIncludeGraph {
+	private File directory = null;
+	private File graphFile = null;
+	private File dependFile = null;
+	private File otherDependFile = null;
+	private final File header = new File("/include/header.h");
+	private final File otherHeader = new File("/include/other.h");
+
+	@Before
+	public void setup() throws Exception {
+		directory = TemporaryDirectory.create("include-graph");
+		graphFile = new File(directory, "include-graph.bin");
+		dependFile = createDependFile("source.d", 10000);
+		otherDependFile = createDependFile("other.d", 10000);
+	}
+
+	@After
+	public void teardown() throws Exception {
+		TemporaryDirectory.delete(directory);
+	}
+
+	@Test
+	public void unknownDependFileHasNoRecordedIncludes() throws Exception {
+		assertNull(createGraph().getIncludedFiles(dependFile));
+	}
+
+	@Test
+	public void recordedIncludesAreReturnedWhileDependFileIsUnchanged() throws Exception {
+		final IncludeGraph graph = createGraph();
+		graph.record(dependFile, Arrays.asList(header, otherHeader));
+
+		assertEquals(Arrays.asList(header, otherHeader), graph.getIncludedFiles(dependFile));
+	}
+
+	@Test
+	public void changedDependFileInvalidatesRecordedIncludes() throws Exception {
+		final IncludeGraph graph = createGraph();
+		graph.record(dependFile, Arrays.asList(header));
+
+		dependFile.setLastModified(20000);
+
+		assertNull(graph.getIncludedFiles(dependFile));
+	}
+
+	@Test
+	public void recordedIncludesSurviveSavingAndLoading() throws Exception {
+		final IncludeGraph graph = createGraph();
+		graph.record(dependFile, Arrays.asList(header, otherHeader));
+		graph.record(otherDependFile, Arrays.asList(otherHeader));
+		graph.save();
+
+		final IncludeGraph loadedGraph = createGraph();
+
+		assertEquals(Arrays.asList(header, otherHeader), loadedGraph.getIncludedFiles(dependFile));
+		assertEquals(Arrays.asList(otherHeader), loadedGraph.getIncludedFiles(otherDependFile));
+	}
+
+	@Test
+	public void changedDependFileInvalidatesLoadedIncludes() throws Exception {
+		final IncludeGraph graph = createGraph();
+		graph.record(dependFile, Arrays.asList(header));
+		graph.record(otherDependFile, Arrays.asList(otherHeader));
+		graph.save();
+
+		dependFile.setLastModified(20000);
+		final IncludeGraph loadedGraph = createGraph();
+
+		assertNull(loadedGraph.getIncludedFiles(dependFile));
+		assertEquals(Arrays.asList(otherHeader), loadedGraph.getIncludedFiles(otherDependFile));
+	}
+
+	@Test
+	public void rerecordedIncludesReplaceTheOldOnes() throws Exception {
+		final IncludeGraph graph = createGraph();
+		graph.record(dependFile, Arrays.asList(header, otherHeader));
+		graph.record(dependFile, Arrays.asList(otherHeader));
+		graph.save();
+
+		assertEquals(Arrays.asList(otherHeader), createGraph().getIncludedFiles(dependFile));
+	}
+
+	@Test
+	public void headersIncludedBySeveralFilesAreTheSameInstance() throws Exception {
+		final IncludeGraph graph = createGraph();
+		graph.record(dependFile, Arrays.asList(new File(header.getPath())));
+		graph.record(otherDependFile, Arrays.asList(new File(header.getPath())));
+
+		final List<File> includedFiles = graph.getIncludedFiles(dependFile);
+		final List<File> otherIncludedFiles = graph.getIncludedFiles(otherDependFile);
+
+		assertSame(includedFiles.get(0), otherIncludedFiles.get(0));
+	}
+
+	@Test
+	public void unreadableGraphIsRebuilt() throws Exception {
+		final FileOutputStream out = new FileOutputStream(graphFile);
+		out.write("not an include graph".getBytes("US-ASCII"));
+		out.close();
+
+		final IncludeGraph graph = createGraph();
+		assertNull(graph.getIncludedFiles(dependFile));
+
+		graph.record(dependFile, Arrays.asList(header));
+		graph.save();
+		assertEquals(Arrays.asList(header), createGraph().getIncludedFiles(dependFile));
+	}
+
+	private IncludeGraph createGraph() {
+		return new IncludeGraph(mock(Log.class), graphFile);
+	}
+
+	private File createDependFile(final String name, final long lastModified) throws Exception {
+		final File file = new File(directory, name);
+		file.createNewFile();
+		file.setLastModified(lastModified);
+		return file;
+	}
+}
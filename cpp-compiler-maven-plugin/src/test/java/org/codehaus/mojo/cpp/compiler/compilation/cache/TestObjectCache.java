@@ -0,0 +1,242 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.compilation.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.TemporaryDirectory;
+import org.codehaus.mojo.cpp.compiler.files.NativeCodeFile;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TestObjectCache {
+	private static final String COMMAND_KEY = "g++ -c -O2";
+	private static final int OBJECT_SIZE = 1000;
+
+	private File directory = null;
+	private File cacheDirectory = null;
+	private File headerFile = null;
+
+	@Before
+	public void setup() throws Exception {
+		directory = TemporaryDirectory.create("object-cache");
+		cacheDirectory = new File(directory, "cache");
+		headerFile = createFile("checkout/include/header.h", "int answer = 42;\n");
+	}
+
+	@After
+	public void teardown() throws Exception {
+		TemporaryDirectory.delete(directory);
+	}
+
+	@Test
+	public void emptyCacheMisses() throws Exception {
+		final NativeCodeFile ncf = createSourceFile("checkout", "a");
+
+		assertFalse(createCache(Long.MAX_VALUE, "checkout").fetch(ncf, COMMAND_KEY));
+	}
+
+	@Test
+	public void storedObjectIsRestored() throws Exception {
+		final ObjectCache cache = createCache(Long.MAX_VALUE, "checkout");
+		final NativeCodeFile ncf = createSourceFile("checkout", "a");
+		compile(ncf, 'a');
+		cache.store(ncf, COMMAND_KEY, Arrays.asList(headerFile));
+		ncf.getObjectFile().delete();
+		ncf.getDependFile().delete();
+
+		assertTrue(cache.fetch(ncf, COMMAND_KEY));
+		assertEquals(FileUtils.fileRead(ncf.getObjectFile()), objectContents('a'));
+		assertTrue(ncf.getDependFile().isFile());
+	}
+
+	@Test
+	public void objectIsSharedBetweenCheckouts() throws Exception {
+		final NativeCodeFile ncf = createSourceFile("checkout", "a");
+		compile(ncf, 'a');
+		createCache(Long.MAX_VALUE, "checkout").store(ncf, COMMAND_KEY, Arrays.asList(headerFile));
+
+		createFile("other/include/header.h", FileUtils.fileRead(headerFile));
+		final NativeCodeFile otherNcf = createSourceFile("other", "a");
+
+		assertTrue(createCache(Long.MAX_VALUE, "other").fetch(otherNcf, COMMAND_KEY));
+		assertEquals(FileUtils.fileRead(otherNcf.getObjectFile()), objectContents('a'));
+	}
+
+	@Test
+	public void differentCommandMisses() throws Exception {
+		final ObjectCache cache = createCache(Long.MAX_VALUE, "checkout");
+		final NativeCodeFile ncf = createSourceFile("checkout", "a");
+		compile(ncf, 'a');
+		cache.store(ncf, COMMAND_KEY, Arrays.asList(headerFile));
+
+		assertFalse(cache.fetch(ncf, COMMAND_KEY + " -g"));
+	}
+
+	@Test
+	public void changedSourceMisses() throws Exception {
+		final ObjectCache cache = createCache(Long.MAX_VALUE, "checkout");
+		final NativeCodeFile ncf = createSourceFile("checkout", "a");
+		compile(ncf, 'a');
+		cache.store(ncf, COMMAND_KEY, Arrays.asList(headerFile));
+		FileUtils.fileWrite(ncf.getSourceFile().getPath(), "#include \"header.h\"\nint changed;\n");
+
+		assertFalse(createCache(Long.MAX_VALUE, "checkout").fetch(ncf, COMMAND_KEY));
+	}
+
+	@Test
+	public void changedIncludedFileMisses() throws Exception {
+		final ObjectCache cache = createCache(Long.MAX_VALUE, "checkout");
+		final NativeCodeFile ncf = createSourceFile("checkout", "a");
+		compile(ncf, 'a');
+		cache.store(ncf, COMMAND_KEY, Arrays.asList(headerFile));
+		FileUtils.fileWrite(headerFile.getPath(), "int answer = 43;\n");
+
+		assertFalse(createCache(Long.MAX_VALUE, "checkout").fetch(ncf, COMMAND_KEY));
+	}
+
+	@Test
+	public void leastRecentlyUsedObjectIsEvicted() throws Exception {
+		final ObjectCache cache = createCache(3000, "checkout");
+		final NativeCodeFile first = createSourceFile("checkout", "a");
+		final NativeCodeFile second = createSourceFile("checkout", "b");
+		final NativeCodeFile third = createSourceFile("checkout", "c");
+
+		compileAndStore(cache, first, 'a');
+		for(File cachedObject : listCachedFiles("objects"))
+			cachedObject.setLastModified(cachedObject.lastModified() - 60000);
+		compileAndStore(cache, second, 'b');
+		compileAndStore(cache, third, 'c');
+
+		assertEquals(2, countCachedObjects());
+		assertEquals(2, listCachedFiles("manifests").size());
+		assertFalse(cache.fetch(first, COMMAND_KEY));
+		assertTrue(cache.fetch(second, COMMAND_KEY));
+		assertTrue(cache.fetch(third, COMMAND_KEY));
+	}
+
+	@Test
+	public void manifestsCountTowardsTheSizeLimit() throws Exception {
+		final ObjectCache cache = createCache(2 * OBJECT_SIZE + 200, "checkout");
+		final NativeCodeFile first = createSourceFile("checkout", "a");
+		final NativeCodeFile second = createSourceFile("checkout", "b");
+
+		compileAndStore(cache, first, 'a');
+		for(File cachedObject : listCachedFiles("objects"))
+			cachedObject.setLastModified(cachedObject.lastModified() - 60000);
+		compileAndStore(cache, second, 'b');
+
+		assertEquals(1, countCachedObjects());
+		assertEquals(1, listCachedFiles("manifests").size());
+		assertTrue(cache.fetch(second, COMMAND_KEY));
+	}
+
+	@Test
+	public void entriesOfEvictedObjectsAreDroppedFromManifests() throws Exception {
+		final NativeCodeFile ncf = createSourceFile("checkout", "a");
+
+		compileAndStore(createCache(3000, "checkout"), ncf, 'a');
+		for(File cachedObject : listCachedFiles("objects"))
+			cachedObject.setLastModified(cachedObject.lastModified() - 60000);
+		FileUtils.fileWrite(headerFile.getPath(), "int answer = 43;\n");
+		compileAndStore(createCache(3000, "checkout"), ncf, 'b');
+		FileUtils.fileWrite(headerFile.getPath(), "int answer = 44;\n");
+		compileAndStore(createCache(3000, "checkout"), ncf, 'c');
+
+		final List<File> manifests = listCachedFiles("manifests");
+		assertEquals(1, manifests.size());
+		assertEquals(2, FileUtils.fileRead(manifests.get(0)).split("\n").length);
+	}
+
+	@Test
+	public void evictingEverythingRemovesTheManifests() throws Exception {
+		final ObjectCache cache = createCache(1, "checkout");
+
+		compileAndStore(cache, createSourceFile("checkout", "a"), 'a');
+
+		assertEquals(0, countCachedObjects());
+		assertEquals(0, listCachedFiles("manifests").size());
+	}
+
+	private ObjectCache createCache(final long maximumSize, final String checkout) {
+		return new ObjectCache(mock(Log.class), cacheDirectory, maximumSize, new File(directory, checkout), null, false);
+	}
+
+	private NativeCodeFile createSourceFile(final String checkout, final String name) throws Exception {
+		final File sourceFile = createFile(checkout + "/src/" + name + ".cpp", "#include \"header.h\"\nint " + name + ";\n");
+		final NativeCodeFile ncf = new NativeCodeFile(sourceFile, new File(directory, checkout + "/obj"));
+		ncf.getObjectFile().getParentFile().mkdirs();
+		return ncf;
+	}
+
+	private void compileAndStore(final ObjectCache cache, final NativeCodeFile ncf, final char contents) throws Exception {
+		cache.fetch(ncf, COMMAND_KEY);
+		compile(ncf, contents);
+		cache.store(ncf, COMMAND_KEY, Arrays.asList(headerFile));
+		cache.finish("test");
+	}
+
+	private void compile(final NativeCodeFile ncf, final char contents) throws Exception {
+		FileUtils.fileWrite(ncf.getObjectFile().getPath(), objectContents(contents));
+		FileUtils.fileWrite(ncf.getDependFile().getPath(), ncf.getObjectFile().getPath() + ": " + ncf.getSourceFile().getPath() + " " + headerFile.getPath() + "\n");
+	}
+
+	private String objectContents(final char contents) {
+		final char[] object = new char[OBJECT_SIZE];
+		Arrays.fill(object, contents);
+		return new String(object);
+	}
+
+	private int countCachedObjects() {
+		int numberOfObjects = 0;
+		for(File cachedFile : listCachedFiles("objects"))
+			if( cachedFile.getName().endsWith(NativeCodeFile.OBJECT_SUFFIX) )
+				numberOfObjects++;
+
+		return numberOfObjects;
+	}
+
+	private List<File> listCachedFiles(final String kind) {
+		final List<File> cachedFiles = new ArrayList<File>();
+		final File[] buckets = new File(cacheDirectory, kind).listFiles();
+		if( buckets != null )
+			for(File bucket : buckets)
+				cachedFiles.addAll(Arrays.asList(bucket.listFiles()));
+
+		return cachedFiles;
+	}
+
+	private File createFile(final String path, final String contents) throws Exception {
+		final File file = new File(directory, path);
+		file.getParentFile().mkdirs();
+		FileUtils.fileWrite(file.getPath(), contents);
+		return file;
+	}
+}
@@ -1,73 +1,185 @@
-/* 
- *  Copyright 2011 Ericsson AB
- *
- *  Licensed under the Apache License, Version 2.0 (the "License");
- *  you may not use this file except in compliance with the License.
- *  You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- */
-
-package org.codehaus.mojo.cpp.compiler.dependencies;
-
-import java.io.File;
-
-import org.apache.maven.artifact.Artifact;
-import org.apache.maven.plugin.logging.Log;
-import org.codehaus.mojo.cpp.compiler.artifacts.ArtifactManager;
-import org.codehaus.mojo.cpp.compiler.dependencies.DependencyExtractor;
-import org.codehaus.mojo.cpp.compiler.settings.DependencyExtractionSettings;
-import org.junit.Before;
-import org.junit.Test;
-
-
-import static org.mockito.Mockito.*;
-import static org.junit.Assert.*;
-
-public class TestDependencyExtractor {
-	private Log log;
-	private DependencyExtractionSettings settings;
-	private ArtifactManager artifactManager;
-	private File destination;
-	private Artifact artifact;
-	private File artifactFile;
-	private DependencyExtractor de;
-	
-	
-	@Before
-	public void setup() {
-		log = mock(Log.class);
-		settings = mock(DependencyExtractionSettings.class);
-		artifactManager = mock(ArtifactManager.class);
-		destination = mock(File.class);
-		artifactFile = mock(File.class);
-		artifact = mock(Artifact.class);
-		when(artifact.getFile()).thenReturn(artifactFile);
-		
-		de = new DependencyExtractor(log, settings, artifactManager);
-	}
-	
-	@Test
-	public void isUpdatedSnapshotShouldDetectNonSnapshotArtifacts() throws Exception {
-		when(artifact.isSnapshot()).thenReturn(false);
-		assertFalse(de.isUpdatedSnapshot(artifact, destination));
-	}
-
-	@Test
-	public void isUpdatedSnapshotShouldCompareTimestamps() throws Exception {
-		when(artifact.isSnapshot()).thenReturn(true);
-		when(destination.lastModified()).thenReturn(1l);
-		when(artifactFile.lastModified()).thenReturn(0l);
-		assertFalse("Artifact file older than extraction destination should not be considered updated.", de.isUpdatedSnapshot(artifact, destination));
-
-		when(destination.lastModified()).thenReturn(0l);
-		when(artifactFile.lastModified()).thenReturn(1l);
-		assertTrue("Artifact file newer than extraction destination should be considered updated.", de.isUpdatedSnapshot(artifact, destination));
-	}
-}
\ No newline at end of file
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.dependencies;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.TemporaryDirectory;
+import org.codehaus.mojo.cpp.compiler.artifacts.ArtifactManager;
+import org.codehaus.mojo.cpp.compiler.dependencies.DependencyExtractor;
+import org.codehaus.mojo.cpp.compiler.settings.DependencyExtractionSettings;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+import static org.mockito.Mockito.*;
+import static org.junit.Assert.*;
+
+public class TestDependencyExtractor {
+	private Log log;
+	private DependencyExtractionSettings settings;
+	private ArtifactManager artifactManager;
+	private File destination;
+	private Artifact artifact;
+	private File artifactFile;
+	private DependencyExtractor de;
+	private File directory;
+	
+	
+	@Before
+	public void setup() {
+		log = mock(Log.class);
+		settings = mock(DependencyExtractionSettings.class);
+		artifactManager = mock(ArtifactManager.class);
+		destination = mock(File.class);
+		artifactFile = mock(File.class);
+		artifact = mock(Artifact.class);
+		when(artifact.getFile()).thenReturn(artifactFile);
+		
+		de = new DependencyExtractor(log, settings, artifactManager);
+	}
+
+	@After
+	public void teardown() throws Exception {
+		TemporaryDirectory.delete(directory);
+	}
+	
+	@Test
+	public void isUpdatedSnapshotShouldDetectNonSnapshotArtifacts() throws Exception {
+		when(artifact.isSnapshot()).thenReturn(false);
+		assertFalse(de.isUpdatedSnapshot(artifact, destination));
+	}
+
+	@Test
+	public void isUpdatedSnapshotShouldCompareTimestamps() throws Exception {
+		when(artifact.isSnapshot()).thenReturn(true);
+		when(destination.lastModified()).thenReturn(1l);
+		when(artifactFile.lastModified()).thenReturn(0l);
+		assertFalse("Artifact file older than extraction destination should not be considered updated.", de.isUpdatedSnapshot(artifact, destination));
+
+		when(destination.lastModified()).thenReturn(0l);
+		when(artifactFile.lastModified()).thenReturn(1l);
+		assertTrue("Artifact file newer than extraction destination should be considered updated.", de.isUpdatedSnapshot(artifact, destination));
+	}
+
+	@Test
+	public void updateShouldKeepFilesWithUnchangedSizeAndCrc() throws Exception {
+		final File extracted = extractOldSnapshot();
+		final File header = new File(extracted, "linux/include/unchanged.h");
+		final long timestamp = header.lastModified();
+
+		de.updateDestination(artifact, extracted);
+
+		assertEquals("int unchanged;", FileUtils.fileRead(header));
+		assertEquals(timestamp, header.lastModified());
+	}
+
+	@Test
+	public void updateShouldRewriteFilesWithChangedCrc() throws Exception {
+		final File extracted = extractOldSnapshot();
+
+		de.updateDestination(artifact, extracted);
+
+		assertEquals("Same size, new contents should be detected by the CRC.", "int modified2;", FileUtils.fileRead(new File(extracted, "linux/include/modified.h")));
+	}
+
+	@Test
+	public void updateShouldRewriteFilesWithChangedSize() throws Exception {
+		final File extracted = extractOldSnapshot();
+
+		de.updateDestination(artifact, extracted);
+
+		assertEquals("int grown = 42;", FileUtils.fileRead(new File(extracted, "linux/include/sub/grown.h")));
+	}
+
+	@Test
+	public void updateShouldDeleteRemovedFilesAndWriteAddedOnes() throws Exception {
+		final File extracted = extractOldSnapshot();
+
+		de.updateDestination(artifact, extracted);
+
+		assertFalse(new File(extracted, "linux/include/removed.h").exists());
+		assertEquals("int added;", FileUtils.fileRead(new File(extracted, "linux/include/sub/added.h")));
+	}
+
+	@Test
+	public void updateShouldOnlyTouchSubDirectoriesExtractedBefore() throws Exception {
+		final File extracted = extractOldSnapshot();
+
+		de.updateDestination(artifact, extracted);
+
+		assertFalse(new File(extracted, "linux/lib").exists());
+	}
+
+	/**
+	 * Extracts the old SNAPSHOT of an artifact by hand, and points the artifact at the new one.
+	 * 
+	 * @return		The extraction destination
+	 */
+	private File extractOldSnapshot() throws Exception {
+		directory = TemporaryDirectory.create("dependency-extractor");
+
+		final File extracted = new File(directory, "extracted");
+		final Map<String, String> oldEntries = new LinkedHashMap<String, String>();
+		oldEntries.put("linux/include/unchanged.h", "int unchanged;");
+		oldEntries.put("linux/include/modified.h", "int modified1;");
+		oldEntries.put("linux/include/removed.h", "int removed;");
+		oldEntries.put("linux/include/sub/grown.h", "int grown;");
+		for(Map.Entry<String, String> entry : oldEntries.entrySet()) {
+			final File file = new File(extracted, entry.getKey());
+			file.getParentFile().mkdirs();
+			FileUtils.fileWrite(file.getPath(), entry.getValue());
+			file.setLastModified(10000);
+		}
+
+		final Map<String, String> newEntries = new LinkedHashMap<String, String>();
+		newEntries.put("linux/include/unchanged.h", "int unchanged;");
+		newEntries.put("linux/include/modified.h", "int modified2;");
+		newEntries.put("linux/include/sub/grown.h", "int grown = 42;");
+		newEntries.put("linux/include/sub/added.h", "int added;");
+		newEntries.put("linux/lib/library.a", "library");
+		when(artifact.getFile()).thenReturn(createArchive(newEntries));
+
+		return extracted;
+	}
+
+	private File createArchive(final Map<String, String> entries) throws Exception {
+		final File archive = new File(directory, "artifact.car");
+		final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+		try {
+			for(Map.Entry<String, String> entry : entries.entrySet()) {
+				out.putNextEntry(new ZipEntry(entry.getKey()));
+				out.write(entry.getValue().getBytes("UTF-8"));
+				out.closeEntry();
+			}
+		}
+		finally {
+			out.close();
+		}
+
+		return archive;
+	}
+}
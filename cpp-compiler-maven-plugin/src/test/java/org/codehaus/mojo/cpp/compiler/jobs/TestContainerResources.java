@@ -0,0 +1,222 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.jobs;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.codehaus.mojo.cpp.compiler.TemporaryDirectory;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TestContainerResources {
+	private static final int AVAILABLE_PROCESSORS = 8;
+	private static final long PHYSICAL_MEMORY = 8L * 1024 * 1024 * 1024;
+	private static final long GIGABYTE = 1024L * 1024 * 1024;
+
+	private File directory = null;
+	private File cgroupDirectory = null;
+	private File selfCgroupFile = null;
+
+	@Before
+	public void setup() throws Exception {
+		directory = TemporaryDirectory.create("container-resources");
+		cgroupDirectory = new File(directory, "sys/fs/cgroup");
+		cgroupDirectory.mkdirs();
+		selfCgroupFile = new File(directory, "proc/self/cgroup");
+	}
+
+	@After
+	public void teardown() throws Exception {
+		TemporaryDirectory.delete(directory);
+	}
+
+	@Test
+	public void withoutControlGroupsEverythingIsAvailable() throws Exception {
+		assertEquals(AVAILABLE_PROCESSORS, getNumberOfProcessors());
+		assertEquals(PHYSICAL_MEMORY, getMemoryLimit());
+		assertEquals(-1, ContainerResources.getMemoryLimit(cgroupDirectory, selfCgroupFile, -1));
+	}
+
+	@Test
+	public void cgroupV2QuotaIsRoundedUp() throws Exception {
+		writeSelfCgroup("0::/");
+		writeFile("cpu.max", "150000 100000");
+
+		assertEquals(2, getNumberOfProcessors());
+	}
+
+	@Test
+	public void cgroupV2QuotaBelowOneProcessorGivesOne() throws Exception {
+		writeSelfCgroup("0::/");
+		writeFile("cpu.max", "20000 100000");
+
+		assertEquals(1, getNumberOfProcessors());
+	}
+
+	@Test
+	public void cgroupV2WithoutQuotaGivesAvailableProcessors() throws Exception {
+		writeSelfCgroup("0::/");
+		writeFile("cpu.max", "max 100000");
+
+		assertEquals(AVAILABLE_PROCESSORS, getNumberOfProcessors());
+	}
+
+	@Test
+	public void quotaAboveAvailableProcessorsIsCapped() throws Exception {
+		writeSelfCgroup("0::/");
+		writeFile("cpu.max", "1600000 100000");
+
+		assertEquals(AVAILABLE_PROCESSORS, getNumberOfProcessors());
+	}
+
+	@Test
+	public void cgroupV2GroupOfTheProcessIsReadFirst() throws Exception {
+		writeSelfCgroup("0::/kubepods/pod1/container");
+		writeFile("cpu.max", "max 100000");
+		writeFile("kubepods/pod1/container/cpu.max", "300000 100000");
+		writeFile("memory.max", "max");
+		writeFile("kubepods/pod1/container/memory.max", String.valueOf(2 * GIGABYTE));
+
+		assertEquals(3, getNumberOfProcessors());
+		assertEquals(2 * GIGABYTE, getMemoryLimit());
+	}
+
+	@Test
+	public void cgroupV2RootIsReadInOwnNamespace() throws Exception {
+		writeSelfCgroup("0::/kubepods/pod1/container");
+		writeFile("cpu.max", "400000 100000");
+		writeFile("memory.max", String.valueOf(GIGABYTE));
+
+		assertEquals(4, getNumberOfProcessors());
+		assertEquals(GIGABYTE, getMemoryLimit());
+	}
+
+	@Test
+	public void cgroupV2MemoryLimit() throws Exception {
+		writeSelfCgroup("0::/");
+		writeFile("memory.max", String.valueOf(GIGABYTE));
+
+		assertEquals(GIGABYTE, getMemoryLimit());
+	}
+
+	@Test
+	public void cgroupV2UnlimitedMemoryGivesPhysicalMemory() throws Exception {
+		writeSelfCgroup("0::/");
+		writeFile("memory.max", "max");
+
+		assertEquals(PHYSICAL_MEMORY, getMemoryLimit());
+	}
+
+	@Test
+	public void memoryLimitAbovePhysicalMemoryGivesPhysicalMemory() throws Exception {
+		writeSelfCgroup("0::/");
+		writeFile("memory.max", String.valueOf(2 * PHYSICAL_MEMORY));
+
+		assertEquals(PHYSICAL_MEMORY, getMemoryLimit());
+	}
+
+	@Test
+	public void cgroupV1Quota() throws Exception {
+		writeSelfCgroup("12:memory:/docker/abc\n4:cpu,cpuacct:/docker/abc\n1:name=systemd:/docker/abc");
+		writeFile("cpu/docker/abc/cpu.cfs_quota_us", "250000");
+		writeFile("cpu/docker/abc/cpu.cfs_period_us", "100000");
+
+		assertEquals(3, getNumberOfProcessors());
+	}
+
+	@Test
+	public void cgroupV1WithoutQuotaGivesAvailableProcessors() throws Exception {
+		writeSelfCgroup("4:cpu,cpuacct:/");
+		writeFile("cpu/cpu.cfs_quota_us", "-1");
+		writeFile("cpu/cpu.cfs_period_us", "100000");
+
+		assertEquals(AVAILABLE_PROCESSORS, getNumberOfProcessors());
+	}
+
+	@Test
+	public void cgroupV1ControllerMustMatchExactly() throws Exception {
+		writeSelfCgroup("5:cpuset:/other\n4:cpu,cpuacct:/docker/abc");
+		writeFile("cpu/other/cpu.cfs_quota_us", "100000");
+		writeFile("cpu/other/cpu.cfs_period_us", "100000");
+		writeFile("cpu/docker/abc/cpu.cfs_quota_us", "200000");
+		writeFile("cpu/docker/abc/cpu.cfs_period_us", "100000");
+
+		assertEquals(2, getNumberOfProcessors());
+	}
+
+	@Test
+	public void cgroupV1HierarchyRootIsReadInOwnNamespace() throws Exception {
+		writeSelfCgroup("4:cpu,cpuacct:/docker/abc\n3:memory:/docker/abc");
+		writeFile("cpu/cpu.cfs_quota_us", "200000");
+		writeFile("cpu/cpu.cfs_period_us", "100000");
+		writeFile("memory/memory.limit_in_bytes", String.valueOf(GIGABYTE));
+
+		assertEquals(2, getNumberOfProcessors());
+		assertEquals(GIGABYTE, getMemoryLimit());
+	}
+
+	@Test
+	public void cgroupV1MemoryLimit() throws Exception {
+		writeSelfCgroup("3:memory:/docker/abc");
+		writeFile("memory/docker/abc/memory.limit_in_bytes", String.valueOf(512L * 1024 * 1024));
+
+		assertEquals(512L * 1024 * 1024, getMemoryLimit());
+	}
+
+	@Test
+	public void cgroupV1UnlimitedMemoryGivesPhysicalMemory() throws Exception {
+		writeSelfCgroup("3:memory:/");
+		writeFile("memory/memory.limit_in_bytes", "9223372036854771712");
+
+		assertEquals(PHYSICAL_MEMORY, getMemoryLimit());
+	}
+
+	@Test
+	public void unparseableValuesAreIgnored() throws Exception {
+		writeSelfCgroup("0::/");
+		writeFile("cpu.max", "garbage");
+		writeFile("memory.max", "");
+
+		assertEquals(AVAILABLE_PROCESSORS, getNumberOfProcessors());
+		assertEquals(PHYSICAL_MEMORY, getMemoryLimit());
+	}
+
+	private int getNumberOfProcessors() {
+		return ContainerResources.getNumberOfProcessors(cgroupDirectory, selfCgroupFile, AVAILABLE_PROCESSORS);
+	}
+
+	private long getMemoryLimit() {
+		return ContainerResources.getMemoryLimit(cgroupDirectory, selfCgroupFile, PHYSICAL_MEMORY);
+	}
+
+	private void writeSelfCgroup(final String contents) throws Exception {
+		selfCgroupFile.getParentFile().mkdirs();
+		FileUtils.fileWrite(selfCgroupFile.getPath(), contents + "\n");
+	}
+
+	private void writeFile(final String path, final String contents) throws Exception {
+		final File file = new File(cgroupDirectory, path);
+		file.getParentFile().mkdirs();
+		FileUtils.fileWrite(file.getPath(), contents + "\n");
+	}
+}
@@ -0,0 +1,173 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.compiler.jobs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.mojo.cpp.compiler.TemporaryDirectory;
+import org.codehaus.mojo.cpp.tools.CliExecutor;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.cli.Commandline;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Regular files stand in for the pipes and file descriptors of the jobserver. Every token is read from the
+ * start of the file, and an empty file looks like a closed jobserver.
+ */
+public class TestJobserver {
+	private File directory = null;
+	private File descriptorDirectory = null;
+	private File fifo = null;
+	private Log log = null;
+
+	@Before
+	public void setup() throws Exception {
+		directory = TemporaryDirectory.create("jobserver");
+		descriptorDirectory = new File(directory, "fd");
+		descriptorDirectory.mkdirs();
+		fifo = new File(directory, "jobserver.fifo");
+		log = mock(Log.class);
+	}
+
+	@After
+	public void teardown() throws Exception {
+		TemporaryDirectory.delete(directory);
+	}
+
+	@Test
+	public void noJobserverWithoutMakeflags() {
+		assertNull(Jobserver.fromMakeflags(log, null, descriptorDirectory));
+	}
+
+	@Test
+	public void noJobserverWhenMakeflagsDontNameOne() {
+		assertNull(Jobserver.fromMakeflags(log, "-j4 -k", descriptorDirectory));
+		assertNull(Jobserver.fromMakeflags(log, "", descriptorDirectory));
+	}
+
+	@Test
+	public void namedPipeIsExportedToChildren() throws Exception {
+		FileUtils.fileWrite(fifo.getPath(), "");
+		final String makeflags = "-j4 --jobserver-auth=fifo:" + fifo.getPath();
+		final Jobserver jobserver = Jobserver.fromMakeflags(log, makeflags, descriptorDirectory);
+
+		final CliExecutor executor = mock(CliExecutor.class);
+		final Commandline commandline = mock(Commandline.class);
+		when(executor.getCommandline()).thenReturn(commandline);
+		jobserver.export(executor);
+
+		verify(commandline).addEnvironment("MAKEFLAGS", makeflags);
+	}
+
+	@Test
+	public void namedPipeIsFoundAmongOtherFlags() throws Exception {
+		FileUtils.fileWrite(fifo.getPath(), "");
+
+		assertNotNull(Jobserver.fromMakeflags(log, "-j3 --jobserver-auth=fifo:" + fifo.getPath() + " -- VAR=1", descriptorDirectory));
+	}
+
+	@Test
+	public void tokensTakenAreReturned() throws Exception {
+		FileUtils.fileWrite(new File(descriptorDirectory, "3").getPath(), "x");
+		FileUtils.fileWrite(new File(descriptorDirectory, "4").getPath(), "");
+		final Jobserver jobserver = Jobserver.fromMakeflags(log, " -j --jobserver-auth=3,4", descriptorDirectory);
+		final JobBudget budget = jobserver.createJobBudget(new SemaphoreJobBudget(10));
+
+		budget.acquire();
+		budget.acquire();
+		budget.acquire();
+		budget.release();
+		budget.release();
+		budget.release();
+
+		assertEquals("Two tokens taken besides the implicit one", "xx", FileUtils.fileRead(new File(descriptorDirectory, "4")));
+	}
+
+	@Test
+	public void fileDescriptorsOfOlderMakeAreOpened() throws Exception {
+		FileUtils.fileWrite(new File(descriptorDirectory, "5").getPath(), "");
+		FileUtils.fileWrite(new File(descriptorDirectory, "6").getPath(), "");
+
+		assertNotNull(Jobserver.fromMakeflags(log, "--jobserver-fds=5,6 -j", descriptorDirectory));
+	}
+
+	@Test
+	public void fileDescriptorsAreNotExportedToChildren() throws Exception {
+		FileUtils.fileWrite(new File(descriptorDirectory, "3").getPath(), "");
+		FileUtils.fileWrite(new File(descriptorDirectory, "4").getPath(), "");
+		final Jobserver jobserver = Jobserver.fromMakeflags(log, "-j4 --jobserver-auth=3,4", descriptorDirectory);
+
+		final CliExecutor executor = mock(CliExecutor.class);
+		final Commandline commandline = mock(Commandline.class);
+		when(executor.getCommandline()).thenReturn(commandline);
+		jobserver.export(executor);
+
+		verify(commandline, never()).addEnvironment(anyString(), anyString());
+	}
+
+	@Test
+	public void fileDescriptorsWhichWerentPassedOnAreIgnored() throws Exception {
+		assertNull(Jobserver.fromMakeflags(log, "-j4 --jobserver-auth=3,4", descriptorDirectory));
+		verify(log).warn(anyString());
+	}
+
+	@Test(timeout=10000)
+	public void implicitJobNeedsNoToken() throws Exception {
+		FileUtils.fileWrite(fifo.getPath(), "");
+		final JobBudget budget = Jobserver.fromMakeflags(log, "--jobserver-auth=fifo:" + fifo.getPath(), descriptorDirectory).createJobBudget(new SemaphoreJobBudget(10));
+
+		budget.acquire();
+		budget.release();
+		budget.acquire();
+		budget.release();
+
+		assertEquals("", FileUtils.fileRead(fifo));
+		verify(log, never()).warn(anyString());
+	}
+
+	@Test(timeout=10000)
+	public void failedJobserverFallsBackToTheLocalBudget() throws Exception {
+		FileUtils.fileWrite(fifo.getPath(), "");
+		final JobBudget budget = Jobserver.fromMakeflags(log, "--jobserver-auth=fifo:" + fifo.getPath(), descriptorDirectory).createJobBudget(new SemaphoreJobBudget(10));
+
+		budget.acquire();
+		budget.acquire();
+		budget.acquire();
+		budget.release();
+		budget.release();
+		budget.release();
+		budget.acquire();
+		budget.acquire();
+
+		assertEquals("No token may be returned that wasn't taken", "", FileUtils.fileRead(fifo));
+		verify(log).warn(anyString());
+	}
+}
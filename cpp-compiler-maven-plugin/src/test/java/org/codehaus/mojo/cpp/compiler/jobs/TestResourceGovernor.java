@@ -0,0 +1,66 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.compiler.jobs;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Test;
+
+
+public class TestResourceGovernor {
+	private static final long MEMORY = 1024L * 1024 * 1024;
+
+	@Test
+	public void sessionGovernorIsSharedByAllCallers() throws Exception {
+		assertSame(ResourceGovernor.getSessionGovernor(mock(Log.class)), ResourceGovernor.getSessionGovernor(mock(Log.class)));
+	}
+
+	@Test
+	public void jobBudgetsOfOneGovernorShareItsMemory() throws Exception {
+		final ResourceGovernor governor = new ResourceGovernor(mock(Log.class), 3 * MEMORY);
+		final JobBudget moduleBudget = governor.createJobBudget(4);
+		final JobBudget otherModuleBudget = governor.createJobBudget(4);
+		moduleBudget.acquire(2 * MEMORY);
+
+		final CountDownLatch started = new CountDownLatch(1);
+		final Thread otherModule = new Thread() {
+			@Override
+			public void run() {
+				try {
+					otherModuleBudget.acquire(2 * MEMORY);
+					started.countDown();
+					otherModuleBudget.release(2 * MEMORY);
+				}
+				catch (InterruptedException e) {
+				}
+			}
+		};
+		otherModule.start();
+
+		assertFalse("A job of another module must wait for memory in use", started.await(200, TimeUnit.MILLISECONDS));
+		moduleBudget.release(2 * MEMORY);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		otherModule.join();
+	}
+}
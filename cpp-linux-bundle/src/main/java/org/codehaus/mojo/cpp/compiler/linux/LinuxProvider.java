@@ -16,6 +16,7 @@
 
 package org.codehaus.mojo.cpp.compiler.linux;
 
+import java.io.File;
 import java.util.Properties;
 
 import org.apache.maven.plugin.logging.Log;
@@ -23,6 +24,11 @@ import org.codehaus.mojo.cpp.compiler.artifacts.AbstractArtifactBuilder;
 import org.codehaus.mojo.cpp.compiler.artifacts.executables.Executable;
 import org.codehaus.mojo.cpp.compiler.bundle.BundleProvider;
 import org.codehaus.mojo.cpp.compiler.compilation.AbstractCompiler;
+import org.codehaus.mojo.cpp.compiler.compilation.ContentDigestRecompilationJudge;
+import org.codehaus.mojo.cpp.compiler.compilation.IncludeGraph;
+import org.codehaus.mojo.cpp.compiler.compilation.IncludesAnalyzer;
+import org.codehaus.mojo.cpp.compiler.compilation.IndexedIncludesAnalyzer;
+import org.codehaus.mojo.cpp.compiler.compilation.RecompilationJudge;
 import org.codehaus.mojo.cpp.compiler.compilation.gcc.GccIncludesAnalyzer;
 import org.codehaus.mojo.cpp.compiler.compilation.gcc.GccRecompilationJudge;
 import org.codehaus.mojo.cpp.compiler.dependencies.DependencyExtractor;
@@ -53,15 +59,26 @@ public class LinuxProvider implements BundleProvider {
 			return null;
 		
 		if (target.equals(EnvironmentManager.LINUX_32))
-			return new Linux32Compiler(log, settings, target, new GccRecompilationJudge(log, new GccIncludesAnalyzer()));
+			return new Linux32Compiler(log, settings, target, createRecompilationJudge(target, settings));
 		
 		if (target.equals(EnvironmentManager.LINUX_64))
-			return new Linux64Compiler(log, settings, target, new GccRecompilationJudge(log, new GccIncludesAnalyzer()));
+			return new Linux64Compiler(log, settings, target, createRecompilationJudge(target, settings));
 
 		log.warn(getClass().getSimpleName() + " failed to find a compiler for target " + target.getName() + ", even though it's supposedly supported!");
 		return null;
 	}
 
+	private RecompilationJudge createRecompilationJudge(final Environment target, final CompilationSettings settings) {
+		final File includeGraphFile = new File(settings.getObjDirectory(target, settings.isTestCompilation()), "include-graph.bin");
+		final IncludesAnalyzer includesAnalyzer = new IndexedIncludesAnalyzer(new GccIncludesAnalyzer(), new IncludeGraph(log, includeGraphFile));
+		final RecompilationJudge timestampJudge = new GccRecompilationJudge(log, includesAnalyzer);
+
+		if( settings.isContentBasedRecompilation() )
+			return new ContentDigestRecompilationJudge(log, includesAnalyzer, timestampJudge);
+
+		return timestampJudge;
+	}
+
 	@Override
 	public AbstractArtifactBuilder selectBuilder(final Environment host, final Environment target, final CompilationSettings settings, Executable executable, final DependencyExtractor extractor) {
 		if(!compatibilityChecker.supported(getClass().getName(), host, target))
@@ -1,111 +1,167 @@
-/* 
- *  Copyright 2011 Ericsson AB
- *
- *  Licensed under the Apache License, Version 2.0 (the "License");
- *  you may not use this file except in compliance with the License.
- *  You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- */
-
-package org.codehaus.mojo.cpp.tools;
-
-import java.io.File;
-import java.io.InputStream;
-import java.util.Collection;
-
-import org.apache.maven.plugin.MojoExecutionException;
-import org.apache.maven.plugin.MojoFailureException;
-import org.apache.maven.plugin.logging.Log;
-import org.codehaus.plexus.util.cli.CommandLineException;
-import org.codehaus.plexus.util.cli.CommandLineUtils;
-import org.codehaus.plexus.util.cli.Commandline;
-import org.codehaus.plexus.util.cli.StreamConsumer;
-import org.codehaus.plexus.util.cli.CommandLineUtils.StringStreamConsumer;
-
-public class CliExecutor {
-	private final Commandline commandLine;
-	private boolean initialized = false;
-	private final Log log;
-	private StreamConsumer stdOutConsumer = new StringStreamConsumer();
-	private StreamConsumer stdErrConsumer = new StringStreamConsumer();
-	private InputStream inStream = null;
-	
-	public CliExecutor(Log log) {
-		this.log = log;
-		this.commandLine = new Commandline();
-	}
-	
-	public void initialize(File workingDirectory, String executable) {
-		commandLine.setWorkingDirectory(workingDirectory);
-		commandLine.setExecutable(executable);
-		initialized = true;
-	}
-	
-	public int execute() throws MojoFailureException, MojoExecutionException {
-		return execute(true);
-	}
-	
-	public int execute(boolean failOnBadResult) throws MojoFailureException, MojoExecutionException {
-		if( !initialized )
-			throw new MojoExecutionException("Attempted to execute an uninitialized command line");
-		
-		try
-		{
-			log.debug( "About to execute \'" + commandLine.toString() + "\'" );
-
-			int result = CommandLineUtils.executeCommandLine( commandLine, inStream, getStdOutConsumer(), getStdErrConsumer() );
-
-			if ( failOnBadResult && result != 0 ) {
-				String exceptionMessage = "Failed to execute command line: \'" + commandLine.toString() + "\'. Result: \'" + result + "\'.";
-				if( stdErrConsumer instanceof StringStreamConsumer )
-					exceptionMessage += " StdErr: \'" + ((StringStreamConsumer)stdErrConsumer).getOutput() + "\'.";
-				
-				throw new MojoFailureException( exceptionMessage );
-				
-			}
-
-			log.debug("Successfully executed \'" + commandLine.toString() + "\'.");
-			return result;
-		}
-		catch ( CommandLineException e )
-		{
-			throw new MojoExecutionException( "Command line execution failed.", e );
-		}
-	}
-	
-	public void appendFiles(Collection<File> files) {
-		for(File file : files)
-			commandLine.createArg().setValue(file.toString());
-	}
-
-	public Commandline getCommandline() {
-		return commandLine;
-	}
-
-	public void setStdOutConsumer(StreamConsumer stdOutConsumer) {
-		this.stdOutConsumer = stdOutConsumer;
-	}
-
-	public StreamConsumer getStdOutConsumer() {
-		return stdOutConsumer;
-	}
-
-	public void setStdErrConsumer(StreamConsumer stdErrConsumer) {
-		this.stdErrConsumer = stdErrConsumer;
-	}
-
-	public StreamConsumer getStdErrConsumer() {
-		return stdErrConsumer;
-	}
-
-	public void setInStream(InputStream inStream) {
-		this.inStream = inStream;
-	}
-}
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.cli.CommandLineException;
+import org.codehaus.plexus.util.cli.Commandline;
+import org.codehaus.plexus.util.cli.StreamConsumer;
+import org.codehaus.plexus.util.cli.StreamFeeder;
+import org.codehaus.plexus.util.cli.StreamPumper;
+import org.codehaus.plexus.util.cli.CommandLineUtils.StringStreamConsumer;
+
+/**
+ * Runs a command line, collecting its output.<br/>
+ * If the executing thread is interrupted, the process is destroyed together with every process it
+ * has started, so that aborting a build doesn't leave compilers running until they are done.
+ */
+public class CliExecutor {
+	private final Commandline commandLine;
+	private boolean initialized = false;
+	private final Log log;
+	private StreamConsumer stdOutConsumer = new StringStreamConsumer();
+	private StreamConsumer stdErrConsumer = new StringStreamConsumer();
+	private InputStream inStream = null;
+	
+	public CliExecutor(Log log) {
+		this.log = log;
+		this.commandLine = new Commandline();
+	}
+	
+	public void initialize(File workingDirectory, String executable) {
+		commandLine.setWorkingDirectory(workingDirectory);
+		commandLine.setExecutable(executable);
+		initialized = true;
+	}
+	
+	public int execute() throws MojoFailureException, MojoExecutionException {
+		return execute(true);
+	}
+	
+	public int execute(boolean failOnBadResult) throws MojoFailureException, MojoExecutionException {
+		if( !initialized )
+			throw new MojoExecutionException("Attempted to execute an uninitialized command line");
+		
+		Process process = null;
+		try
+		{
+			log.debug( "About to execute \'" + commandLine.toString() + "\'" );
+
+			process = commandLine.execute();
+			ProcessTree.register(process);
+			int result = waitFor(process);
+
+			if ( failOnBadResult && result != 0 ) {
+				String exceptionMessage = "Failed to execute command line: \'" + commandLine.toString() + "\'. Result: \'" + result + "\'.";
+				if( stdErrConsumer instanceof StringStreamConsumer )
+					exceptionMessage += " StdErr: \'" + ((StringStreamConsumer)stdErrConsumer).getOutput() + "\'.";
+				
+				throw new MojoFailureException( exceptionMessage );
+				
+			}
+
+			log.debug("Successfully executed \'" + commandLine.toString() + "\'.");
+			return result;
+		}
+		catch ( CommandLineException e )
+		{
+			throw new MojoExecutionException( "Command line execution failed.", e );
+		}
+		catch ( InterruptedException e )
+		{
+			ProcessTree.destroy(process);
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException( "Interrupted while executing \'" + commandLine.toString() + "\'. The process was destroyed.", e );
+		}
+		finally
+		{
+			if( process != null )
+				ProcessTree.unregister(process);
+		}
+	}
+
+	private int waitFor(final Process process) throws InterruptedException {
+		final StreamFeeder inputFeeder = inStream != null ? new StreamFeeder(inStream, process.getOutputStream()) : null;
+		final StreamPumper outputPumper = new StreamPumper(process.getInputStream(), getStdOutConsumer());
+		final StreamPumper errorPumper = new StreamPumper(process.getErrorStream(), getStdErrConsumer());
+
+		if( inputFeeder != null )
+			inputFeeder.start();
+		else
+			closeQuietly(process);
+		outputPumper.start();
+		errorPumper.start();
+
+		try {
+			final int result = process.waitFor();
+			outputPumper.join();
+			errorPumper.join();
+			return result;
+		}
+		finally {
+			if( inputFeeder != null )
+				inputFeeder.close();
+			outputPumper.close();
+			errorPumper.close();
+		}
+	}
+
+	private void closeQuietly(final Process process) {
+		try {
+			process.getOutputStream().close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close the input of \'" + commandLine.toString() + "\'.");
+		}
+	}
+	
+	public void appendFiles(Collection<File> files) {
+		for(File file : files)
+			commandLine.createArg().setValue(file.toString());
+	}
+
+	public Commandline getCommandline() {
+		return commandLine;
+	}
+
+	public void setStdOutConsumer(StreamConsumer stdOutConsumer) {
+		this.stdOutConsumer = stdOutConsumer;
+	}
+
+	public StreamConsumer getStdOutConsumer() {
+		return stdOutConsumer;
+	}
+
+	public void setStdErrConsumer(StreamConsumer stdErrConsumer) {
+		this.stdErrConsumer = stdErrConsumer;
+	}
+
+	public StreamConsumer getStdErrConsumer() {
+		return stdErrConsumer;
+	}
+
+	public void setInStream(InputStream inStream) {
+		this.inStream = inStream;
+	}
+}
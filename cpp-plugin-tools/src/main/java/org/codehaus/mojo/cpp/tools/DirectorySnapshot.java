@@ -0,0 +1,246 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.tools;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Remembers the listings of directories between builds, so that only directories which have changed are listed again.<br/>
+ * A directory's modification time changes whenever an entry is added to, removed from or renamed within it,
+ * which is all a listing depends on. Listings taken within {@link #TIMESTAMP_GRANULARITY} of the modification
+ * time are not trusted, since a later change within the same tick of a coarse file system clock would go unnoticed.
+ */
+public class DirectorySnapshot {
+	private static final String HEADER = "#directory-snapshot 1";
+	private static final String ENCODING = "UTF-8";
+	private static final long TIMESTAMP_GRANULARITY = 2000;
+
+	private final Log log;
+	private final File snapshotFile;
+	private final Map<String, Listing> listings = new ConcurrentHashMap<String, Listing>();
+	private final Set<String> visitedDirectories = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private volatile int numberOfRelistedDirectories = 0;
+
+	public DirectorySnapshot(final Log log, final File snapshotFile) {
+		this.log = log;
+		this.snapshotFile = snapshotFile;
+	}
+
+	/**
+	 * Lists a directory without any snapshot.
+	 * 
+	 * @return		The listing of the directory, or null if it isn't a readable directory
+	 */
+	public static Listing read(final File directory) {
+		// Taken before listing, so that a change while listing gets the directory listed again next time
+		final long lastModified = directory.lastModified();
+		final File[] entries = directory.listFiles();
+		if( entries == null )
+			return null;
+
+		final List<String> files = new ArrayList<String>();
+		final List<String> directories = new ArrayList<String>();
+		for(File entry : entries) {
+			if( entry.isDirectory() )
+				directories.add(entry.getName());
+			else
+				files.add(entry.getName());
+		}
+
+		return new Listing(lastModified, files, directories);
+	}
+
+	/**
+	 * @return		The listing of the directory, taken from the snapshot if the directory hasn't changed since, or null if it isn't a readable directory
+	 */
+	public Listing list(final File directory) {
+		final String path = directory.getAbsolutePath();
+		visitedDirectories.add(path);
+
+		final long lastModified = directory.lastModified();
+		final Listing recordedListing = listings.get(path);
+		if( recordedListing != null && lastModified != 0 && recordedListing.getLastModified() == lastModified )
+			return recordedListing;
+
+		final Listing listing = read(directory);
+		numberOfRelistedDirectories++;
+		if( listing != null && System.currentTimeMillis() - listing.getLastModified() > TIMESTAMP_GRANULARITY )
+			listings.put(path, listing);
+		else
+			listings.remove(path);
+
+		return listing;
+	}
+
+	public void load() {
+		if( !snapshotFile.isFile() )
+			return;
+
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(new FileInputStream(snapshotFile), ENCODING));
+			if( !HEADER.equals(reader.readLine()) ) {
+				log.debug("Ignoring directory snapshot " + snapshotFile + " of unknown format.");
+				return;
+			}
+
+			String path = null;
+			long lastModified = 0;
+			List<String> files = null;
+			List<String> directories = null;
+			String line;
+			while( (line = reader.readLine()) != null ) {
+				if( line.startsWith("D\t") ) {
+					if( path != null )
+						listings.put(path, new Listing(lastModified, files, directories));
+
+					final int separator = line.indexOf('\t', 2);
+					lastModified = Long.parseLong(line.substring(2, separator));
+					path = line.substring(separator + 1);
+					files = new ArrayList<String>();
+					directories = new ArrayList<String>();
+				}
+				else if( line.startsWith("f\t") && path != null )
+					files.add(line.substring(2));
+				else if( line.startsWith("d\t") && path != null )
+					directories.add(line.substring(2));
+			}
+
+			if( path != null )
+				listings.put(path, new Listing(lastModified, files, directories));
+
+			log.debug("Loaded listings of " + listings.size() + " directories from " + snapshotFile);
+		}
+		catch (IOException e) {
+			log.warn("Failed to read directory snapshot " + snapshotFile + ". All directories will be listed.");
+			listings.clear();
+		}
+		catch (RuntimeException e) {
+			log.warn("Directory snapshot " + snapshotFile + " is corrupt and will be ignored.");
+			listings.clear();
+		}
+		finally {
+			close(reader);
+		}
+	}
+
+	/**
+	 * Writes the snapshot. Listings of directories which weren't visited by this build are kept as long as the directories still exist.
+	 */
+	public synchronized void save() {
+		log.debug("Listed " + numberOfRelistedDirectories + " of " + visitedDirectories.size() + " visited directories.");
+
+		final File temporaryFile = new File(snapshotFile.getPath() + ".tmp");
+		BufferedWriter writer = null;
+		try {
+			snapshotFile.getParentFile().mkdirs();
+			writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temporaryFile), ENCODING));
+			writer.write(HEADER);
+			writer.newLine();
+
+			for(Map.Entry<String, Listing> entry : listings.entrySet()) {
+				final String path = entry.getKey();
+				if( !visitedDirectories.contains(path) && !new File(path).isDirectory() )
+					continue;
+
+				final Listing listing = entry.getValue();
+				writer.write("D\t" + listing.getLastModified() + "\t" + path);
+				writer.newLine();
+				for(String file : listing.getFiles()) {
+					writer.write("f\t" + file);
+					writer.newLine();
+				}
+				for(String directory : listing.getDirectories()) {
+					writer.write("d\t" + directory);
+					writer.newLine();
+				}
+			}
+
+			writer.close();
+			writer = null;
+
+			if( !temporaryFile.renameTo(snapshotFile) ) {
+				snapshotFile.delete();
+				if( !temporaryFile.renameTo(snapshotFile) )
+					throw new IOException("Failed to rename " + temporaryFile + " to " + snapshotFile);
+			}
+		}
+		catch (IOException e) {
+			log.warn("Failed to write directory snapshot " + snapshotFile + ".");
+			temporaryFile.delete();
+		}
+		finally {
+			close(writer);
+		}
+	}
+
+	private void close(final Closeable stream) {
+		if( stream == null )
+			return;
+
+		try {
+			stream.close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close " + snapshotFile + ".");
+		}
+	}
+
+	/**
+	 * The names of the files and the subdirectories in a directory.
+	 */
+	public static class Listing {
+		private final long lastModified;
+		private final List<String> files;
+		private final List<String> directories;
+
+		public Listing(final long lastModified, final List<String> files, final List<String> directories) {
+			this.lastModified = lastModified;
+			this.files = files;
+			this.directories = directories;
+		}
+
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		public List<String> getFiles() {
+			return files;
+		}
+
+		public List<String> getDirectories() {
+			return directories;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A lock shared by all threads and processes using the same lock file.<br/>
+ * File locks are held on behalf of the whole JVM, so threads of this process are
+ * serialized by an in-process lock before the file lock is taken.
+ */
+public class FileLocker {
+	private static final ConcurrentMap<String, ReentrantLock> processLocks = new ConcurrentHashMap<String, ReentrantLock>();
+
+	private final File lockFile;
+	private final ReentrantLock processLock;
+	private RandomAccessFile file;
+	private FileLock fileLock;
+
+	public FileLocker(final File lockFile) throws MojoExecutionException {
+		try {
+			this.lockFile = lockFile.getCanonicalFile();
+		}
+		catch (IOException e) {
+			throw new MojoExecutionException("Failed to resolve lock file " + lockFile, e);
+		}
+
+		processLocks.putIfAbsent(this.lockFile.getPath(), new ReentrantLock());
+		this.processLock = processLocks.get(this.lockFile.getPath());
+	}
+
+	/**
+	 * Blocks until the lock is held by the calling thread. The lock is reentrant.
+	 * 
+	 * @throws MojoExecutionException	Thrown if the lock file could not be locked
+	 */
+	public void lock() throws MojoExecutionException {
+		processLock.lock();
+		if( processLock.getHoldCount() > 1 )
+			return;
+
+		try {
+			lockFile.getParentFile().mkdirs();
+			file = new RandomAccessFile(lockFile, "rw");
+			fileLock = file.getChannel().lock();
+		}
+		catch (IOException e) {
+			closeFile();
+			processLock.unlock();
+			throw new MojoExecutionException("Failed to lock " + lockFile, e);
+		}
+	}
+
+	public void unlock() {
+		if( processLock.getHoldCount() == 1 ) {
+			try {
+				if( fileLock != null )
+					fileLock.release();
+			}
+			catch (IOException e) {
+				// Closing the file below releases the lock as well
+			}
+			fileLock = null;
+			closeFile();
+		}
+
+		processLock.unlock();
+	}
+
+	private void closeFile() {
+		if( file == null )
+			return;
+
+		try {
+			file.close();
+		}
+		catch (IOException e) {
+			// The lock is released once the file is closed, which is all that matters here
+		}
+		file = null;
+	}
+}
@@ -0,0 +1,156 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.tools;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.plexus.util.SelectorUtils;
+
+/**
+ * Finds the files matching any of several Ant style patterns in a single walk of a directory tree.<br/>
+ * Directories which can't hold a match for any of the patterns are not entered. Given a
+ * {@link DirectorySnapshot}, only directories which have changed since it was taken are listed.<br/>
+ * Patterns without wildcards are looked up rather than matched, so that scanning for thousands of
+ * explicitly named files costs no more than scanning for one.
+ */
+public class FileScanner {
+	private final File baseDirectory;
+	private final String[] patterns;
+	private final String[] normalizedPatterns;
+	private final Map<String, List<String>> literalPatterns = new HashMap<String, List<String>>();
+	private final Set<String> literalPatternDirectories = new HashSet<String>();
+	private final List<Integer> wildcardPatterns = new ArrayList<Integer>();
+	private final DirectorySnapshot snapshot;
+
+	public FileScanner(final File baseDirectory, final String... patterns) {
+		this(null, baseDirectory, patterns);
+	}
+
+	/**
+	 * @param snapshot		The snapshot to take directory listings from, or null to list every directory
+	 */
+	public FileScanner(final DirectorySnapshot snapshot, final File baseDirectory, final String... patterns) {
+		this.snapshot = snapshot;
+		this.baseDirectory = baseDirectory;
+		this.patterns = new LinkedHashSet<String>(Arrays.asList(patterns)).toArray(new String[0]);
+		this.normalizedPatterns = new String[this.patterns.length];
+		for(int i = 0; i < this.patterns.length; i++) {
+			normalizedPatterns[i] = normalizePattern(this.patterns[i]);
+			if( isLiteral(normalizedPatterns[i]) )
+				addLiteralPattern(this.patterns[i], normalizedPatterns[i]);
+			else
+				wildcardPatterns.add(i);
+		}
+	}
+
+	/**
+	 * @return		The paths, relative to the base directory, of the files matching each pattern, keyed by pattern
+	 */
+	public Map<String, List<String>> scan() {
+		final Map<String, List<String>> matches = new LinkedHashMap<String, List<String>>();
+		for(String pattern : patterns)
+			matches.put(pattern, new ArrayList<String>());
+
+		scanDirectory(baseDirectory, "", matches);
+
+		return matches;
+	}
+
+	/**
+	 * @return		The paths, relative to the base directory, of the files matching any pattern
+	 */
+	public List<String> getFilenames() {
+		final Set<String> filenames = new LinkedHashSet<String>();
+		for(List<String> patternMatches : scan().values())
+			filenames.addAll(patternMatches);
+
+		return new ArrayList<String>(filenames);
+	}
+
+	public File getBaseDirectory() {
+		return baseDirectory;
+	}
+
+	private void scanDirectory(final File directory, final String relativePath, final Map<String, List<String>> matches) {
+		final DirectorySnapshot.Listing listing = snapshot != null ? snapshot.list(directory) : DirectorySnapshot.read(directory);
+		if( listing == null )
+			return;
+
+		for(String name : listing.getDirectories()) {
+			final String path = relativePath + name;
+			if( couldHoldMatch(path) )
+				scanDirectory(new File(directory, name), path + File.separator, matches);
+		}
+
+		for(String name : listing.getFiles()) {
+			final String path = relativePath + name;
+			final List<String> matchingLiteralPatterns = literalPatterns.get(path);
+			if( matchingLiteralPatterns != null )
+				for(String pattern : matchingLiteralPatterns)
+					matches.get(pattern).add(path);
+
+			for(int i : wildcardPatterns)
+				if( SelectorUtils.matchPath(normalizedPatterns[i], path, true) )
+					matches.get(patterns[i]).add(path);
+		}
+	}
+
+	private boolean couldHoldMatch(final String path) {
+		if( literalPatternDirectories.contains(path) )
+			return true;
+
+		for(int i : wildcardPatterns)
+			if( SelectorUtils.matchPatternStart(normalizedPatterns[i], path, true) )
+				return true;
+
+		return false;
+	}
+
+	private void addLiteralPattern(final String pattern, final String normalizedPattern) {
+		if( !literalPatterns.containsKey(normalizedPattern) )
+			literalPatterns.put(normalizedPattern, new ArrayList<String>());
+		literalPatterns.get(normalizedPattern).add(pattern);
+
+		for(int separator = normalizedPattern.indexOf(File.separatorChar); separator > 0; separator = normalizedPattern.indexOf(File.separatorChar, separator + 1))
+			literalPatternDirectories.add(normalizedPattern.substring(0, separator));
+	}
+
+	private static boolean isLiteral(final String normalizedPattern) {
+		return normalizedPattern.indexOf('*') < 0 && normalizedPattern.indexOf('?') < 0;
+	}
+
+	/**
+	 * Uses the platform separator, and makes a pattern ending with a separator match everything below it, like DirectoryScanner does.
+	 */
+	private static String normalizePattern(final String pattern) {
+		String normalizedPattern = pattern.trim().replace('/', File.separatorChar).replace('\\', File.separatorChar);
+		if( normalizedPattern.endsWith(File.separator) )
+			normalizedPattern += "**";
+
+		return normalizedPattern;
+	}
+}
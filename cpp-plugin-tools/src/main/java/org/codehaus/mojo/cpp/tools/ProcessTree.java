@@ -0,0 +1,224 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.tools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Destroys running processes together with all processes they have started.<br/>
+ * Destroying a process only signals the process itself, which would leave e.g. the cc1plus and as
+ * processes started by gcc running. On hosts with a /proc file system, the descendants are found
+ * there and signalled at the same time. All registered processes are destroyed when the JVM shuts
+ * down, e.g. when the build is interrupted with Ctrl-C.
+ */
+public class ProcessTree {
+	private static final File PROC_DIRECTORY = new File("/proc");
+	private static final Set<Process> runningProcesses = Collections.newSetFromMap(new ConcurrentHashMap<Process, Boolean>());
+	private static boolean shutdownHookAdded = false;
+
+	private ProcessTree() {
+	}
+
+	public static void register(final Process process) {
+		addShutdownHook();
+		runningProcesses.add(process);
+	}
+
+	public static void unregister(final Process process) {
+		runningProcesses.remove(process);
+	}
+
+	/**
+	 * Signals the process and all its descendants to terminate, and doesn't wait for them to do so.
+	 */
+	public static void destroy(final Process process) {
+		final long pid = getPid(process);
+		if( pid > 0 && PROC_DIRECTORY.isDirectory() ) {
+			final List<Long> pids = findDescendants(pid);
+			pids.add(0, pid);
+			terminate(pids);
+		}
+
+		process.destroy();
+	}
+
+	public static void destroyAll() {
+		for(Process process : runningProcesses)
+			destroy(process);
+	}
+
+	private static synchronized void addShutdownHook() {
+		if( shutdownHookAdded )
+			return;
+
+		Runtime.getRuntime().addShutdownHook(new Thread("Process tree destroyer") {
+			@Override
+			public void run() {
+				destroyAll();
+			}
+		});
+		shutdownHookAdded = true;
+	}
+
+	/**
+	 * Uses Process.pid() where available, and otherwise the pid field of the Unix process implementation.
+	 *
+	 * @return		The process id, or -1 if it can't be determined
+	 */
+	private static long getPid(final Process process) {
+		try {
+			final Method pidMethod = Process.class.getMethod("pid");
+			return ((Number)pidMethod.invoke(process)).longValue();
+		}
+		catch (Exception e) {
+			// Before Java 9
+		}
+
+		try {
+			final Field pidField = process.getClass().getDeclaredField("pid");
+			pidField.setAccessible(true);
+			return pidField.getLong(process);
+		}
+		catch (Exception e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return		The id of this JVM's process, or -1 if there is no /proc file system
+	 */
+	public static long getOwnPid() {
+		try {
+			return Long.parseLong(new File(PROC_DIRECTORY, "self").getCanonicalFile().getName());
+		}
+		catch (IOException e) {
+			return -1;
+		}
+		catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * The parent of every process is read from /proc in one pass, so that the whole tree can be known before
+	 * anything is signalled. Descendants are adopted by init once their parent is gone.
+	 *
+	 * @return		The ids of the children of the process, their children and so on
+	 */
+	public static List<Long> findDescendants(final long pid) {
+		final Map<Long, List<Long>> children = new HashMap<Long, List<Long>>();
+		final String[] entries = PROC_DIRECTORY.list();
+		if( entries == null )
+			return new ArrayList<Long>();
+
+		for(String entry : entries) {
+			if( entry.isEmpty() || !Character.isDigit(entry.charAt(0)) )
+				continue;
+
+			final long parentPid = readParentPid(new File(PROC_DIRECTORY, entry + "/stat"));
+			if( parentPid <= 0 )
+				continue;
+
+			if( !children.containsKey(parentPid) )
+				children.put(parentPid, new ArrayList<Long>());
+			children.get(parentPid).add(Long.valueOf(entry));
+		}
+
+		final List<Long> descendants = new ArrayList<Long>();
+		final List<Long> parents = new ArrayList<Long>();
+		parents.add(pid);
+		while( !parents.isEmpty() ) {
+			final List<Long> directChildren = children.get(parents.remove(0));
+			if( directChildren != null ) {
+				descendants.addAll(directChildren);
+				parents.addAll(directChildren);
+			}
+		}
+
+		return descendants;
+	}
+
+	/**
+	 * The parent pid is the second field after the command name, which is in parentheses and may contain spaces.
+	 *
+	 * @return		The parent pid, or -1 if the process is gone or its stat file can't be parsed
+	 */
+	private static long readParentPid(final File statFile) {
+		InputStream in = null;
+		try {
+			in = new FileInputStream(statFile);
+			final byte[] buffer = new byte[512];
+			int length = 0;
+			int read;
+			while( length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) > 0 )
+				length += read;
+
+			final String stat = new String(buffer, 0, length, "US-ASCII");
+			final String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+			return Long.parseLong(fields[1]);
+		}
+		catch (IOException e) {
+			return -1;
+		}
+		catch (RuntimeException e) {
+			return -1;
+		}
+		finally {
+			if( in != null ) {
+				try {
+					in.close();
+				}
+				catch (IOException e) {
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sends SIGTERM rather than SIGKILL, so that gcc gets to remove the output files it hadn't finished.
+	 */
+	private static void terminate(final List<Long> pids) {
+		final List<String> command = new ArrayList<String>();
+		command.add("kill");
+		command.add("-TERM");
+		for(Long pid : pids)
+			command.add(pid.toString());
+
+		try {
+			new ProcessBuilder(command).redirectErrorStream(true).start().waitFor();
+		}
+		catch (IOException e) {
+			// Without the kill command, only the process itself is destroyed
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,283 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.tools;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.AbstractMojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.cli.CommandLineUtils.StringStreamConsumer;
+
+/**
+ * Finds tools on the PATH and determines their versions, once per JVM.<br/>
+ * The PATH is searched by checking the files in each directory, rather than by starting the tool
+ * and looking for exit code 127. Versions are the first line the tool prints for --version. They are
+ * kept in a file in the user's home directory, keyed by the path, modification time and size of the
+ * binary and by the PATH, so that a tool is only started again when it has been replaced. Versions
+ * which don't name the binary, as printed by wrappers like ccache for the compiler they find on the
+ * PATH, are only kept for the JVM, since what is wrapped may change without the wrapper changing.
+ */
+public class ToolLocator {
+	private static final File VERSIONS_FILE = new File(System.getProperty("user.home"), ".cpp-maven-plugins/tool-versions.properties");
+	private static final File NOT_FOUND = new File("");
+	private static final Map<String, File> locations = new ConcurrentHashMap<String, File>();
+	private static final Map<String, String> versions = new ConcurrentHashMap<String, String>();
+	private static Properties storedVersions = null;
+
+	private ToolLocator() {
+	}
+
+	/**
+	 * @param tool		The name of a tool to search the PATH for, or a path to it
+	 * @return		The executable file of the tool, or null if it isn't found
+	 */
+	public static File locate(final String tool) {
+		File location = locations.get(tool);
+		if( location == null ) {
+			location = search(tool, System.getenv("PATH"), getExecutableExtensions());
+			if( location == null )
+				location = NOT_FOUND;
+			locations.put(tool, location);
+		}
+
+		return location == NOT_FOUND ? null : location;
+	}
+
+	public static boolean isAvailable(final String tool) {
+		return locate(tool) != null;
+	}
+
+	/**
+	 * @return		The first line the tool prints for --version, or null if the tool isn't found or fails to print it
+	 */
+	public static String getVersion(final Log log, final String tool) {
+		final File location = locate(tool);
+		if( location == null ) {
+			log.debug("Failed to determine version of " + tool + ". It isn't on the PATH.");
+			return null;
+		}
+
+		final File binary = getBinary(location);
+		final String key = getVersionKey(binary, System.getenv("PATH"));
+		String version = versions.get(key);
+		if( version == null ) {
+			version = getStoredVersion(log, key);
+			if( version == null ) {
+				version = runVersionCommand(log, location);
+				if( version == null )
+					return null;
+
+				if( namesBinary(version, binary) )
+					storeVersion(log, key, version);
+				else
+					log.debug("Not storing the version of " + location + ", since " + binary.getName() + " seems to wrap another tool: " + version);
+			}
+			versions.put(key, version);
+		}
+
+		return version;
+	}
+
+	/**
+	 * @param path			The directories to search, separated like in the PATH environment variable
+	 * @param extensions	The extensions executables may have, including the empty one
+	 * @return				The executable file of the tool, or null if it isn't found
+	 */
+	static File search(final String tool, final String path, final String[] extensions) {
+		if( tool.indexOf(File.separatorChar) >= 0 || tool.indexOf('/') >= 0 ) {
+			final File file = new File(tool);
+			return isExecutable(file) ? file.getAbsoluteFile() : null;
+		}
+
+		if( path == null )
+			return null;
+
+		for(String directory : path.split(File.pathSeparator)) {
+			for(String extension : extensions) {
+				final File file = new File(directory.isEmpty() ? "." : directory, tool + extension);
+				if( isExecutable(file) )
+					return file.getAbsoluteFile();
+			}
+		}
+
+		return null;
+	}
+
+	private static String[] getExecutableExtensions() {
+		final String extensions = System.getenv("PATHEXT");
+		if( extensions == null || File.pathSeparatorChar != ';' )
+			return new String[] { "" };
+
+		return ("" + File.pathSeparator + extensions).split(File.pathSeparator, -1);
+	}
+
+	private static boolean isExecutable(final File file) {
+		return file.isFile() && file.canExecute();
+	}
+
+	/**
+	 * Symbolic links are resolved, so that switching e.g. /usr/bin/gcc to another compiler changes the key.
+	 */
+	private static File getBinary(final File location) {
+		try {
+			return location.getCanonicalFile();
+		}
+		catch (IOException e) {
+			return location;
+		}
+	}
+
+	/**
+	 * The PATH is part of the key, since it decides which tool a wrapper runs.
+	 */
+	private static String getVersionKey(final File binary, final String path) {
+		return binary.getPath() + "," + binary.lastModified() + "," + binary.length() + "," + path;
+	}
+
+	/**
+	 * Tools print their own name, e.g. "clang" for clang-14, or the name they were invoked by, e.g. "gcc" for
+	 * x86_64-linux-gnu-gcc-11, while wrappers like ccache print the name of the tool they run.
+	 *
+	 * @return		True if the version names the binary, or the binary's name contains the name the version starts with
+	 */
+	static boolean namesBinary(final String version, final File binary) {
+		final String binaryName = getBaseName(binary.getName().toLowerCase());
+		final String lowerCaseVersion = version.toLowerCase().trim();
+		if( containsName(lowerCaseVersion, binaryName) )
+			return true;
+
+		final String firstWord = lowerCaseVersion.split("\\s+")[0];
+		final String printedName = getBaseName(firstWord.substring(Math.max(firstWord.lastIndexOf('/'), firstWord.lastIndexOf('\\')) + 1));
+		return !printedName.isEmpty() && containsName(binaryName, printedName);
+	}
+
+	/**
+	 * @return		True if the name is in the text as a word of its own, so that e.g. "ccache" doesn't contain "cc"
+	 */
+	private static boolean containsName(final String text, final String name) {
+		return Pattern.compile("(^|[^a-z0-9])" + Pattern.quote(name) + "($|[^a-z0-9])").matcher(text).find();
+	}
+
+	/**
+	 * @return		The name without a version number or .exe at its end
+	 */
+	private static String getBaseName(final String name) {
+		final String baseName = name.replaceFirst("(-?[0-9][0-9.]*)?(\\.exe)?$", "");
+		return baseName.isEmpty() ? name : baseName;
+	}
+
+	private static String runVersionCommand(final Log log, final File location) {
+		final CliExecutor executor = new CliExecutor(log);
+		executor.initialize(null, location.getPath());
+		executor.getCommandline().createArg().setValue("--version");
+
+		try {
+			executor.execute();
+		}
+		catch (AbstractMojoExecutionException e) {
+			log.debug("Failed to determine version of " + location + ".");
+			return null;
+		}
+
+		final String output = ((StringStreamConsumer)executor.getStdOutConsumer()).getOutput().trim();
+		final int endOfFirstLine = output.indexOf('\n');
+		return endOfFirstLine < 0 ? output : output.substring(0, endOfFirstLine).trim();
+	}
+
+	private static synchronized String getStoredVersion(final Log log, final String key) {
+		if( storedVersions == null )
+			storedVersions = loadVersions(log);
+
+		return storedVersions.getProperty(key);
+	}
+
+	/**
+	 * The file is read again before writing, to keep versions stored by other builds meanwhile.
+	 */
+	private static synchronized void storeVersion(final Log log, final String key, final String version) {
+		storedVersions = loadVersions(log);
+		storedVersions.setProperty(key, version);
+
+		OutputStream out = null;
+		File temporaryFile = null;
+		try {
+			VERSIONS_FILE.getParentFile().mkdirs();
+			temporaryFile = File.createTempFile(VERSIONS_FILE.getName(), ".tmp", VERSIONS_FILE.getParentFile());
+			out = new FileOutputStream(temporaryFile);
+			storedVersions.store(out, "Tool versions by path, modification time, size and PATH");
+			out.close();
+			out = null;
+
+			if( !temporaryFile.renameTo(VERSIONS_FILE) ) {
+				VERSIONS_FILE.delete();
+				if( !temporaryFile.renameTo(VERSIONS_FILE) )
+					throw new IOException("Failed to rename " + temporaryFile + " to " + VERSIONS_FILE);
+			}
+		}
+		catch (IOException e) {
+			log.debug("Failed to write tool versions to " + VERSIONS_FILE + ".");
+			if( temporaryFile != null )
+				temporaryFile.delete();
+		}
+		finally {
+			close(log, out);
+		}
+	}
+
+	private static Properties loadVersions(final Log log) {
+		final Properties properties = new Properties();
+		if( !VERSIONS_FILE.exists() )
+			return properties;
+
+		InputStream in = null;
+		try {
+			in = new FileInputStream(VERSIONS_FILE);
+			properties.load(in);
+		}
+		catch (IOException e) {
+			log.debug("Failed to read tool versions from " + VERSIONS_FILE + ".");
+		}
+		finally {
+			close(log, in);
+		}
+
+		return properties;
+	}
+
+	private static void close(final Log log, final Closeable stream) {
+		if( stream == null )
+			return;
+
+		try {
+			stream.close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close " + VERSIONS_FILE + ".");
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.tools.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes a backend with blocking transfers asynchronous, by running the transfers on a pool of threads.
+ */
+public abstract class AbstractCacheBackend implements CacheBackend {
+	private static final long CLOSE_TIMEOUT_SECONDS = 300;
+
+	private final ExecutorService transfers;
+
+	public AbstractCacheBackend(final int numberOfTransferThreads) {
+		this.transfers = Executors.newFixedThreadPool(numberOfTransferThreads, new ThreadFactory() {
+			private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = defaultFactory.newThread(runnable);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	@Override
+	public Future<Boolean> get(final String key, final File destination) {
+		return transfers.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws IOException {
+				return fetch(key, destination);
+			}
+		});
+	}
+
+	@Override
+	public Future<Boolean> put(final String key, final File source) {
+		return transfers.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws IOException {
+				return store(key, source);
+			}
+		});
+	}
+
+	@Override
+	public void close() {
+		transfers.shutdown();
+		try {
+			transfers.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			transfers.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return		A file next to the destination to write to, and then move into place, so that the destination is never seen half written
+	 */
+	protected File createTemporaryFile(final File destination) throws IOException {
+		destination.getParentFile().mkdirs();
+		return File.createTempFile(destination.getName(), ".tmp", destination.getParentFile());
+	}
+
+	protected void moveIntoPlace(final File temporaryFile, final File destination) throws IOException {
+		if( temporaryFile.renameTo(destination) )
+			return;
+
+		temporaryFile.delete();
+		throw new IOException("Failed to move " + temporaryFile + " to " + destination);
+	}
+
+	/**
+	 * @return		True if the file was found
+	 */
+	protected abstract boolean fetch(final String key, final File destination) throws IOException;
+
+	/**
+	 * @return		True if the file was stored
+	 */
+	protected abstract boolean store(final String key, final File source) throws IOException;
+}
@@ -0,0 +1,47 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.tools.cache;
+
+import java.io.File;
+import java.util.concurrent.Future;
+
+/**
+ * A store of files shared between builds, e.g. on a server or a network file system.<br/>
+ * Files are identified by keys which are relative paths using "/" as separator.
+ * All transfers are asynchronous, so that they can overlap with other work.
+ */
+public interface CacheBackend {
+	/**
+	 * Fetches the file stored with the given key. The destination is only written if the file was found.
+	 * 
+	 * @return		A future telling whether the file was found. Transfer failures are thrown from the future.
+	 */
+	public Future<Boolean> get(final String key, final File destination);
+
+	/**
+	 * Stores the file with the given key, replacing any file stored with it before.
+	 * 
+	 * @return		A future telling whether the file was stored. Transfer failures are thrown from the future.
+	 */
+	public Future<Boolean> put(final String key, final File source);
+
+	/**
+	 * Waits for all transfers to finish, and releases the resources of the backend.
+	 */
+	public void close();
+}
@@ -0,0 +1,50 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.tools.cache;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+public class CacheBackendFactory {
+	private static final int DEFAULT_NUMBER_OF_TRANSFER_THREADS = 8;
+
+	/**
+	 * @param location	An http or https URL for an {@link HttpCacheBackend}, or a file URL or path for a {@link DirectoryCacheBackend}
+	 */
+	public static CacheBackend create(final String location) throws MojoExecutionException {
+		if( location.startsWith("http://") || location.startsWith("https://") )
+			return new HttpCacheBackend(location, DEFAULT_NUMBER_OF_TRANSFER_THREADS);
+
+		if( location.startsWith("file:") ) {
+			try {
+				return new DirectoryCacheBackend(new File(new URI(location)), DEFAULT_NUMBER_OF_TRANSFER_THREADS);
+			}
+			catch (URISyntaxException e) {
+				throw new MojoExecutionException("Malformed cache location \"" + location + "\".", e);
+			}
+			catch (IllegalArgumentException e) {
+				throw new MojoExecutionException("Malformed cache location \"" + location + "\".", e);
+			}
+		}
+
+		return new DirectoryCacheBackend(new File(location), DEFAULT_NUMBER_OF_TRANSFER_THREADS);
+	}
+}
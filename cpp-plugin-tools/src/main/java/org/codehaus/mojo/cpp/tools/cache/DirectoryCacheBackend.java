@@ -0,0 +1,68 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.tools.cache;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Keeps the cached files in a directory, e.g. on a network file system, or locally to try out a shared cache without a server.
+ */
+public class DirectoryCacheBackend extends AbstractCacheBackend {
+	private final File directory;
+
+	public DirectoryCacheBackend(final File directory, final int numberOfTransferThreads) {
+		super(numberOfTransferThreads);
+		this.directory = directory;
+	}
+
+	@Override
+	protected boolean fetch(final String key, final File destination) throws IOException {
+		final File cachedFile = new File(directory, key);
+		if( !cachedFile.isFile() )
+			return false;
+
+		copy(cachedFile, destination);
+		return true;
+	}
+
+	@Override
+	protected boolean store(final String key, final File source) throws IOException {
+		copy(source, new File(directory, key));
+		return true;
+	}
+
+	private void copy(final File source, final File destination) throws IOException {
+		final File temporaryFile = createTemporaryFile(destination);
+		try {
+			FileUtils.copyFile(source, temporaryFile);
+			moveIntoPlace(temporaryFile, destination);
+		}
+		finally {
+			// Only left behind if the copy failed
+			temporaryFile.delete();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return directory.toString();
+	}
+}
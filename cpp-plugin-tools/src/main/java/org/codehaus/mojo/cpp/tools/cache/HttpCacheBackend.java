@@ -0,0 +1,160 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.codehaus.mojo.cpp.tools.cache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Keeps the cached files on an HTTP server, fetching them with GET and storing them with PUT to the key below a base URL.<br/>
+ * Any server accepting PUT, e.g. a WebDAV share or a repository manager, will do.
+ */
+public class HttpCacheBackend extends AbstractCacheBackend {
+	private static final int CONNECT_TIMEOUT_MILLISECONDS = 5000;
+	private static final int READ_TIMEOUT_MILLISECONDS = 60000;
+
+	private final String baseUrl;
+
+	public HttpCacheBackend(final String baseUrl, final int numberOfTransferThreads) {
+		super(numberOfTransferThreads);
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+	}
+
+	@Override
+	protected boolean fetch(final String key, final File destination) throws IOException {
+		final HttpURLConnection connection = openConnection(key);
+		try {
+			final int responseCode = connection.getResponseCode();
+			if( responseCode == HttpURLConnection.HTTP_NOT_FOUND )
+				return false;
+
+			if( responseCode != HttpURLConnection.HTTP_OK )
+				throw new IOException("GET " + connection.getURL() + " failed with response " + responseCode + ".");
+
+			final File temporaryFile = createTemporaryFile(destination);
+			try {
+				InputStream in = null;
+				OutputStream out = null;
+				try {
+					in = connection.getInputStream();
+					out = new FileOutputStream(temporaryFile);
+					final long length = transfer(in, out);
+					final String expectedLength = connection.getHeaderField("Content-Length");
+					if( expectedLength != null && length != Long.parseLong(expectedLength.trim()) )
+						throw new IOException("GET " + connection.getURL() + " ended after " + length + " of " + expectedLength.trim() + " bytes.");
+				}
+				finally {
+					close(in);
+					close(out);
+				}
+
+				moveIntoPlace(temporaryFile, destination);
+				return true;
+			}
+			finally {
+				// Only left behind if the download failed
+				temporaryFile.delete();
+			}
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	@Override
+	protected boolean store(final String key, final File source) throws IOException {
+		final HttpURLConnection connection = openConnection(key);
+		try {
+			connection.setRequestMethod("PUT");
+			connection.setDoOutput(true);
+			// The fixed length can only be given as an int before Java 7
+			if( source.length() <= Integer.MAX_VALUE )
+				connection.setFixedLengthStreamingMode((int)source.length());
+			else
+				connection.setChunkedStreamingMode(0);
+
+			InputStream in = null;
+			OutputStream out = null;
+			try {
+				in = new FileInputStream(source);
+				out = connection.getOutputStream();
+				transfer(in, out);
+			}
+			finally {
+				close(in);
+				close(out);
+			}
+
+			final int responseCode = connection.getResponseCode();
+			if( responseCode < 200 || responseCode >= 300 )
+				throw new IOException("PUT " + connection.getURL() + " failed with response " + responseCode + ".");
+
+			return true;
+		}
+		finally {
+			connection.disconnect();
+		}
+	}
+
+	private HttpURLConnection openConnection(final String key) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection)new URL(baseUrl + key).openConnection();
+		connection.setConnectTimeout(CONNECT_TIMEOUT_MILLISECONDS);
+		connection.setReadTimeout(READ_TIMEOUT_MILLISECONDS);
+		connection.setUseCaches(false);
+		return connection;
+	}
+
+	/**
+	 * @return		The number of bytes transferred
+	 */
+	private long transfer(final InputStream in, final OutputStream out) throws IOException {
+		final byte[] buffer = new byte[65536];
+		long totalLength = 0;
+		int length;
+		while( (length = in.read(buffer)) >= 0 ) {
+			out.write(buffer, 0, length);
+			totalLength += length;
+		}
+
+		return totalLength;
+	}
+
+	private void close(final Closeable stream) {
+		if( stream == null )
+			return;
+
+		try {
+			stream.close();
+		}
+		catch (IOException e) {
+			// Failed transfers are detected through the response code
+		}
+	}
+
+	@Override
+	public String toString() {
+		return baseUrl;
+	}
+}
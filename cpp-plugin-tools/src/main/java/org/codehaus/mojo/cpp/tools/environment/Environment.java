@@ -1,47 +1,47 @@
-/* 
- *  Copyright 2011 Ericsson AB
- *
- *  Licensed under the Apache License, Version 2.0 (the "License");
- *  you may not use this file except in compliance with the License.
- *  You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- */
-
-package org.codehaus.mojo.cpp.tools.environment;
-
-import java.util.Deque;
-import java.util.LinkedList;
-
-public class Environment {
-	private final String name;
-
-	public Environment(final String name) {
-		this.name = name;
-	}
-
-	public String getName() {
-		return name.replace('_', ' ');
-	}
-	
-	public String getCanonicalName() {
-		return name.toLowerCase();
-	}
-
-	public Deque<String> getCandidateNames() {
-		LinkedList<String> candidates = new LinkedList<String>();
-		candidates.addFirst(getCanonicalName());
-		return candidates;
-	}
-	
-	@Override
-	public String toString() {
-		return getName();
-	}
-}
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.tools.environment;
+
+import java.util.Deque;
+import java.util.LinkedList;
+
+public class Environment {
+	private final String name;
+
+	public Environment(final String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name.replace('_', ' ');
+	}
+	
+	public String getCanonicalName() {
+		return name.toLowerCase();
+	}
+
+	public Deque<String> getCandidateNames() {
+		LinkedList<String> candidates = new LinkedList<String>();
+		candidates.addFirst(getCanonicalName());
+		return candidates;
+	}
+	
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
@@ -0,0 +1,50 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.tools;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.codehaus.plexus.util.FileUtils;
+
+
+/**
+ * Creates and removes the scratch directories used by tests.
+ */
+public final class TemporaryDirectory {
+	private TemporaryDirectory() {
+	}
+
+	/**
+	 * @return		A new, empty directory below the system's temporary directory
+	 */
+	public static File create(final String prefix) throws IOException {
+		final File directory = File.createTempFile(prefix, "");
+		if( !directory.delete() || !directory.mkdirs() )
+			throw new IOException("Failed to create temporary directory " + directory);
+
+		return directory;
+	}
+
+	/**
+	 * Removes a directory created by {@link #create(String)}, if any.
+	 */
+	public static void delete(final File directory) throws IOException {
+		if( directory != null )
+			FileUtils.deleteDirectory(directory);
+	}
+}
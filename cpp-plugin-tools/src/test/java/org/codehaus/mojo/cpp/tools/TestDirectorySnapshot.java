@@ -0,0 +1,183 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A recorded listing is recognized by returning it after the directory has changed behind the snapshot's back,
+ * i.e. with its modification time set back to what it was when the listing was taken.
+ */
+public class TestDirectorySnapshot {
+	private static final long OLD_TIMESTAMP = 1000000000000L;
+
+	private File directory = null;
+	private File listedDirectory = null;
+	private File snapshotFile = null;
+
+	@Before
+	public void setup() throws Exception {
+		directory = TemporaryDirectory.create("directory-snapshot");
+		listedDirectory = new File(directory, "listed");
+		new File(listedDirectory, "sub").mkdirs();
+		FileUtils.fileWrite(new File(listedDirectory, "first.cpp").getPath(), "");
+		listedDirectory.setLastModified(OLD_TIMESTAMP);
+		snapshotFile = new File(directory, "snapshot/directories");
+	}
+
+	@After
+	public void teardown() throws Exception {
+		TemporaryDirectory.delete(directory);
+	}
+
+	@Test
+	public void readListsFilesAndDirectories() {
+		final DirectorySnapshot.Listing listing = DirectorySnapshot.read(listedDirectory);
+
+		assertEquals(Arrays.asList("first.cpp"), listing.getFiles());
+		assertEquals(Arrays.asList("sub"), listing.getDirectories());
+		assertEquals(OLD_TIMESTAMP, listing.getLastModified());
+	}
+
+	@Test
+	public void missingDirectoryHasNoListing() {
+		assertNull(DirectorySnapshot.read(new File(directory, "missing")));
+		assertNull(createSnapshot().list(new File(directory, "missing")));
+	}
+
+	@Test
+	public void unchangedDirectoryIsNotListedAgain() throws Exception {
+		final DirectorySnapshot snapshot = createSnapshot();
+		snapshot.list(listedDirectory);
+		addFileBehindTheSnapshotsBack();
+
+		assertEquals(Arrays.asList("first.cpp"), snapshot.list(listedDirectory).getFiles());
+	}
+
+	@Test
+	public void changedDirectoryIsListedAgain() throws Exception {
+		final DirectorySnapshot snapshot = createSnapshot();
+		snapshot.list(listedDirectory);
+		FileUtils.fileWrite(new File(listedDirectory, "second.cpp").getPath(), "");
+		listedDirectory.setLastModified(OLD_TIMESTAMP + 10000);
+
+		assertEquals(Arrays.asList("first.cpp", "second.cpp"), sorted(snapshot.list(listedDirectory).getFiles()));
+	}
+
+	@Test
+	public void listingTakenRightAfterAChangeIsNotTrusted() throws Exception {
+		final long lastModified = System.currentTimeMillis() / 1000 * 1000;
+		listedDirectory.setLastModified(lastModified);
+		final DirectorySnapshot snapshot = createSnapshot();
+		snapshot.list(listedDirectory);
+		FileUtils.fileWrite(new File(listedDirectory, "second.cpp").getPath(), "");
+		listedDirectory.setLastModified(lastModified);
+
+		assertEquals(Arrays.asList("first.cpp", "second.cpp"), sorted(snapshot.list(listedDirectory).getFiles()));
+	}
+
+	@Test
+	public void savedListingsAreReusedByTheNextBuild() throws Exception {
+		final DirectorySnapshot snapshot = createSnapshot();
+		snapshot.list(listedDirectory);
+		snapshot.list(new File(listedDirectory, "sub"));
+		snapshot.save();
+		addFileBehindTheSnapshotsBack();
+
+		final DirectorySnapshot nextSnapshot = createSnapshot();
+		nextSnapshot.load();
+
+		final DirectorySnapshot.Listing listing = nextSnapshot.list(listedDirectory);
+		assertEquals(Arrays.asList("first.cpp"), listing.getFiles());
+		assertEquals(Arrays.asList("sub"), listing.getDirectories());
+	}
+
+	@Test
+	public void listingsOfUnvisitedDirectoriesAreKeptWhileTheyExist() throws Exception {
+		final File otherDirectory = new File(directory, "other");
+		otherDirectory.mkdirs();
+		otherDirectory.setLastModified(OLD_TIMESTAMP);
+		final DirectorySnapshot snapshot = createSnapshot();
+		snapshot.list(listedDirectory);
+		snapshot.list(otherDirectory);
+		snapshot.save();
+
+		final DirectorySnapshot unvisitingSnapshot = createSnapshot();
+		unvisitingSnapshot.load();
+		FileUtils.deleteDirectory(otherDirectory);
+		unvisitingSnapshot.save();
+		otherDirectory.mkdirs();
+		otherDirectory.setLastModified(OLD_TIMESTAMP);
+		FileUtils.fileWrite(new File(otherDirectory, "new.cpp").getPath(), "");
+		otherDirectory.setLastModified(OLD_TIMESTAMP);
+		addFileBehindTheSnapshotsBack();
+
+		final DirectorySnapshot nextSnapshot = createSnapshot();
+		nextSnapshot.load();
+		assertEquals(Arrays.asList("first.cpp"), nextSnapshot.list(listedDirectory).getFiles());
+		assertEquals(Arrays.asList("new.cpp"), nextSnapshot.list(otherDirectory).getFiles());
+	}
+
+	@Test
+	public void snapshotOfUnknownFormatIsIgnored() throws Exception {
+		snapshotFile.getParentFile().mkdirs();
+		FileUtils.fileWrite(snapshotFile.getPath(), "#directory-snapshot 0\nD\t" + OLD_TIMESTAMP + "\t" + listedDirectory.getAbsolutePath() + "\nf\tstale.cpp\n");
+		final DirectorySnapshot snapshot = createSnapshot();
+		snapshot.load();
+
+		assertEquals(Arrays.asList("first.cpp"), snapshot.list(listedDirectory).getFiles());
+	}
+
+	@Test
+	public void corruptSnapshotIsIgnored() throws Exception {
+		snapshotFile.getParentFile().mkdirs();
+		FileUtils.fileWrite(snapshotFile.getPath(), "#directory-snapshot 1\nD\tnot-a-timestamp\t" + listedDirectory.getAbsolutePath() + "\nf\tstale.cpp\n");
+		final DirectorySnapshot snapshot = createSnapshot();
+		snapshot.load();
+
+		assertEquals(Arrays.asList("first.cpp"), snapshot.list(listedDirectory).getFiles());
+	}
+
+	private DirectorySnapshot createSnapshot() {
+		return new DirectorySnapshot(mock(Log.class), snapshotFile);
+	}
+
+	private void addFileBehindTheSnapshotsBack() throws Exception {
+		FileUtils.fileWrite(new File(listedDirectory, "second.cpp").getPath(), "");
+		listedDirectory.setLastModified(OLD_TIMESTAMP);
+	}
+
+	private List<String> sorted(final List<String> names) {
+		final List<String> sortedNames = new ArrayList<String>(names);
+		Collections.sort(sortedNames);
+		return sortedNames;
+	}
+}
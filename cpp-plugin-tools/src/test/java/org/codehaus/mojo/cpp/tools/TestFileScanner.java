@@ -0,0 +1,168 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestFileScanner {
+	private static final String[] FILES = {
+		"main.cpp",
+		"src/a.cpp",
+		"src/b.h",
+		"src/sub/c.cpp",
+		"src/sub/deep/d.cpp",
+		"test/t.cpp",
+		"other/x.txt"
+	};
+
+	private File directory = null;
+
+	@Before
+	public void setup() throws Exception {
+		directory = TemporaryDirectory.create("file-scanner");
+		for(String path : FILES) {
+			final File file = new File(directory, path);
+			file.getParentFile().mkdirs();
+			FileUtils.fileWrite(file.getPath(), path);
+		}
+	}
+
+	@After
+	public void teardown() throws Exception {
+		TemporaryDirectory.delete(directory);
+	}
+
+	@Test
+	public void wildcardPatternsMatchLikeDirectoryScanner() {
+		assertMatchesLikeDirectoryScanner("**/*.cpp");
+		assertMatchesLikeDirectoryScanner("*.cpp");
+		assertMatchesLikeDirectoryScanner("src/*.cpp");
+		assertMatchesLikeDirectoryScanner("src/**/*.cpp");
+		assertMatchesLikeDirectoryScanner("src/?.*");
+		assertMatchesLikeDirectoryScanner("**/sub/**");
+	}
+
+	@Test
+	public void literalPatternsMatchLikeDirectoryScanner() {
+		assertMatchesLikeDirectoryScanner("src/sub/c.cpp");
+		assertMatchesLikeDirectoryScanner("main.cpp");
+		assertMatchesLikeDirectoryScanner("src/missing.cpp");
+		assertMatchesLikeDirectoryScanner("src/sub");
+	}
+
+	@Test
+	public void trailingSeparatorMatchesEverythingBelowLikeDirectoryScanner() {
+		assertMatchesLikeDirectoryScanner("src/");
+		assertMatchesLikeDirectoryScanner("src\\sub\\");
+	}
+
+	@Test
+	public void mixedPatternsMatchLikeDirectoryScanner() {
+		assertMatchesLikeDirectoryScanner("src/a.cpp", "**/*.h", "test/*.cpp", "src/sub/deep/d.cpp");
+		assertMatchesLikeDirectoryScanner("src\\sub\\c.cpp", "src/sub/c.cpp");
+	}
+
+	@Test
+	public void matchesAreKeyedByPattern() {
+		final Map<String, List<String>> matches = new FileScanner(directory, "src/a.cpp", "src/*.cpp", "**/*.h").scan();
+
+		assertEquals(Arrays.asList("src/a.cpp", "src/*.cpp", "**/*.h"), new ArrayList<String>(matches.keySet()));
+		assertEquals(Arrays.asList(path("src/a.cpp")), matches.get("src/a.cpp"));
+		assertEquals(Arrays.asList(path("src/a.cpp")), matches.get("src/*.cpp"));
+		assertEquals(Arrays.asList(path("src/b.h")), matches.get("**/*.h"));
+	}
+
+	@Test
+	public void fileMatchingSeveralPatternsIsListedOnce() {
+		assertEquals(Arrays.asList(path("src/a.cpp")), new FileScanner(directory, "src/a.cpp", "src/*.cpp").getFilenames());
+	}
+
+	@Test
+	public void wildcardPatternsOnlyEnterDirectoriesWhichCouldHoldMatches() {
+		final DirectorySnapshot snapshot = createSnapshot();
+
+		new FileScanner(snapshot, directory, "src/*.cpp").scan();
+
+		verify(snapshot).list(new File(directory, "src"));
+		verify(snapshot, never()).list(new File(directory, "src/sub"));
+		verify(snapshot, never()).list(new File(directory, "test"));
+		verify(snapshot, never()).list(new File(directory, "other"));
+	}
+
+	@Test
+	public void literalPatternsOnlyEnterTheirOwnDirectories() {
+		final DirectorySnapshot snapshot = createSnapshot();
+
+		new FileScanner(snapshot, directory, "src/sub/c.cpp").scan();
+
+		verify(snapshot).list(new File(directory, "src"));
+		verify(snapshot).list(new File(directory, "src/sub"));
+		verify(snapshot, never()).list(new File(directory, "src/sub/deep"));
+		verify(snapshot, never()).list(new File(directory, "test"));
+	}
+
+	@Test
+	public void recursiveWildcardEntersEveryDirectory() {
+		final DirectorySnapshot snapshot = createSnapshot();
+
+		new FileScanner(snapshot, directory, "**/*.cpp").scan();
+
+		verify(snapshot).list(new File(directory, "src/sub/deep"));
+		verify(snapshot).list(new File(directory, "test"));
+		verify(snapshot).list(new File(directory, "other"));
+	}
+
+	private void assertMatchesLikeDirectoryScanner(final String... patterns) {
+		final DirectoryScanner directoryScanner = new DirectoryScanner();
+		directoryScanner.setBasedir(directory);
+		directoryScanner.setIncludes(patterns);
+		directoryScanner.scan();
+		final List<String> expected = new ArrayList<String>(Arrays.asList(directoryScanner.getIncludedFiles()));
+		Collections.sort(expected);
+
+		final List<String> actual = new FileScanner(directory, patterns).getFilenames();
+		Collections.sort(actual);
+
+		assertEquals(Arrays.toString(patterns), expected, actual);
+	}
+
+	private DirectorySnapshot createSnapshot() {
+		return spy(new DirectorySnapshot(mock(Log.class), new File(directory, "snapshot")));
+	}
+
+	private String path(final String path) {
+		return path.replace('/', File.separatorChar);
+	}
+}
@@ -0,0 +1,144 @@
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestToolLocator {
+	private static final String[] NO_EXTENSIONS = { "" };
+
+	private File directory = null;
+	private File firstDirectory = null;
+	private File secondDirectory = null;
+
+	@Before
+	public void setup() throws Exception {
+		directory = TemporaryDirectory.create("tool-locator");
+		firstDirectory = new File(directory, "first");
+		firstDirectory.mkdirs();
+		secondDirectory = new File(directory, "second");
+		secondDirectory.mkdirs();
+	}
+
+	@After
+	public void teardown() throws Exception {
+		TemporaryDirectory.delete(directory);
+	}
+
+	@Test
+	public void toolIsFoundInAnyDirectoryOfThePath() throws Exception {
+		final File tool = createExecutable(secondDirectory, "gcc");
+
+		assertEquals(tool, ToolLocator.search("gcc", getPath(firstDirectory, secondDirectory), NO_EXTENSIONS));
+	}
+
+	@Test
+	public void firstDirectoryOfThePathWins() throws Exception {
+		final File tool = createExecutable(firstDirectory, "gcc");
+		createExecutable(secondDirectory, "gcc");
+
+		assertEquals(tool, ToolLocator.search("gcc", getPath(firstDirectory, secondDirectory), NO_EXTENSIONS));
+	}
+
+	@Test
+	public void nonExecutableFilesAreSkipped() throws Exception {
+		final File file = new File(firstDirectory, "gcc");
+		FileUtils.fileWrite(file.getPath(), "");
+		file.setExecutable(false, false);
+		final File tool = createExecutable(secondDirectory, "gcc");
+
+		assertEquals(tool, ToolLocator.search("gcc", getPath(firstDirectory, secondDirectory), NO_EXTENSIONS));
+	}
+
+	@Test
+	public void directoriesAreSkipped() throws Exception {
+		new File(firstDirectory, "gcc").mkdirs();
+		final File tool = createExecutable(secondDirectory, "gcc");
+
+		assertEquals(tool, ToolLocator.search("gcc", getPath(firstDirectory, secondDirectory), NO_EXTENSIONS));
+	}
+
+	@Test
+	public void missingToolIsNotFound() throws Exception {
+		createExecutable(firstDirectory, "g++");
+
+		assertNull(ToolLocator.search("gcc", getPath(firstDirectory, secondDirectory), NO_EXTENSIONS));
+		assertNull(ToolLocator.search("gcc", null, NO_EXTENSIONS));
+	}
+
+	@Test
+	public void executableExtensionsAreTried() throws Exception {
+		final File tool = createExecutable(secondDirectory, "gcc.exe");
+
+		assertEquals(tool, ToolLocator.search("gcc", getPath(firstDirectory, secondDirectory), new String[] { "", ".exe" }));
+	}
+
+	@Test
+	public void pathsAreNotSearchedFor() throws Exception {
+		final File tool = createExecutable(firstDirectory, "gcc");
+
+		assertEquals(tool, ToolLocator.search(tool.getPath(), getPath(secondDirectory), NO_EXTENSIONS));
+		assertNull(ToolLocator.search(new File(secondDirectory, "gcc").getPath(), getPath(firstDirectory), NO_EXTENSIONS));
+	}
+
+	@Test
+	public void versionsOfToolsNameTheirBinaries() {
+		assertTrue(ToolLocator.namesBinary("gcc (GCC) 4.4.7 20120313 (Red Hat 4.4.7-4)", new File("/usr/bin/gcc")));
+		assertTrue(ToolLocator.namesBinary("gcc (Ubuntu 11.4.0-1ubuntu1~22.04) 11.4.0", new File("/usr/bin/x86_64-linux-gnu-gcc-11")));
+		assertTrue(ToolLocator.namesBinary("g++ (Ubuntu 11.4.0-1ubuntu1~22.04) 11.4.0", new File("/usr/bin/x86_64-linux-gnu-g++-11")));
+		assertTrue(ToolLocator.namesBinary("Ubuntu clang version 14.0.0-1ubuntu1.1", new File("/usr/lib/llvm-14/bin/clang-14")));
+		assertTrue(ToolLocator.namesBinary("valgrind-3.18.1", new File("/usr/bin/valgrind")));
+		assertTrue(ToolLocator.namesBinary("ccache version 4.5.1", new File("/usr/bin/ccache")));
+		assertTrue(ToolLocator.namesBinary("gcc.exe (Rev2, Built by MSYS2 project) 12.2.0", new File("gcc.exe")));
+	}
+
+	@Test
+	public void versionsPrintedByWrappersDontNameTheirBinaries() {
+		assertFalse(ToolLocator.namesBinary("gcc (GCC) 4.4.7 20120313 (Red Hat 4.4.7-4)", new File("/usr/bin/ccache")));
+		assertFalse(ToolLocator.namesBinary("cc (Ubuntu 11.4.0-1ubuntu1~22.04) 11.4.0", new File("/usr/bin/ccache")));
+		assertFalse(ToolLocator.namesBinary("g++ (GCC) 11.2.0", new File("/usr/bin/distcc")));
+		assertFalse(ToolLocator.namesBinary("gcc (GCC) 11.2.0", new File("/opt/tools/compile-wrapper.sh")));
+	}
+
+	private File createExecutable(final File directory, final String name) throws Exception {
+		final File file = new File(directory, name);
+		FileUtils.fileWrite(file.getPath(), "#!/bin/sh\n");
+		file.setExecutable(true);
+		return file.getAbsoluteFile();
+	}
+
+	private String getPath(final File... directories) {
+		final StringBuilder path = new StringBuilder();
+		for(File directory : directories) {
+			if( path.length() > 0 )
+				path.append(File.pathSeparator);
+			path.append(directory.getPath());
+		}
+
+		return path.toString();
+	}
+}
@@ -34,7 +34,7 @@ import org.apache.maven.project.MavenProject;
 import org.codehaus.mojo.cpp.tester.execution.RawTestExecutor;
 import org.codehaus.mojo.cpp.tester.execution.TestExecutor;
 import org.codehaus.mojo.cpp.tester.execution.ValgrindTestExecutor;
-import org.codehaus.mojo.cpp.tools.CliExecutor;
+import org.codehaus.mojo.cpp.tools.ToolLocator;
 import org.codehaus.mojo.cpp.tools.settings.PluginSettingsImpl;
 
 
@@ -147,7 +147,7 @@ public class TestMojo extends AbstractMojo
 		report(testResults, doneTime - startTime);
 	}
 
-	private TestExecutor getTestExecutor(TestSettings settings) throws MojoFailureException, MojoExecutionException {
+	private TestExecutor getTestExecutor(TestSettings settings) {
 		if( runValgrind ) {
 			if( isValgrindAvailable() )
 				return new ValgrindTestExecutor(getLog(), settings);
@@ -192,10 +192,8 @@ public class TestMojo extends AbstractMojo
 	    return NumberFormat.getPercentInstance().format(flooredPercentage);
 	}
 
-	private boolean isValgrindAvailable() throws MojoFailureException, MojoExecutionException {
-		final CliExecutor executor = new CliExecutor(getLog());
-		executor.initialize(project.getBasedir(), "valgrind");
-		return executor.execute(false) != 127;
+	private boolean isValgrindAvailable() {
+		return ToolLocator.isAvailable("valgrind");
 	}
 
 	@SuppressWarnings("unchecked")
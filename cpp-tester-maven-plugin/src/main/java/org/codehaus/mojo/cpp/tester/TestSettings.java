@@ -1,38 +1,38 @@
-/* 
- *  Copyright 2011 Ericsson AB
- *
- *  Licensed under the Apache License, Version 2.0 (the "License");
- *  you may not use this file except in compliance with the License.
- *  You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- *  Unless required by applicable law or agreed to in writing, software
- *  distributed under the License is distributed on an "AS IS" BASIS,
- *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- *  See the License for the specific language governing permissions and
- *  limitations under the License.
- */
-
-package org.codehaus.mojo.cpp.tester;
-
-import java.io.File;
-
-import org.apache.maven.project.MavenProject;
-import org.codehaus.mojo.cpp.tools.settings.PluginSettingsImpl;
-
-
-public class TestSettings extends PluginSettingsImpl {
-
-	private final File suppressionFile;
-
-	public TestSettings(final MavenProject project, final File testOutputDirectory, final File suppressionFile) {
-		super(project, null, testOutputDirectory);
-		this.suppressionFile = suppressionFile;
-	}
-
-	public File getSuppressionFile() {
-		return suppressionFile;
-	}
-
-}
+/* 
+ *  Copyright 2011 Ericsson AB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.codehaus.mojo.cpp.tester;
+
+import java.io.File;
+
+import org.apache.maven.project.MavenProject;
+import org.codehaus.mojo.cpp.tools.settings.PluginSettingsImpl;
+
+
+public class TestSettings extends PluginSettingsImpl {
+
+	private final File suppressionFile;
+
+	public TestSettings(final MavenProject project, final File testOutputDirectory, final File suppressionFile) {
+		super(project, null, testOutputDirectory);
+		this.suppressionFile = suppressionFile;
+	}
+
+	public File getSuppressionFile() {
+		return suppressionFile;
+	}
+
+}